@@ -0,0 +1,290 @@
+/*
+ * Created on 18.10.2026
+ *
+ */
+package de.swingempire.fx.collection;
+
+import java.util.Objects;
+
+/**
+ * A set of indices represented by its complement: all indices below a limit
+ * except those of the excluded store. <p>
+ *
+ * Used by IndicesBase to set all/invert in constant time: "all of n" is
+ * an empty excluded store with limit n, inverting a plain store is wrapping
+ * it as the excluded store and vice versa. Memory and access
+ * are those of the excluded store, that is proportional to the number of
+ * cleared indices.
+ * <p>
+ *
+ * The excluded store never contains indices at or above the limit. Setting
+ * indices above the limit moves the limit and excludes the gap.
+ * <p>
+ *
+ * Note: the excluded store is owned by this, it must not be modified from
+ * the outside.
+ *
+ * @see IndicesBase#setAllIndices()
+ * @see IndicesBase#invertIndices()
+ */
+public class ComplementIndicesStore implements IndicesStore {
+
+    private final IndicesStore excluded;
+    private int limit;
+
+    /**
+     * @param excluded the indices that are not set, must not be null and must
+     *    not contain indices at or above the limit
+     * @param limit the upper bound (exclusive) of the set indices
+     * @throws IllegalArgumentException if limit is negative or excluded
+     *    contains indices at or above limit
+     */
+    public ComplementIndicesStore(IndicesStore excluded, int limit) {
+        this.excluded = Objects.requireNonNull(excluded, "excluded must not be null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit must not be negative but was: " + limit);
+        if (excluded.length() > limit)
+            throw new IllegalArgumentException("excluded must be below limit " + limit
+                    + " but had length: " + excluded.length());
+        this.limit = limit;
+    }
+
+    /**
+     * @return the store of indices below the limit that are not set.
+     */
+    public IndicesStore getExcluded() {
+        return excluded;
+    }
+
+    /**
+     * @return the upper bound (exclusive) of the set indices.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+//---------------------- rank/select
+
+    @Override
+    public int rank(int index) {
+        checkIndex(index);
+        int bound = Math.min(index, limit);
+        return bound - excluded.rank(bound);
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     * Implemented to binary search the index with rank n, the n-th set
+     * index is in [n, n + excluded count].
+     */
+    @Override
+    public int select(int n) {
+        if (n < 0 || n >= cardinality()) return -1;
+        int low = n;
+        int high = Math.min(limit - 1, n + excluded.cardinality());
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mid + 1 - excluded.rank(mid + 1) > n) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+//---------------------- index access
+
+    @Override
+    public boolean get(int index) {
+        checkIndex(index);
+        return index < limit && !excluded.get(index);
+    }
+
+    @Override
+    public void set(int index) {
+        checkIndex(index);
+        set(index, index + 1);
+    }
+
+    @Override
+    public void set(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) return;
+        if (fromIndex < limit) {
+            excluded.clear(fromIndex, Math.min(toIndex, limit));
+        }
+        if (toIndex > limit) {
+            if (fromIndex > limit) {
+                excluded.set(limit, fromIndex);
+            }
+            limit = toIndex;
+        }
+    }
+
+    @Override
+    public void clear(int index) {
+        checkIndex(index);
+        clear(index, index + 1);
+    }
+
+    @Override
+    public void clear(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex >= limit) return;
+        excluded.set(fromIndex, Math.min(toIndex, limit));
+    }
+
+    @Override
+    public void clear() {
+        excluded.clear();
+        limit = 0;
+    }
+
+//---------------------- bulk shifts
+
+    /**
+     * {@inheritDoc} <p>
+     * Implemented to shift the excluded and exclude the inserted range.
+     */
+    @Override
+    public void shiftRight(int fromIndex, int distance) {
+        checkIndex(fromIndex);
+        checkIndex(distance);
+        if (distance == 0 || fromIndex >= limit) return;
+        excluded.shiftRight(fromIndex, distance);
+        excluded.set(fromIndex, fromIndex + distance);
+        limit += distance;
+    }
+
+    @Override
+    public void shiftLeft(int fromIndex, int distance) {
+        checkIndex(fromIndex);
+        checkIndex(distance);
+        if (distance == 0 || fromIndex >= limit) return;
+        if ((long) fromIndex + distance >= limit) {
+            excluded.clear(fromIndex, limit);
+            limit = fromIndex;
+            return;
+        }
+        excluded.shiftLeft(fromIndex, distance);
+        limit -= distance;
+    }
+
+//---------------------- navigation
+
+    @Override
+    public int nextSetBit(int fromIndex) {
+        checkIndex(fromIndex);
+        if (fromIndex >= limit) return -1;
+        int index = excluded.nextClearBit(fromIndex);
+        return index < limit ? index : -1;
+    }
+
+    @Override
+    public int nextClearBit(int fromIndex) {
+        checkIndex(fromIndex);
+        if (fromIndex >= limit) return fromIndex;
+        int index = excluded.nextSetBit(fromIndex);
+        return index >= 0 ? index : limit;
+    }
+
+    @Override
+    public int previousSetBit(int fromIndex) {
+        checkPreviousIndex(fromIndex);
+        if (fromIndex < 0 || limit == 0) return -1;
+        return excluded.previousClearBit(Math.min(fromIndex, limit - 1));
+    }
+
+    @Override
+    public int previousClearBit(int fromIndex) {
+        checkPreviousIndex(fromIndex);
+        if (fromIndex < 0) return -1;
+        if (fromIndex >= limit) return fromIndex;
+        return excluded.previousSetBit(fromIndex);
+    }
+
+    @Override
+    public int length() {
+        return previousSetBit(limit - 1) + 1;
+    }
+
+    @Override
+    public int cardinality() {
+        return limit - excluded.cardinality();
+    }
+
+//------------------ internals
+
+    private static void checkIndex(int index) {
+        if (index < 0)
+            throw new IndexOutOfBoundsException("index < 0: " + index);
+    }
+
+    private static void checkPreviousIndex(int fromIndex) {
+        if (fromIndex < -1)
+            throw new IndexOutOfBoundsException("fromIndex < -1: " + fromIndex);
+    }
+
+    private static void checkRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0)
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        if (toIndex < 0)
+            throw new IndexOutOfBoundsException("toIndex < 0: " + toIndex);
+        if (fromIndex > toIndex)
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex +
+                    " > toIndex: " + toIndex);
+    }
+
+//---------------- copy
+
+    @Override
+    public void copyFrom(IndicesStore other) {
+        if (other == this) return;
+        if (!(other instanceof ComplementIndicesStore)) {
+            IndicesStore.copyRuns(other, this);
+            return;
+        }
+        ComplementIndicesStore complement = (ComplementIndicesStore) other;
+        excluded.copyFrom(complement.excluded);
+        limit = complement.limit;
+    }
+
+    @Override
+    public ComplementIndicesStore copy() {
+        return new ComplementIndicesStore(excluded.copy(), limit);
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     * Implemented to return an empty complement, that is with limit 0 and
+     * an empty excluded of the same type as ours.
+     */
+    @Override
+    public ComplementIndicesStore emptyCopy() {
+        return new ComplementIndicesStore(excluded.emptyCopy(), 0);
+    }
+
+//---------------- Object
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof ComplementIndicesStore))
+            return false;
+        if (this == obj)
+            return true;
+        ComplementIndicesStore other = (ComplementIndicesStore) obj;
+        return limit == other.limit && excluded.equals(other.excluded);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * limit + excluded.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "[0, " + limit + ") except " + excluded;
+    }
+
+}
@@ -16,11 +16,22 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
 import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
+import javafx.application.Platform;
 import javafx.beans.NamedArg;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ObjectPropertyBase;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.ListChangeListener.Change;
 import javafx.collections.ObservableList;
@@ -54,6 +65,8 @@ import de.swingempire.fx.scene.control.selection.TableViewFilterSelectionRT_3928
  * - replaced direct access to predicate by include in update. Note: couldn't
  *   come up with a failing test for addRemove, look into core tests to
  *   understand when that's needed. 
+ * - refilter fires the difference to the old state as disjoint removes/adds, 
+ *   items that survive the predicate change are untouched
  * - using null in constructor without ALWAYS_TRUE makes test
  *   with multiple removes fail - why? 
  *   Reason: Doesn't initialize because replacing a null with a null
@@ -74,6 +87,14 @@ public final class FilteredListX<E> extends TransformationList<E, E>{
     private int size;
 
     private SortHelper helper;
+    
+    private int parallelThreshold = Integer.MAX_VALUE;
+    
+    private Executor filterExecutor;
+    private Executor resultExecutor = Platform::runLater;
+    private FilterTask pendingTask;
+    
+    private PredicateChange predicateChange;
     @SuppressWarnings("rawtypes")
     private static final Predicate ALWAYS_TRUE = t -> true;
 
@@ -128,6 +149,44 @@ public final class FilteredListX<E> extends TransformationList<E, E>{
         this.predicate.set(predicate);
     }
 
+    /**
+     * Sets a predicate which accepts a subset of what the current accepts,
+     * f.i. on extending a search string. Only the currently included items
+     * are re-tested. 
+     * <p>
+     * Note: it's the responsibility of client code to guarantee the subset
+     * relation, the result is undefined otherwise.
+     * 
+     * @param predicate the predicate to match the elements, a null predicate
+     *    is a refinement only if the current is null as well
+     */
+    public final void refinePredicate(Predicate<? super E> predicate) {
+        setPredicate(predicate, PredicateChange.REFINE);
+    }
+
+    /**
+     * Sets a predicate which accepts a superset of what the current accepts,
+     * f.i. on shortening a search string. Only the currently excluded items 
+     * are re-tested.
+     * <p>
+     * Note: it's the responsibility of client code to guarantee the superset
+     * relation, the result is undefined otherwise.
+     * 
+     * @param predicate the predicate to match the elements, may be null
+     */
+    public final void relaxPredicate(Predicate<? super E> predicate) {
+        setPredicate(predicate, PredicateChange.RELAX);
+    }
+
+    private void setPredicate(Predicate<? super E> predicate, PredicateChange change) {
+        predicateChange = change;
+        try {
+            setPredicate(predicate);
+        } finally {
+            predicateChange = null;
+        }
+    }
+
     @Override
     protected void sourceChanged(Change<? extends E> c) {
         beginChange();
@@ -141,6 +200,10 @@ public final class FilteredListX<E> extends TransformationList<E, E>{
             }
         }
         endChange();
+        // a pending result is computed on a stale snapshot of the source
+        if (pendingTask != null) {
+            refilterAsync();
+        }
     }
 
     /**
@@ -383,12 +446,371 @@ public final class FilteredListX<E> extends TransformationList<E, E>{
     @SuppressWarnings("unchecked")
     private void refilter() {
         ensureSize(getSource().size());
-        refilterByUpdate();
+        if (filterExecutor != null) {
+            refilterAsync();
+        } else if (predicateChange != null) {
+            refilterIncremental();
+        } else if (getSource().size() >= parallelThreshold) {
+            refilterParallel();
+        } else {
+            refilterByDiff();
+        }
+//        refilterByUpdate();
 //        refilterByReplace();
     }
 
     /**
-     * Implemented to delegate to updateFilter.
+     * Returns the executor used for asynchronous filtering or null 
+     * if filtering is synchronous.
+     * 
+     * @return the executor used for asynchronous filtering
+     * @see #setFilterExecutor(Executor)
+     */
+    public Executor getFilterExecutor() {
+        return filterExecutor;
+    }
+
+    /**
+     * Sets the executor to use for asynchronous filtering. If not null,
+     * changing the predicate computes the filtered indices on a snapshot 
+     * of the source off the FX thread. A computation still running is 
+     * cancelled on next change of the predicate or the source. The result 
+     * is published as the diff against the current state on the FX thread.
+     * The filteringProperty is true while a computation is pending. A failed
+     * computation leaves the state unchanged and is reported by the 
+     * filterExceptionProperty.
+     * <p>
+     * Default is null, that is filtering synchronously.
+     * <p>
+     * Note: the predicate must be thread-safe if not null, it
+     * is tested off the FX thread. 
+     * 
+     * @param executor the executor to compute the filtered indices, 
+     *    null for synchronous filtering.
+     */
+    public void setFilterExecutor(Executor executor) {
+        this.filterExecutor = executor;
+        if (executor == null && pendingTask != null) {
+            cancelPending();
+            refilter();
+        }
+    }
+
+    /**
+     * Testing only: sets the executor to publish the result of
+     * asynchronous filtering. Default is Platform::runLater.
+     */
+    void setResultExecutor(Executor executor) {
+        this.resultExecutor = executor;
+    }
+
+    /**
+     * Read-only property indicating if an asynchronous filtering is 
+     * in progress.
+     */
+    private final ReadOnlyBooleanWrapper filtering = new ReadOnlyBooleanWrapper(this, "filtering");
+
+    public final ReadOnlyBooleanProperty filteringProperty() {
+        return filtering.getReadOnlyProperty();
+    }
+
+    public final boolean isFiltering() {
+        return filtering.get();
+    }
+
+    /**
+     * Read-only property of the exception thrown by the last asynchronous
+     * filtering, typically by the predicate. Reset to null when the next 
+     * filtering starts.
+     */
+    private final ReadOnlyObjectWrapper<Throwable> filterException = 
+            new ReadOnlyObjectWrapper<>(this, "filterException");
+
+    public final ReadOnlyObjectProperty<Throwable> filterExceptionProperty() {
+        return filterException.getReadOnlyProperty();
+    }
+
+    public final Throwable getFilterException() {
+        return filterException.get();
+    }
+
+    /**
+     * Cancels the pending computation, if any, and starts a new on a
+     * snapshot of the source with the current predicate. A refinement or
+     * relaxation is re-tested incrementally only if there had been no 
+     * pending computation: otherwise the current state is not the result
+     * of the previous predicate.
+     */
+    @SuppressWarnings("unchecked")
+    private void refilterAsync() {
+        PredicateChange change = pendingTask == null ? predicateChange : null;
+        cancelPending();
+        Object[] items = getSource().toArray();
+        int[] current = change != null ? Arrays.copyOf(filtered, size) : null;
+        Predicate<? super E> predicate = getPredicate();
+        FilterTask task = new FilterTask();
+        pendingTask = task;
+        filterException.set(null);
+        filtering.set(true);
+        CompletableFuture
+            .supplyAsync(() -> filterIndices(i -> (E) items[i], items.length, 
+                    current, change, predicate, parallelThreshold, task), filterExecutor)
+            .whenComplete((result, ex) -> resultExecutor.execute(() -> filterDone(task, result, ex)));
+    }
+
+    /**
+     * Applies the result of the given task if it is the pending, does 
+     * nothing if it had been superseded. Must be called on the FX thread.
+     * A failure is reported by the filterExceptionProperty, the current 
+     * state is kept.
+     */
+    private void filterDone(FilterTask task, int[] sourceIndices, Throwable ex) {
+        if (task != pendingTask) return;
+        pendingTask = null;
+        filtering.set(false);
+        if (ex != null) {
+            filterException.set(ex instanceof CompletionException && ex.getCause() != null 
+                    ? ex.getCause() : ex);
+            return;
+        }
+        applyFiltered(sourceIndices);
+    }
+
+    private void cancelPending() {
+        if (pendingTask == null) return;
+        pendingTask.cancelled = true;
+        pendingTask = null;
+        filtering.set(false);
+    }
+
+    /**
+     * Cancellation flag of an asynchronous filtering.
+     */
+    private static class FilterTask {
+        volatile boolean cancelled;
+    }
+
+    /**
+     * Declared relation of a new predicate to the old.
+     * 
+     * @see #refinePredicate(Predicate)
+     * @see #relaxPredicate(Predicate)
+     */
+    private enum PredicateChange {
+        /** new accepts a subset of the old */
+        REFINE, 
+        /** new accepts a superset of the old */
+        RELAX
+    }
+
+    /**
+     * Returns the source size at and above which the predicate is 
+     * evaluated in parallel on refilter.
+     * 
+     * @return the threshold for parallel evaluation
+     * @see #setParallelThreshold(int)
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Sets the source size at and above which the predicate is evaluated 
+     * in parallel chunks (on the common fork-join pool) when refiltering. 
+     * Default is Integer.MAX_VALUE, that is always sequential: for small
+     * lists the overhead of splitting and joining outweighs the gain.
+     * <p>
+     * Note: the predicate must be thread-safe if the threshold is reached, it
+     * is tested off the FX thread. 
+     * 
+     * @param threshold the source size to switch to parallel evaluation, 
+     *    must be > 0
+     * @throws IllegalArgumentException if threshold < 1   
+     */
+    public void setParallelThreshold(int threshold) {
+        if (threshold < 1) 
+            throw new IllegalArgumentException("threshold must be > 0 but was: " + threshold);
+        this.parallelThreshold = threshold;
+    }
+
+    /**
+     * Evaluates the predicate in parallel chunks on a snapshot of the
+     * source, collects the indices of included items and applies
+     * the result as one change.
+     */
+    protected void refilterParallel() {
+        applyFiltered(filterIndices(getSource().toArray(), getPredicate(), true, null));
+    }
+
+    /**
+     * Re-tests only the currently included (on refinement) or excluded 
+     * (on relaxation) items and applies the result as one change. 
+     */
+    protected void refilterIncremental() {
+        ObservableList<? extends E> source = getSource();
+        applyFiltered(filterIndices(source::get, source.size(), 
+                Arrays.copyOf(filtered, size), predicateChange, getPredicate(), 
+                parallelThreshold, null));
+    }
+
+    /**
+     * Returns the indices of the items that are included by the predicate,
+     * in ascending order. A null predicate includes all.
+     * 
+     * @param items the items to test
+     * @param predicate the predicate to test against, may be null
+     * @param parallel flag to indicate evaluating in parallel chunks
+     * @param task the task to check for cancellation, may be null
+     * @return the indices of the included items
+     * @throws CancellationException if the task is cancelled
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> int[] filterIndices(Object[] items, Predicate<? super E> predicate, 
+            boolean parallel, FilterTask task) {
+        return filterIndices(i -> (E) items[i], IntStream.range(0, items.length), 
+                predicate, parallel, task);
+    }
+
+    /**
+     * Returns the indices of the items that are included by the predicate,
+     * in ascending order. Re-tests only the current indices on refinement, 
+     * only the complement of the current indices on relaxation, all 
+     * otherwise.
+     * 
+     * @param items the lookup of item by index
+     * @param itemCount the number of items
+     * @param current the indices included by the old predicate, ascending, 
+     *    may be null if change is null
+     * @param change the relation of the predicate to the old, may be null 
+     *    to test all
+     * @param predicate the predicate to test against, may be null
+     * @param parallelThreshold the number of items to test at and above 
+     *    which the predicate is evaluated in parallel chunks
+     * @param task the task to check for cancellation, may be null
+     * @return the indices of the included items
+     * @throws CancellationException if the task is cancelled
+     */
+    private static <E> int[] filterIndices(IntFunction<? extends E> items, int itemCount,
+            int[] current, PredicateChange change, Predicate<? super E> predicate,
+            int parallelThreshold, FilterTask task) {
+        if (change == PredicateChange.REFINE) {
+            return filterIndices(items, IntStream.of(current), predicate, 
+                    current.length >= parallelThreshold, task);
+        }
+        if (change == PredicateChange.RELAX) {
+            int[] excluded = complement(current, itemCount);
+            int[] added = filterIndices(items, IntStream.of(excluded), predicate, 
+                    excluded.length >= parallelThreshold, task);
+            return merge(current, added);
+        }
+        return filterIndices(items, IntStream.range(0, itemCount), predicate, 
+                itemCount >= parallelThreshold, task);
+    }
+
+    private static <E> int[] filterIndices(IntFunction<? extends E> items, IntStream indices, 
+            Predicate<? super E> predicate, boolean parallel, FilterTask task) {
+        if (predicate == null) return indices.toArray();
+        if (parallel) indices = indices.parallel();
+        return indices
+                .filter(i -> {
+                    if (task != null && task.cancelled) throw new CancellationException();
+                    return predicate.test(items.apply(i));
+                })
+                .toArray();
+    }
+
+    /**
+     * Returns the values in range 0 (inclusive) to count (exclusive) 
+     * that are not contained in the given ascending indices.
+     */
+    private static int[] complement(int[] indices, int count) {
+        int[] result = new int[count - indices.length];
+        int pos = 0;
+        int next = 0;
+        for (int index : indices) {
+            while (next < index) {
+                result[pos++] = next++;
+            }
+            next = index + 1;
+        }
+        while (next < count) {
+            result[pos++] = next++;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ascending union of the given disjoint ascending arrays.
+     */
+    private static int[] merge(int[] first, int[] second) {
+        int[] result = new int[first.length + second.length];
+        int i = 0;
+        int j = 0;
+        for (int pos = 0; pos < result.length; pos++) {
+            if (j == second.length || (i < first.length && first[i] < second[j])) {
+                result[pos] = first[i++];
+            } else {
+                result[pos] = second[j++];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sets the filtered indices to the given source indices and fires the
+     * difference to the current as one change. 
+     * <p>
+     * Merges the old and new indices in one linear pass, firing a removed
+     * per run of excluded and an added per run of included items. Items 
+     * in both are untouched.
+     * 
+     * @param sourceIndices the indices of included items in the source, 
+     *    must be sorted ascending and valid in the current source
+     */
+    private void applyFiltered(int[] sourceIndices) {
+        beginChange();
+        int pos = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size || j < sourceIndices.length) {
+            if (i < size && j < sourceIndices.length && filtered[i] == sourceIndices[j]) {
+                i++;
+                j++;
+                pos++;
+            } else if (j == sourceIndices.length || (i < size && filtered[i] < sourceIndices[j])) {
+                List<E> removed = new ArrayList<>();
+                while (i < size && (j == sourceIndices.length || filtered[i] < sourceIndices[j])) {
+                    removed.add(getSource().get(filtered[i++]));
+                }
+                nextRemove(pos, removed);
+            } else {
+                int from = pos;
+                while (j < sourceIndices.length && (i == size || sourceIndices[j] < filtered[i])) {
+                    j++;
+                    pos++;
+                }
+                nextAdd(from, pos);
+            }
+        }
+        ensureSize(getSource().size());
+        System.arraycopy(sourceIndices, 0, filtered, 0, sourceIndices.length);
+        size = sourceIndices.length;
+        endChange();
+    }
+
+    /**
+     * Tests all items of the source and applies the difference to the 
+     * current state as one change.
+     */
+    protected void refilterByDiff() {
+        ObservableList<? extends E> source = getSource();
+        applyFiltered(filterIndices(source::get, IntStream.range(0, source.size()), 
+                getPredicate(), false, null));
+    }
+
+    /**
+     * Implemented to delegate to updateFilter, not used.
+     * Fires a removed/added per item, not coalesced into runs.
      */
     protected void refilterByUpdate() {
         // PENDING JW: need the begin/endChange?
@@ -401,6 +823,8 @@ public final class FilteredListX<E> extends TransformationList<E, E>{
     /**
      * Extracted refilter from core, not used.
      * Changed to not directly access pred, but delegate to include.
+     * Fires a replace of the whole list, that is all cells and the 
+     * selection are reset.
      */
     protected void refilterByReplace() {
         List<E> removed = null;
@@ -14,8 +14,6 @@ import javafx.beans.value.WeakChangeListener;
 import javafx.collections.ListChangeListener.Change;
 import javafx.collections.transformation.TransformationList;
 
-import com.sun.javafx.collections.SortHelper;
-
 /**
  * Helper for selectedItems. Source contains the selectedIndices, backingList
  * the items.
@@ -157,12 +155,7 @@ public class IndexMappedList<T> extends TransformationList<T, Integer> {
      *         coordinate in the range, or -1 for no match.
      */
     protected Integer findIndex(int start, int size) {
-        for (int i = start; i < start + size; i++) {
-            int index = getIndicesList().oldIndices.indexOf(i);
-            if (index > -1)
-                return index;
-        }
-        return -1;
+        return getIndicesList().oldIndices.indexOfFirstInRange(start, start + size);
     }
 
     /**
@@ -207,20 +200,32 @@ public class IndexMappedList<T> extends TransformationList<T, Integer> {
         }
     }
 
-    protected SortHelper sortHelper = new SortHelper();
-
     /**
-     * @param c
+     * Called on a permutation of the backing list. 
+     * <p>
+     * Implemented to permute only the positions whose old index is in 
+     * the from/to window of the change: the permutation maps the window 
+     * onto itself, all positions outside are unchanged. The new position
+     * of each is the indexOf its permutated value in the already updated
+     * indicesList, O(k log n) with primitive arrays (was: copy all old indices 
+     * into a list and sort it).
+     * 
+     * @param c the change from the backingList, its cursor set to a 
+     *    subChange of type wasPermutated
      */
-    private void permutatedItems(Change<? extends T> c) {
-        // throw new IllegalStateException("not yet implemented");
-        List<Integer> perm = new ArrayList<>(getIndicesList().oldIndices);
-        int[] permA = new int[size()];
-        for (int i = 0; i < getIndicesList().oldIndices.size(); i++) {
-            perm.set(i, c.getPermutation(getIndicesList().oldIndices.get(i)));
+    protected void permutatedItems(Change<? extends T> c) {
+        IndicesSnapshot oldIndices = getIndicesList().oldIndices;
+        int[] oldValues = oldIndices.toIntArray(c.getFrom(), c.getTo());
+        if (oldValues.length == 0) return;
+        int from = oldIndices.rank(c.getFrom());
+        int[] permutation = new int[oldValues.length];
+        boolean identity = true;
+        for (int i = 0; i < oldValues.length; i++) {
+            permutation[i] = getIndicesList().indexOf(c.getPermutation(oldValues[i]));
+            identity &= permutation[i] == from + i;
         }
-        int[] permutation = sortHelper.sort(perm);
-        nextPermutation(0, perm.size(), permutation);
+        if (identity) return;
+        nextPermutation(from, from + oldValues.length, permutation);
     }
 
     /**
@@ -359,7 +364,7 @@ public class IndexMappedList<T> extends TransformationList<T, Integer> {
 
     @Override
     public T get(int index) {
-        int realIndex = getSource().get(index);
+        int realIndex = getIndicesList().getInt(index);
         return backingList.get(realIndex);
     }
 
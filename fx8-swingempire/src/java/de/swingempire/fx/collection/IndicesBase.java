@@ -4,13 +4,24 @@
  */
 package de.swingempire.fx.collection;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.BitSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableListBase;
 
+import com.sun.javafx.collections.NonIterableChange.GenericAddRemoveChange;
+
 /**
  * BitSet backed ObservableList. <p>
  * 
@@ -30,6 +41,8 @@ import javafx.collections.ObservableListBase;
  * <li> IndicesBase is-a kind-of transfrom of a observable sequential indexable backing data structure
  * <li> IndicesBase is-an unmodifiable ObservableList of Integers
  * <li> IndicesBase has api to set/add/clear indices as valid by the backing structure
+ * <li> set all/invert switch the store to a ComplementIndicesStore, such that 
+ *      their cost doesn't depend on the size of the backing structure
  * <li> concrete subclasses listen to changes in the backing data and update the indices as
  *      appropriate
  * <li> implementations (at least that's the idea so far) should be deaf and dumb to its clients: 
@@ -47,16 +60,14 @@ import javafx.collections.ObservableListBase;
  */
 public abstract class IndicesBase<T> extends ObservableListBase<Integer> {
 
-    protected BitSet bitSet;
-    
-    //-------- fields for performance experiments: currently unused
-    private static boolean PERFORM = false;
-    private boolean valid;
-    private int firstSetIndex;
-    private int lastSetIndex;
-    private int lastGetListIndex;
-    private int lastGetBitSetIndex;
-    //-------- end fields for performance experiments
+    /**
+     * The set indices. Supports rank/select, which is what
+     * indexOf/get need to map between coordinates of the backing structure
+     * and our own. A RankedBitSet by default, subclasses might be configured 
+     * with another store. Replaced by a ComplementIndicesStore wrapping the 
+     * configured on set all/invert, and back on clear all/invert. 
+     */
+    protected IndicesStore bitSet;
     
     /**
      * Sets the given indices. All previously set indices that are not
@@ -66,6 +77,11 @@ public abstract class IndicesBase<T> extends ObservableListBase<Integer> {
      * Fixed: don't remove indices that are about to be added
      * again - add some logic to find the latter and call clear only 
      * on the rest (vs. clearAll as currently done here)
+     * <p>
+     * Implemented to replace the store en bloc if the given indices are few
+     * compared to the set indices, or the store is in complement (f.i. 
+     * clicking a row after select all): clearing would be per index on the 
+     * old store and box every removed. See setIndicesEnBloc.
      * 
      * @param indices positions in source list, must be valid.
      * @throws IndexOutOfBoundsException if any of the indices < 0
@@ -73,6 +89,10 @@ public abstract class IndicesBase<T> extends ObservableListBase<Integer> {
      */
     public void setIndices(int... indices) {
         if (indices == null || indices.length == 0) return;
+        if (bitSet instanceof ComplementIndicesStore || indices.length * 2 < size()) {
+            setIndicesEnBloc(indices);
+            return;
+        }
         beginChange();
 //        clearAllIndices();
 //        addIndices(indices);
@@ -88,16 +108,23 @@ public abstract class IndicesBase<T> extends ObservableListBase<Integer> {
      * setIndices which handles the correct notification .. but:
      * very slow! Alternative implementation: clears all and block-sets
      * all. Perfomant, fires a replaced. Acceptable?
+     * <p>
+     * Implemented to switch to the complement representation with nothing
+     * excluded, independent of the source size (was: setting all bits). 
+     * Fires a single replaced over all positions, its removed are the 
+     * previously set indices, reported by the old store (see 
+     * fireAllReplaced).
      * 
+     * @see ComplementIndicesStore
      */
     public void setAllIndices() {
-        if (getSourceSize() == 0) return;
-        // performance optimized verstion: clear all then select all
-        beginChange();
-        clearAllIndices();
-        bitSet.set(0, getSourceSize(), true);
-        nextAdd(0, getSourceSize());
-        endChange();
+        int sourceSize = getSourceSize();
+        if (sourceSize == 0) return;
+        IndicesStore old = bitSet;
+        IndicesStore excluded = old instanceof ComplementIndicesStore
+                ? ((ComplementIndicesStore) old).getExcluded() : old;
+        bitSet = new ComplementIndicesStore(excluded.emptyCopy(), sourceSize);
+        fireAllReplaced(old);
         // code below delegates to setIndices, handles correct notification
         // but is very slow.
 //        int[] indices = new int[getSourceSize()];
@@ -135,25 +162,179 @@ public abstract class IndicesBase<T> extends ObservableListBase<Integer> {
         endChange();
     }
 
+    /**
+     * Inverts the indices: all previously set are cleared, all others in 
+     * the range of the source are set.
+     * <p>
+     * Implemented to switch between the plain and the complement 
+     * representation, re-using the store (no per-index work on the store).
+     * Fires a single replaced over all positions, its removed are the
+     * previously set indices, reported by a copy of the store (see 
+     * fireAllReplaced).
+     * 
+     * @see ComplementIndicesStore
+     */
+    public void invertIndices() {
+        int sourceSize = getSourceSize();
+        if (sourceSize == 0) return;
+        IndicesStore old = hasListeners() ? bitSet.copy() : null;
+        if (bitSet instanceof ComplementIndicesStore) {
+            ComplementIndicesStore complement = (ComplementIndicesStore) bitSet;
+            bitSet = complement.getExcluded();
+            // the complement's limit is at most the source size
+            bitSet.set(complement.getLimit(), sourceSize);
+        } else {
+            bitSet = new ComplementIndicesStore(bitSet, sourceSize);
+        }
+        fireAllReplaced(old);
+    }
+
     /**
      * Clears all indices.
+     * <p>
+     * Implemented to replace the store en bloc and fire a single removed
+     * (was: clear and nextRemove per index), its removed are reported by
+     * the old store (see fireAllReplaced). Switches back to the plain 
+     * representation if in complement.
      */
     public void clearAllIndices() {
-        beginChange();
-        for (int i = size() -1 ; i >= 0; i--) {
-//            int value = get(i);
-            // performance op: don't go through get
-            // bitSet lenght is updated automatically, 
-            // last set at length - 1
-            int value = bitSet.length() - 1;
-            bitSet.clear(value);
-            nextRemove(i, value);
+        if (isEmpty()) return;
+        IndicesStore old = bitSet;
+        IndicesStore base = old instanceof ComplementIndicesStore
+                ? ((ComplementIndicesStore) old).getExcluded() : old;
+        bitSet = base.emptyCopy();
+        fireAllReplaced(old);
+    }
+
+    /**
+     * Sets the given indices by swapping in an empty store with only those
+     * set, the old is kept as snapshot for the notification. Cost is 
+     * independent of the number of cleared indices.
+     * <p>
+     * Fires a single change with a sub-change per gap between the given 
+     * indices: its removed are the old indices in the gap, a lazy view of
+     * the snapshot, its added the following given index if it had not been set.
+     * <p>
+     * <strong>Note</strong>: must not be called inside 
+     * {@code beginChange()} / {@code endChange()} block.
+     */
+    private void setIndicesEnBloc(int[] indices) {
+        IndicesStore old = bitSet;
+        IndicesStore base = old instanceof ComplementIndicesStore
+                ? ((ComplementIndicesStore) old).getExcluded() : old;
+        IndicesStore store = base.emptyCopy();
+        for (int index : indices) {
+            store.set(index);
+        }
+        bitSet = store;
+        if (!hasListeners()) return;
+        fireChange(new SetIndicesChange(new IndicesSnapshot(old), store, this));
+    }
+
+    /**
+     * The change of setIndicesEnBloc: at most one sub-change per set 
+     * index plus one for the old indices above the last. 
+     */
+    private static class SetIndicesChange extends ListChangeListener.Change<Integer> {
+        private final IndicesSnapshot old;
+        private final int[] from;
+        private final int[] to;
+        private final int[] removedFrom;
+        private final int[] removedTo;
+        private int count;
+        private int cursor = -1;
+
+        SetIndicesChange(IndicesSnapshot old, IndicesStore current, IndicesBase<?> list) {
+            super(list);
+            this.old = old;
+            int setCount = current.cardinality();
+            from = new int[setCount + 1];
+            to = new int[setCount + 1];
+            removedFrom = new int[setCount + 1];
+            removedTo = new int[setCount + 1];
+            int lower = 0;
+            int index = current.nextSetBit(0);
+            for (int pos = 0; pos <= setCount; pos++) {
+                int rankFrom = old.rank(lower);
+                int rankTo = index >= 0 ? old.rank(index) : old.size();
+                int added = index >= 0 && !old.contains(index) ? 1 : 0;
+                if (rankTo > rankFrom || added > 0) {
+                    from[count] = pos;
+                    to[count] = pos + added;
+                    removedFrom[count] = rankFrom;
+                    removedTo[count++] = rankTo;
+                }
+                if (index < 0) break;
+                lower = index + 1;
+                index = current.nextSetBit(lower);
+            }
+        }
+
+        @Override
+        public boolean next() {
+            return ++cursor < count;
+        }
+
+        @Override
+        public void reset() {
+            cursor = -1;
+        }
+
+        @Override
+        public int getFrom() {
+            checkState();
+            return from[cursor];
+        }
+
+        @Override
+        public int getTo() {
+            checkState();
+            return to[cursor];
+        }
+
+        @Override
+        public List<Integer> getRemoved() {
+            checkState();
+            return old.subList(removedFrom[cursor], removedTo[cursor]);
+        }
+
+        @Override
+        protected int[] getPermutation() {
+            checkState();
+            return new int[0];
+        }
+
+        private void checkState() {
+            if (cursor < 0 || cursor >= count) 
+                throw new IllegalStateException("Invalid Change state: next() must be called before inspecting the Change.");
         }
-        endChange();
+    }
+
+    /**
+     * Fires a single change replacing all positions of this, its removed
+     * are the indices of the given store. The change is fired directly 
+     * with a lazy IndicesSnapshot over the store as removed: going through
+     * the change builder would copy (and box) all of them, that's 
+     * size of source after set all. Does nothing if there are no listeners.
+     * <p>
+     * <strong>Note</strong>: must not be called inside 
+     * {@code beginChange()} / {@code endChange()} block.
+     *  
+     * @param old the store with the previously set indices, owned by 
+     *    the snapshot from now on, may be null if there are no listeners.
+     */
+    private void fireAllReplaced(IndicesStore old) {
+        if (!hasListeners()) return;
+        fireChange(new GenericAddRemoveChange<>(0, size(), 
+                new IndicesSnapshot(old), this));
     }
 
     /**
      * Adds the given indices. Does nothing empty, must not be null.
+     * <p>
+     * Implemented to sort a copy of the indices and fire a single added 
+     * per run of contiguous positions (was: one added per index).
+     * 
      * <p><strong>Note</strong>: needs to be called inside {@code beginChange()} 
      * / {@code endChange()} block.
      * @param indices positions in source list, must be valid.
@@ -162,16 +343,38 @@ public abstract class IndicesBase<T> extends ObservableListBase<Integer> {
      * @throws NullPointerException if indices are null.    
      */
     protected void doAddIndices(int... indices) {
-        for (int i : indices) {
+        int[] sorted = indices.clone();
+        Arrays.sort(sorted);
+        doAddSortedIndices(sorted);
+    }
+
+    /**
+     * Adds the given indices which must be sorted ascending. Fires one added
+     * per run of contiguous positions. Going up, each position is final
+     * because all following set bits are higher.
+     */
+    private void doAddSortedIndices(int[] sorted) {
+        int runFrom = -1;
+        int runTo = -1;
+        for (int i : sorted) {
             if (bitSet.get(i)) continue;
             bitSet.set(i);
-            int from = indexOf(i);
-            nextAdd(from, from + 1);
+            int pos = bitSet.rank(i);
+            if (pos != runTo) {
+                if (runFrom >= 0) nextAdd(runFrom, runTo);
+                runFrom = pos;
+            }
+            runTo = pos + 1;
         }
+        if (runFrom >= 0) nextAdd(runFrom, runTo);
     }
 
     /**
      * Clears the given indices. Does nothing empty, must not be null.
+     * <p>
+     * Implemented to sort a copy of the indices and fire a single removed 
+     * per run of contiguous positions (was: one removed per index).
+     * 
      * <p><strong>Note</strong>: needs to be called inside {@code beginChange()} 
      * / {@code endChange()} block.
      * @param indices positions in source list, must be valid.
@@ -182,52 +385,90 @@ public abstract class IndicesBase<T> extends ObservableListBase<Integer> {
      * @throws NullPointerException if indices are null.    
      */
     protected boolean doClearIndices(int... indices) {
-        boolean removed = false;
-        for (int i : indices) {
-            if (!bitSet.get(i))
-                continue;
-            int from = indexOf(i);
+        int[] sorted = indices.clone();
+        Arrays.sort(sorted);
+        return doClearSortedIndices(sorted, sorted.length);
+    }
+
+    /**
+     * Clears the first count of the given indices which must be sorted 
+     * ascending. Fires one removed per run of contiguous positions. Going
+     * up, the position of a bit is its position after clearing all lower 
+     * bits, that is in the coordinates of the next change. A run continues 
+     * if the position is unchanged. 
+     */
+    private boolean doClearSortedIndices(int[] sorted, int count) {
+        int runFrom = -1;
+        List<Integer> run = new ArrayList<>();
+        for (int n = 0; n < count; n++) {
+            int i = sorted[n];
+            if (!bitSet.get(i)) continue;
+            int pos = bitSet.rank(i);
             bitSet.clear(i);
-            nextRemove(from, i);
-            removed = true;
+            if (pos != runFrom) {
+                if (!run.isEmpty()) {
+                    nextRemove(runFrom, run);
+                    run = new ArrayList<>();
+                }
+                runFrom = pos;
+            }
+            run.add(i);
         }
-        return removed;
+        if (run.isEmpty()) return false;
+        nextRemove(runFrom, run);
+        return true;
     }
 
     /**
      * Clears all indices that are not contained in the given array.
      * <p><strong>Note</strong>: needs to be called inside {@code beginChange()} 
      * / {@code endChange()} block.
+     * <p>
+     * Implemented to walk the set bits and the sorted indices in parallel, 
+     * O(n + m log m) (was: boxing into a list and contains per set bit, O(n*m)).
      * 
-     * PENDING JW: this is ... rough implementation
      * @param indices the indices that should not be cleared.
      */
     protected void doClearAllIndicesExcept(int... indices) {
-        List<Integer> toSet = Arrays.stream(indices).boxed().collect(Collectors.toList());
-        
-        doClearIndices(stream()
-                .filter(p -> !toSet.contains(p))
-                .mapToInt(Integer::intValue)
-                .toArray()
-                );
+        int[] keep = indices.clone();
+        Arrays.sort(keep);
+        int[] toClear = new int[size()];
+        int count = 0;
+        int k = 0;
+        for (int i = bitSet.nextSetBit(0); i >= 0; i = bitSet.nextSetBit(i + 1)) {
+            while (k < keep.length && keep[k] < i) k++;
+            if (k < keep.length && keep[k] == i) continue;
+            toClear[count++] = i;
+        }
+        doClearSortedIndices(toClear, count);
     }
 
     /**
      * Clears all indices in the given range. The index is a coordinates in 
      * backing list.
+     * <p>
+     * Implemented to fire a single removed: the set bits in a range of
+     * the backing list are contiguous in this.
+     * 
      * <p><strong>Note</strong>: needs to be called inside {@code beginChange()} 
      * 
      * @param from
      * @param removedSize
+     * @return true if at least one of the indices had been cleared, false
+     *    otherwise (== none had been set)
      */
     protected boolean doClearIndicesInRange(int from, int removedSize) {
-        int[] removedIndices = new int[removedSize];
-        int index = from;
-        for (int i = 0; i < removedIndices.length; i++) {
-            removedIndices[i] = index++;
+        int to = from + removedSize;
+        int first = bitSet.nextSetBit(from);
+        if (first < 0 || first >= to) return false;
+        List<Integer> removed = new ArrayList<>();
+        for (int i = first; i >= 0 && i < to; i = bitSet.nextSetBit(i + 1)) {
+            removed.add(i);
         }
-        // do step one by delegating to clearIndices
-        return doClearIndices(removedIndices);
+        int pos = bitSet.rank(first);
+        bitSet.clear(from, to);
+        nextRemove(pos, removed);
+        return true;
     }
 
     /**
@@ -245,35 +486,31 @@ public abstract class IndicesBase<T> extends ObservableListBase<Integer> {
      * doShiftLeft(from, removedSize);
      * </code></pre>
      * 
+     * Implemented to shift the bits en bloc and fire a single replaced 
+     * for all affected positions (was: clear/set and nextSet per bit). 
+     * Does nothing if removedSize is 0 or there are no set bits above from.
+     * 
      * <p><strong>Note</strong>: needs to be called inside {@code beginChange()} 
      * 
-     * <p> PENDING JW: check 0 range!
-     *  
      * @param from
      * @param removedSize
+     * @throws IllegalArgumentException if removedSize < 0
+     * @throws IllegalStateException if any of the indices in the removed range
+     *    is still set
      */
     protected void doShiftLeft(int from, int removedSize) {
-        for (int i = bitSet.nextSetBit(from); i >= 0; i = bitSet
-                .nextSetBit(i + 1)) {
-            int pos = indexOf(i);
-            bitSet.clear(i);
-            int bitIndex = i - removedSize;
-            if (bitIndex < 0) {
-                // PENDING JW: really still needed? Should be removed in step 1?
-                // LOG.info("Really remove again? " + i + "/" + bitIndex);
-                // nextRemove(pos, i);
-                throw new IllegalStateException(
-                        "remove should have happened in first step at "
-                                + "bit: " + i + " value: " + pos);
-            } else {
-                bitSet.set(bitIndex);
-                if (pos != indexOf(i - removedSize)) {
-                    throw new IllegalStateException(
-                            "wrongy! - learn to use bitset");
-                }
-                nextSet(pos, i);
-            }
+        if (removedSize < 0) 
+            throw new IllegalArgumentException("removedSize must not be negative but was: " + removedSize);
+        int first = bitSet.nextSetBit(from);
+        if (removedSize == 0 || first < 0) return;
+        if (first < from + removedSize) {
+            throw new IllegalStateException(
+                    "remove should have happened in first step at "
+                            + "bit: " + first + " value: " + indexOf(first));
         }
+        int pos = bitSet.rank(from);
+        bitSet.shiftLeft(from, removedSize);
+        nextReplace(pos, size(), valuesView(bitSet, pos, removedSize));
     }
 
     /**
@@ -282,27 +519,78 @@ public abstract class IndicesBase<T> extends ObservableListBase<Integer> {
      * backing list. The operation is
      * equivalent to increasing the index values by addedSize.
      * 
+     * Implemented to shift the bits en bloc and fire a single replaced 
+     * for all affected positions (was: clear/set and nextSet per bit).
+     * Does nothing if addedSize is 0 or there are no set bits above from.
+     * 
      * <p><strong>Note</strong>: needs to be called inside {@code beginChange()} 
      *  
-     * <p> PENDING JW: check 0 range! 
-     * 
      * @param from index in backing list
      * @param addedSize the size to add to each index value of the bitSet
+     * @throws IllegalArgumentException if addedSize < 0
      */
     protected void doShiftRight(int from, int addedSize) {
-        // loop bitset from back to from
-        for (int i = bitSet.length(); (i = bitSet.previousSetBit(i-1)) >= from; ) {
-            // find position in this list
-            int pos = indexOf(i);
-            // clear old in bitset
-            bitSet.clear(i);
-            // set increased
-            bitSet.set(i + addedSize);
-            if (pos != indexOf(i + addedSize)) {
-                throw new RuntimeException ("wrongy! - learn to use bitset");
+        if (addedSize < 0) 
+            throw new IllegalArgumentException("addedSize must not be negative but was: " + addedSize);
+        if (addedSize == 0 || bitSet.nextSetBit(from) < 0) return;
+        int pos = bitSet.rank(from);
+        bitSet.shiftRight(from, addedSize);
+        nextReplace(pos, size(), valuesView(bitSet, pos, - addedSize));
+    }
+
+    /**
+     * Returns a view of the values of the store at and after the given
+     * position, each offset by delta. Used to report the old values after
+     * a shift without boxing them upfront. 
+     * <p>
+     * Note: the view is backed by the live store, it is valid until the 
+     * next modification of the store. That's okay for nextReplace, the 
+     * change builder copies the removed on receiving them.
+     */
+    private static List<Integer> valuesView(final IndicesStore store, 
+            final int fromPosition, final int delta) {
+        final int size = store.cardinality() - fromPosition;
+        return new AbstractList<Integer>() {
+
+            @Override
+            public Integer get(int index) {
+                if (index < 0 || index >= size) 
+                    throw new IndexOutOfBoundsException("index must be not negative "
+                            + "and less than size " + size + ", but was: " + index);
+                return store.select(fromPosition + index) + delta;
             }
-            nextSet(pos, i);
-        }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            /**
+             * Overridden to walk the set bits, bulk copies like
+             * new ArrayList(view) go through the iterator.
+             */
+            @Override
+            public Iterator<Integer> iterator() {
+                return new Iterator<Integer>() {
+                    int next = size > 0 ? store.select(fromPosition) : -1;
+                    int count;
+
+                    @Override
+                    public boolean hasNext() {
+                        return count < size;
+                    }
+
+                    @Override
+                    public Integer next() {
+                        if (count >= size) throw new NoSuchElementException();
+                        int value = next;
+                        count++;
+                        next = count < size ? store.nextSetBit(value + 1) : -1;
+                        return value + delta;
+                    }
+                };
+            }
+        };
     }
 
     /**
@@ -311,41 +599,30 @@ public abstract class IndicesBase<T> extends ObservableListBase<Integer> {
      */
     protected abstract int getSourceSize();
     
-//-------------------------- implementing List api
+//-------------------------- primitive api, doesn't box
     
     /**
-     * {@inheritDoc} <p>
+     * Returns the value at the given position, that is the index in the
+     * coordinates of the backing structure. This is the primitive 
+     * counterpart of get, which is a thin adapter around this.
+     * <p>
      * Access with off range index is programming error, better
      * throw.
      * <p>
+     * Implemented to select the listIndex-th set bit, O(log n) (was: O(n)
+     * scan, see RT-39776 - performance issue on access).
      * 
-     * Note: core (as of 8u60b11) still accepts indices outside our own size,
-     * shouldn't 
-     * <p>
-     * PENDING JW: optimize (?) for RT-39776 - performance issue on access.
-     * 
+     * @param listIndex position in this list
      * @return the value of this if index in valid range
-     *  @throws IndexOutOfBoundsException if index off range
+     * @throws IndexOutOfBoundsException if index off range
      */
-    @Override
-    public Integer get(int listIndex) {
+    public int getInt(int listIndex) {
         // PENDING JW: it is wrong to use size of source list as upper boundary
         // get() defined only on _our_ size!
         if (listIndex < 0 || listIndex >= size()) // return -1;
             throw new IndexOutOfBoundsException("index must be not negative "
                     + "and less than size " + size() + ", but was: " + listIndex);
-        // PENDING JW: following line is for experimenting with performance
-        // removed again: we access get during change/notification
-        // at that time access state is inherently invalid - don't!
-        if (PERFORM) {
-            return doGet(listIndex);
-        }    
-        int pos = 0;
-        int val = bitSet.nextSetBit(0);
-        while (pos < listIndex) {
-            pos++;
-            val = bitSet.nextSetBit(val + 1);
-        }
+        int val = bitSet.select(listIndex);
         if (val <0) {
             throw new IllegalStateException("wrongy! learn to use BitSet "
                     + "- must find set bit for valid index: " + listIndex);
@@ -354,87 +631,156 @@ public abstract class IndicesBase<T> extends ObservableListBase<Integer> {
     }
 
     /**
-     * Performance optimized (sic! or not) version of get. Not used.
+     * Returns the position of the given value in this list, or -1 if not
+     * contained. Uses the rank of the value, O(log n).
      * 
-     * @param listIndex must be in valid 
-     * @return
+     * @param value the index in coordinates of the backing structure
+     * @return the position of value in this or -1 if not contained
      */
-    private Integer doGet(int listIndex) {
-        validate();
-        if (listIndex == 0) {
-            lastGetListIndex = 0;
-            lastGetBitSetIndex = firstSetIndex;
-        } else if (listIndex == size() - 1) {
-            lastGetListIndex = listIndex;
-            lastGetBitSetIndex = lastSetIndex;
-        } else if (listIndex == lastGetListIndex) {
-            // nothing to do, querying the same index as last time
-        } else {
-            int pos = lastGetListIndex;
-            int value = lastGetBitSetIndex;
-            if (listIndex > lastGetListIndex) {
-                // move forward from last
-                while (pos < listIndex) {
-                    pos++;
-                    value = bitSet.nextSetBit(value + 1);
-                }
-            } else { // listIndex <lastGetBitSetIndex
-                // move backwards from last
-                while (pos > listIndex) {
-                    pos--;
-                    value = bitSet.previousSetBit(value - 1);
-                }
-            }
-            lastGetListIndex = pos;
-            lastGetBitSetIndex = value;
-            if (value <0) {
-                throw new IllegalStateException("wrongy! learn to use BitSet "
-                        + "- must find set bit for valid index: " + listIndex);
-            }
+    public int indexOf(int value) {
+        if (!contains(value)) return -1;
+        return bitSet.rank(value);
+    }
+    
+    /**
+     * Returns a boolean indicating whether the given value is contained.
+     * 
+     * @param value the index in coordinates of the backing structure
+     */
+    public boolean contains(int value) {
+        return value >= 0 && bitSet.get(value);
+    }
+    
+    /**
+     * Performs the action for each value of this, in ascending order.
+     * 
+     * @param action the action to perform, must not be null
+     */
+    public void forEachIndex(IntConsumer action) {
+        for (int i = bitSet.nextSetBit(0); i >= 0; i = bitSet.nextSetBit(i + 1)) {
+            action.accept(i);
         }
-        return lastGetBitSetIndex;
     }
-
     
     /**
+     * Performs the action for each value of this at the positions from 
+     * (inclusive) to (exclusive). Can be used to access the added values 
+     * of a change received from this, like
      * 
+     * <pre><code>
+     * indices.forEachIndex(c.getFrom(), c.getTo(), action);
+     * </code></pre>
+     * 
+     * @param from the first position
+     * @param to the last position, exclusive
+     * @param action the action to perform, must not be null
+     * @throws IndexOutOfBoundsException if the range is not valid
      */
-    private void validate() {
-        if (valid) return;
-        int size = size();
-        if (size == 0) {
-            firstSetIndex = -1;
-            lastSetIndex = -1;
-            lastGetListIndex = -1;
-            lastGetBitSetIndex = -1;
-        } else {
-            lastSetIndex = bitSet.length() - 1;
-            if (size == 1) {
-                firstSetIndex = lastSetIndex;
-            } else {
-                firstSetIndex = bitSet.nextSetBit(0);
-            }
-            lastGetListIndex = 0;
-            lastGetBitSetIndex = firstSetIndex;
+    public void forEachIndex(int from, int to, IntConsumer action) {
+        if (from < 0 || to > size() || from > to) 
+            throw new IndexOutOfBoundsException("range must be inside [0, " 
+                    + size() + "] but was: " + from + " / " + to);
+        if (from == to) return;
+        int value = bitSet.select(from);
+        for (int i = from; i < to; i++) {
+            action.accept(value);
+            value = bitSet.nextSetBit(value + 1);
         }
-        valid = true;
+    }
+    
+    /**
+     * Returns the values of this in an array, in ascending order.
+     * 
+     * @return the values of this, empty if this is empty
+     */
+    public int[] toIntArray() {
+        int[] result = new int[size()];
+        int pos = 0;
+        for (int i = bitSet.nextSetBit(0); i >= 0; i = bitSet.nextSetBit(i + 1)) {
+            result[pos++] = i;
+        }
+        return result;
+    }
+    
+    /**
+     * Returns a sequential stream of the values of this, in ascending order.
+     * The stream is late-binding, its values are read on terminal operation, 
+     * and must not be used across modifications of this.
+     * 
+     * @return a stream of the values of this
+     */
+    public IntStream intStream() {
+        return StreamSupport.intStream(
+                () -> Spliterators.spliterator(new PrimitiveIterator.OfInt() {
+                    int next = bitSet.nextSetBit(0);
+                    
+                    @Override
+                    public boolean hasNext() {
+                        return next >= 0;
+                    }
+                    
+                    @Override
+                    public int nextInt() {
+                        if (next < 0) throw new NoSuchElementException();
+                        int value = next;
+                        next = bitSet.nextSetBit(next + 1);
+                        return value;
+                    }
+                }, size(), Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED),
+                Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED 
+                        | Spliterator.DISTINCT | Spliterator.SORTED, 
+                false);
+    }
+    
+//-------------------------- implementing List api
+    
+    /**
+     * {@inheritDoc} <p>
+     * Implemented to delegate to getInt.
+     * 
+     * @return the value of this if index in valid range
+     * @throws IndexOutOfBoundsException if index off range
+     * @see #getInt(int)
+     */
+    @Override
+    public Integer get(int listIndex) {
+        return getInt(listIndex);
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     * Overridden to use the rank of the value, O(log n). 
+     */
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Number)) return -1;
+        return indexOf(((Number) o).intValue());
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     * Overridden to delegate to indexOf, values are unique.
+     */
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
     }
 
     @Override 
     public boolean contains(Object o) {
         if (o instanceof Number) {
             Number n = (Number) o;
-            int index = n.intValue();
-
-            return index >= 0 && index < bitSet.length() &&
-                    bitSet.get(index);
+            return contains(n.intValue());
         }
 
         return false;
     }
 
-    
-    
+    /**
+     * {@inheritDoc} <p>
+     * Implemented to return the cardinality of the bitSet, which is 
+     * kept up-to-date on modification.
+     */
     @Override
     public int size() {
         return bitSet.cardinality();
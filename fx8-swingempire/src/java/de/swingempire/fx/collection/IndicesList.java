@@ -4,10 +4,7 @@
  */
 package de.swingempire.fx.collection;
 
-import java.util.ArrayList;
-import java.util.BitSet;
-import java.util.Collections;
-import java.util.List;
+import java.util.Objects;
 import java.util.logging.Logger;
 
 import javafx.beans.property.ListPropertyBase;
@@ -70,13 +67,21 @@ public class IndicesList<T> extends IndicesBase<T> {
      * change from the backing structure after this has updated itself.
      * Wheezy ... need to do better
      */
-    protected List<Integer> oldIndices;
+    protected IndicesSnapshot oldIndices = new IndicesSnapshot();
 
     /**
      * @param source
      */
     public IndicesList(ObservableList<T> source) {
-        bitSet = new BitSet();
+        this(source, new RankedBitSet());
+    }
+
+    /**
+     * @param source
+     * @param store the storage of the indices, must be empty
+     */
+    public IndicesList(ObservableList<T> source, IndicesStore store) {
+        bitSet = Objects.requireNonNull(store, "store must not be null");
         this.source = source;
         source.addListener(new WeakListChangeListener<>(getListener()));
     }
@@ -107,10 +112,7 @@ public class IndicesList<T> extends IndicesBase<T> {
     protected void sourceChanged(Change<? extends T> c) {
         beginChange();
         // doooh .... need old state for the sake of IndexedItems
-        oldIndices = new ArrayList<>();
-        for (int i = 0; i < size(); i++) {
-            oldIndices.add(get(i));
-        }
+        oldIndices.update(bitSet);
         while (c.next()) {
             if (c.wasPermutated()) {
                 permutated(c);
@@ -161,7 +163,7 @@ public class IndicesList<T> extends IndicesBase<T> {
         doClearIndicesInRange(c.getFrom(), c.getRemovedSize());
         int diff = c.getAddedSize() - c.getRemovedSize();
         if (diff < 0) {
-            doShiftLeft(c.getFrom(), diff);
+            doShiftLeft(c.getFrom(), -diff);
         } else {
             doShiftRight(c.getFrom(), diff);
         }
@@ -253,20 +255,16 @@ public class IndicesList<T> extends IndicesBase<T> {
         if (bitSet.nextSetBit(c.getFrom()) < 0) return;
         int from = c.getFrom();
         int to = c.getTo();
-        BitSet copy = (BitSet) bitSet.clone();
-        // argghh .. second parameter is the _size_
-        doClearIndicesInRange(from, to - from);
-        int addSize = 0;
-        for (int i = from; i < to; i++) {
-            if (copy.get(i)) addSize++;
-        }
-        int[] permutated = new int[addSize];
+        // collect the set indices in the permutated range only 
+        // (was: clone all and loop the complete range)
+        int[] permutated = new int[bitSet.rank(to) - bitSet.rank(from)];
         int current = 0;
-        for (int oldIndex = from; oldIndex < to; oldIndex++) {
-            if (copy.get(oldIndex)) {
-                permutated[current++] = c.getPermutation(oldIndex);
-            }
+        for (int oldIndex = bitSet.nextSetBit(from); current < permutated.length; 
+                oldIndex = bitSet.nextSetBit(oldIndex + 1)) {
+            permutated[current++] = c.getPermutation(oldIndex);
         }
+        // argghh .. second parameter is the _size_
+        doClearIndicesInRange(from, to - from);
         doAddIndices(permutated);
     }
 
@@ -288,7 +286,7 @@ public class IndicesList<T> extends IndicesBase<T> {
      *    
      */
     public int getSourceIndex(int index) {
-        return get(index);
+        return getInt(index);
     }
     
     @Override
@@ -331,8 +329,8 @@ public class IndicesList<T> extends IndicesBase<T> {
      * 
      * @return
      */
-    public List<Integer> getOldIndices() {
-        return Collections.unmodifiableList(oldIndices);
+    public IndicesSnapshot getOldIndices() {
+        return oldIndices;
     }
 
 
@@ -0,0 +1,152 @@
+/*
+ * Created on 17.10.2026
+ *
+ */
+package de.swingempire.fx.collection;
+
+import java.util.AbstractList;
+import java.util.Objects;
+
+/**
+ * Unmodifiable snapshot of the indices of an IndicesBase, used to keep the
+ * state before handling a change of the backing data. <p>
+ *
+ * Backed by a copy of the bitSet (was: ArrayList of boxed values,
+ * filled by get(i), quadratic). Taking a snapshot re-uses the storage of the
+ * previous one if of the same type, value lookup is by rank/select. The List api is
+ * a thin adapter over the primitive methods.
+ * <p>
+ *
+ * Note: a snapshot is updated in-place on taking the next, clients
+ * must not keep a reference beyond handling a single change.
+ *
+ * @see IndicesList
+ * @see TreeIndicesList
+ * @see IndexMappedList#findIndex(int, int)
+ */
+public class IndicesSnapshot extends AbstractList<Integer> {
+
+    private IndicesStore bitSet;
+
+    public IndicesSnapshot() {
+        this(new RankedBitSet());
+    }
+
+    /**
+     * Creates a snapshot backed by the given store, which is owned by
+     * this from now on: it must not be modified by the caller. Used by 
+     * IndicesBase to report the removed of en-bloc changes without 
+     * boxing them.
+     *
+     * @param indices the store to take over, must not be null
+     */
+    IndicesSnapshot(IndicesStore indices) {
+        this.bitSet = Objects.requireNonNull(indices, "indices must not be null");
+    }
+
+    /**
+     * Updates this to the state of the given bitSet.
+     *
+     * @param indices the bitSet to copy
+     */
+    protected void update(IndicesStore indices) {
+        if (bitSet.getClass() != indices.getClass()) {
+            bitSet = indices.copy();
+        } else {
+            bitSet.copyFrom(indices);
+        }
+    }
+
+    /**
+     * Returns the value at the given position, that is the index in
+     * backing coordinates.
+     *
+     * @throws IndexOutOfBoundsException if off range
+     */
+    public int getInt(int index) {
+        if (index < 0 || index >= size())
+            throw new IndexOutOfBoundsException("index must be not negative "
+                    + "and less than size " + size() + ", but was: " + index);
+        return bitSet.select(index);
+    }
+
+    /**
+     * Returns the position of the given value or -1 if not contained.
+     */
+    public int indexOf(int value) {
+        if (!contains(value)) return -1;
+        return bitSet.rank(value);
+    }
+
+    public boolean contains(int value) {
+        return value >= 0 && bitSet.get(value);
+    }
+
+    /**
+     * Returns the position of the first value in the range from (inclusive) to
+     * (exclusive), or -1 if none of the values in the range is contained.
+     *
+     * @param from start of range in backing coordinates
+     * @param to end of range in backing coordinates
+     */
+    public int indexOfFirstInRange(int from, int to) {
+        int first = bitSet.nextSetBit(Math.max(0, from));
+        if (first < 0 || first >= to) return -1;
+        return bitSet.rank(first);
+    }
+
+    /**
+     * Returns the number of values less than the given value, that is
+     * the position of the first value at or above.
+     */
+    public int rank(int value) {
+        return bitSet.rank(Math.max(0, value));
+    }
+
+    /**
+     * Returns the values in the range from (inclusive) to (exclusive) in
+     * backing coordinates, in ascending order.
+     *
+     * @param from start of range in backing coordinates
+     * @param to end of range in backing coordinates
+     */
+    public int[] toIntArray(int from, int to) {
+        int first = bitSet.nextSetBit(Math.max(0, from));
+        if (first < 0 || first >= to) return new int[0];
+        int[] result = new int[rank(to) - bitSet.rank(first)];
+        int pos = 0;
+        for (int i = first; pos < result.length; i = bitSet.nextSetBit(i + 1)) {
+            result[pos++] = i;
+        }
+        return result;
+    }
+
+//-------------------------- implementing List api
+
+    @Override
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Number)) return -1;
+        return indexOf(((Number) o).intValue());
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Number && contains(((Number) o).intValue());
+    }
+
+    @Override
+    public int size() {
+        return bitSet.cardinality();
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Created on 18.10.2026
+ *
+ */
+package de.swingempire.fx.collection;
+
+/**
+ * Storage of a set of not-negative int indices, used for the selection state
+ * of IndicesBase and MultipleSelectionModelBase. <p>
+ *
+ * The methods with the same name as in java.util.BitSet have the same
+ * semantics. Additionally, implementations support rank/select (the mapping
+ * between an index and its position in the sequence of set indices) and
+ * bulk shifts (the update on inserting/removing in the backing structure).
+ * <p>
+ *
+ * Implementations differ in memory/access characteristics:
+ * <li> RankedBitSet - memory proportional to the highest set index, fast
+ *      for random scattered indices
+ * <li> RunLengthBitSet - memory proportional to the number of runs of
+ *      contiguous indices, for patterns like "select all except a few" on
+ *      huge models
+ * <li> ComplementIndicesStore - all indices below a limit except those of
+ *      another store, allows to set all/invert in constant time
+ *
+ * @see RankedBitSet
+ * @see RunLengthBitSet
+ * @see ComplementIndicesStore
+ */
+public interface IndicesStore {
+
+    /**
+     * @return true if the given index is set
+     * @throws IndexOutOfBoundsException if index is negative
+     */
+    boolean get(int index);
+
+    /**
+     * Sets the given index.
+     * @throws IndexOutOfBoundsException if index is negative
+     */
+    void set(int index);
+
+    /**
+     * Sets the indices from fromIndex (inclusive) to toIndex (exclusive).
+     * @throws IndexOutOfBoundsException if fromIndex is negative, or toIndex
+     *    is negative or fromIndex > toIndex
+     */
+    void set(int fromIndex, int toIndex);
+
+    default void set(int index, boolean value) {
+        if (value) {
+            set(index);
+        } else {
+            clear(index);
+        }
+    }
+
+    default void set(int fromIndex, int toIndex, boolean value) {
+        if (value) {
+            set(fromIndex, toIndex);
+        } else {
+            clear(fromIndex, toIndex);
+        }
+    }
+
+    /**
+     * Clears the given index.
+     * @throws IndexOutOfBoundsException if index is negative
+     */
+    void clear(int index);
+
+    /**
+     * Clears the indices from fromIndex (inclusive) to toIndex (exclusive).
+     * @throws IndexOutOfBoundsException if fromIndex is negative, or toIndex
+     *    is negative or fromIndex > toIndex
+     */
+    void clear(int fromIndex, int toIndex);
+
+    /**
+     * Clears all indices.
+     */
+    void clear();
+
+    /**
+     * Inserts distance clear indices at fromIndex: all indices at or above
+     * fromIndex are moved up by distance, indices below are unchanged.
+     *
+     * @throws IndexOutOfBoundsException if fromIndex or distance is negative
+     */
+    void shiftRight(int fromIndex, int distance);
+
+    /**
+     * Removes the range [fromIndex, fromIndex + distance): all indices at or
+     * above fromIndex + distance are moved down by distance, indices below
+     * fromIndex are unchanged.
+     *
+     * @throws IndexOutOfBoundsException if fromIndex or distance is negative
+     */
+    void shiftLeft(int fromIndex, int distance);
+
+    /**
+     * @return the first set index at or after fromIndex, or -1 if none
+     * @throws IndexOutOfBoundsException if fromIndex is negative
+     */
+    int nextSetBit(int fromIndex);
+
+    /**
+     * @return the first index that is not set at or after fromIndex
+     * @throws IndexOutOfBoundsException if fromIndex is negative
+     */
+    int nextClearBit(int fromIndex);
+
+    /**
+     * @return the nearest set index at or before fromIndex, or -1 if none
+     *    or fromIndex == -1
+     * @throws IndexOutOfBoundsException if fromIndex is less than -1
+     */
+    int previousSetBit(int fromIndex);
+
+    /**
+     * @return the nearest index that is not set at or before fromIndex, or
+     *    -1 if none or fromIndex == -1
+     * @throws IndexOutOfBoundsException if fromIndex is less than -1
+     */
+    int previousClearBit(int fromIndex);
+
+    /**
+     * @return the highest set index plus one.
+     */
+    int length();
+
+    /**
+     * @return the number of set indices.
+     */
+    int cardinality();
+
+    default boolean isEmpty() {
+        return cardinality() == 0;
+    }
+
+    /**
+     * Returns the number of set indices strictly below the given index. If
+     * the index is set, this is its position in the sequence of set indices.
+     *
+     * @throws IndexOutOfBoundsException if index is negative
+     */
+    int rank(int index);
+
+    /**
+     * Returns the n-th set index (counting from 0) or -1 if there are less
+     * than n + 1 set indices.
+     */
+    int select(int n);
+
+    /**
+     * Sets the indices of this to those of the given store, re-using
+     * internal storage if possible.
+     *
+     * @param other the store to copy from, must not be null
+     */
+    void copyFrom(IndicesStore other);
+
+    /**
+     * Returns an independent copy of this, of the same type.
+     */
+    IndicesStore copy();
+
+    /**
+     * Returns a new empty store of the same type as this. Used to replace
+     * a store en bloc, keeping the old as a snapshot.
+     */
+    IndicesStore emptyCopy();
+
+    /**
+     * Copies the given store into the target by runs of contiguous indices,
+     * the fallback of copyFrom for stores of different type.
+     */
+    static void copyRuns(IndicesStore source, IndicesStore target) {
+        target.clear();
+        for (int from = source.nextSetBit(0); from >= 0; ) {
+            int to = source.nextClearBit(from);
+            target.set(from, to);
+            from = source.nextSetBit(to);
+        }
+    }
+}
@@ -0,0 +1,668 @@
+/*
+ * Created on 17.10.2026
+ *
+ */
+package de.swingempire.fx.collection;
+
+import java.util.Arrays;
+
+/**
+ * A bit set with support for rank/select queries. <p>
+ *
+ * The bits are stored in words of 64 bits, same as in java.util.BitSet.
+ * Additionally, the popcount of blocks of words is summarized in a
+ * Fenwick (aka: binary indexed) tree, such that
+ *
+ * <li> rank(bitIndex) - the number of set bits below bitIndex
+ * <li> select(n) - the bitIndex of the n-th set bit
+ *
+ * are O(log n) instead of the O(n) scan with nextSetBit. For IndicesBase,
+ * rank is the indexOf of a value and select is the get of a list index.
+ * <p>
+ *
+ * The summary is updated incrementally on setting/clearing single bits. Bulk
+ * modifications (ranges, clear all) mark it as dirty, it is rebuilt lazily on
+ * next rank/select access. The cardinality is always kept up-to-date.
+ * <p>
+ *
+ * Note: this is-not-a java.util.BitSet, the latter hides its words. The
+ * methods with the same name have the same semantics, though.
+ *
+ * @see IndicesBase
+ * @see IndicesStore
+ * @see RunLengthBitSet
+ */
+public class RankedBitSet implements IndicesStore, Cloneable {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
+    private static final long WORD_MASK = 0xffffffffffffffffL;
+
+    /** number of words summarized in one block of the rank tree, 512 bits */
+    private static final int ADDRESS_WORDS_PER_BLOCK = 3;
+    private static final int WORDS_PER_BLOCK = 1 << ADDRESS_WORDS_PER_BLOCK;
+
+    private long[] words;
+
+    /**
+     * The number of words in the logical size of this, all words above
+     * are zero.
+     */
+    private int wordsInUse;
+
+    private int cardinality;
+
+    /**
+     * Fenwick tree over the cardinality of the blocks, 1-based.
+     * Valid only if !summaryDirty.
+     */
+    private int[] blockTree;
+    private int blockCount;
+    private boolean summaryDirty = true;
+
+    public RankedBitSet() {
+        this(BITS_PER_WORD);
+    }
+
+    /**
+     * @param nbits the initial size of this bit set
+     * @throws NegativeArraySizeException if nbits is negative
+     */
+    public RankedBitSet(int nbits) {
+        if (nbits < 0)
+            throw new NegativeArraySizeException("nbits < 0: " + nbits);
+        words = new long[Math.max(1, wordIndex(nbits - 1) + 1)];
+    }
+
+//---------------------- rank/select
+
+    /**
+     * Returns the number of set bits strictly below the given bitIndex. If the
+     * bit at bitIndex is set, this is its position in the sequence of set bits.
+     *
+     * @param bitIndex the bit index, must not be negative
+     * @return the number of set bits in the range [0, bitIndex)
+     * @throws IndexOutOfBoundsException if bitIndex is negative
+     */
+    public int rank(int bitIndex) {
+        checkIndex(bitIndex);
+        if (bitIndex >= length()) return cardinality;
+        int wordIndex = wordIndex(bitIndex);
+        int block = wordIndex >> ADDRESS_WORDS_PER_BLOCK;
+        int rank = prefixCount(block);
+        for (int w = block << ADDRESS_WORDS_PER_BLOCK; w < wordIndex; w++) {
+            rank += Long.bitCount(words[w]);
+        }
+        // note: shift distance is taken modulo 64, a 0 results in an empty mask
+        rank += Long.bitCount(words[wordIndex] & ((1L << bitIndex) - 1));
+        return rank;
+    }
+
+    /**
+     * Returns the bitIndex of the n-th set bit (counting from 0) or -1 if
+     * there are less than n + 1 set bits.
+     *
+     * @param n the position in the sequence of set bits
+     * @return the bit index of the n-th set bit or -1 if not available.
+     */
+    public int select(int n) {
+        if (n < 0 || n >= cardinality) return -1;
+        validateSummary();
+        // descend the fenwick tree to find the block containing the n-th bit
+        int block = 0;
+        int remaining = n;
+        for (int step = Integer.highestOneBit(blockCount); step > 0; step >>= 1) {
+            int next = block + step;
+            if (next <= blockCount && blockTree[next] <= remaining) {
+                block = next;
+                remaining -= blockTree[next];
+            }
+        }
+        for (int w = block << ADDRESS_WORDS_PER_BLOCK; w < wordsInUse; w++) {
+            int count = Long.bitCount(words[w]);
+            if (remaining < count) {
+                return w * BITS_PER_WORD + selectInWord(words[w], remaining);
+            }
+            remaining -= count;
+        }
+        throw new IllegalStateException("rank summary out of synch, no bit found for " + n);
+    }
+
+    /**
+     * Returns the position of the n-th set bit in the given word.
+     */
+    private static int selectInWord(long word, int n) {
+        for (int i = 0; i < n; i++) {
+            // clear lowest set bit
+            word &= word - 1;
+        }
+        return Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Returns the number of set bits in the blocks below the given block.
+     */
+    private int prefixCount(int block) {
+        validateSummary();
+        int sum = 0;
+        for (int i = Math.min(block, blockCount); i > 0; i -= i & -i) {
+            sum += blockTree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Updates the summary of the block containing the given word by delta.
+     * Does nothing if the summary is dirty anyway.
+     */
+    private void updateSummary(int wordIndex, int delta) {
+        if (summaryDirty) return;
+        int block = wordIndex >> ADDRESS_WORDS_PER_BLOCK;
+        if (block >= blockCount) {
+            summaryDirty = true;
+            return;
+        }
+        for (int i = block + 1; i <= blockCount; i += i & -i) {
+            blockTree[i] += delta;
+        }
+    }
+
+    /**
+     * Rebuilds the summary if dirty, in O(number of blocks).
+     */
+    private void validateSummary() {
+        if (!summaryDirty) return;
+        blockCount = (words.length + WORDS_PER_BLOCK - 1) >> ADDRESS_WORDS_PER_BLOCK;
+        if (blockTree == null || blockTree.length < blockCount + 1) {
+            blockTree = new int[blockCount + 1];
+        } else {
+            Arrays.fill(blockTree, 0);
+        }
+        for (int w = 0; w < wordsInUse; w++) {
+            blockTree[(w >> ADDRESS_WORDS_PER_BLOCK) + 1] += Long.bitCount(words[w]);
+        }
+        for (int i = 1; i <= blockCount; i++) {
+            int parent = i + (i & -i);
+            if (parent <= blockCount) {
+                blockTree[parent] += blockTree[i];
+            }
+        }
+        summaryDirty = false;
+    }
+
+//---------------------- bit access, same semantics as java.util.BitSet
+
+    /**
+     * @return the value of the bit at bitIndex
+     * @throws IndexOutOfBoundsException if bitIndex is negative
+     */
+    public boolean get(int bitIndex) {
+        checkIndex(bitIndex);
+        int wordIndex = wordIndex(bitIndex);
+        return (wordIndex < wordsInUse)
+            && ((words[wordIndex] & (1L << bitIndex)) != 0);
+    }
+
+    /**
+     * Sets the bit at bitIndex to true.
+     * @throws IndexOutOfBoundsException if bitIndex is negative
+     */
+    public void set(int bitIndex) {
+        checkIndex(bitIndex);
+        int wordIndex = wordIndex(bitIndex);
+        long mask = 1L << bitIndex;
+        if (wordIndex < wordsInUse && (words[wordIndex] & mask) != 0) return;
+        expandTo(wordIndex);
+        words[wordIndex] |= mask;
+        cardinality++;
+        updateSummary(wordIndex, 1);
+    }
+
+    /**
+     * Sets the bit at bitIndex to the given value.
+     * @throws IndexOutOfBoundsException if bitIndex is negative
+     */
+    public void set(int bitIndex, boolean value) {
+        if (value) {
+            set(bitIndex);
+        } else {
+            clear(bitIndex);
+        }
+    }
+
+    /**
+     * Sets the bits from fromIndex (inclusive) to toIndex (exclusive) to true.
+     * @throws IndexOutOfBoundsException if fromIndex is negative, or toIndex
+     *    is negative or fromIndex > toIndex
+     */
+    public void set(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) return;
+        int startWordIndex = wordIndex(fromIndex);
+        int endWordIndex   = wordIndex(toIndex - 1);
+        expandTo(endWordIndex);
+        long firstWordMask = WORD_MASK << fromIndex;
+        long lastWordMask  = WORD_MASK >>> -toIndex;
+        for (int w = startWordIndex; w <= endWordIndex; w++) {
+            long mask = WORD_MASK;
+            if (w == startWordIndex) mask &= firstWordMask;
+            if (w == endWordIndex) mask &= lastWordMask;
+            long old = words[w];
+            words[w] |= mask;
+            cardinality += Long.bitCount(words[w]) - Long.bitCount(old);
+        }
+        summaryDirty = true;
+    }
+
+    /**
+     * Sets the bits from fromIndex (inclusive) to toIndex (exclusive) to
+     * the given value.
+     * @throws IndexOutOfBoundsException if fromIndex is negative, or toIndex
+     *    is negative or fromIndex > toIndex
+     */
+    public void set(int fromIndex, int toIndex, boolean value) {
+        if (value) {
+            set(fromIndex, toIndex);
+        } else {
+            clear(fromIndex, toIndex);
+        }
+    }
+
+    /**
+     * Sets the bit at bitIndex to false.
+     * @throws IndexOutOfBoundsException if bitIndex is negative
+     */
+    public void clear(int bitIndex) {
+        checkIndex(bitIndex);
+        int wordIndex = wordIndex(bitIndex);
+        if (wordIndex >= wordsInUse) return;
+        long mask = 1L << bitIndex;
+        if ((words[wordIndex] & mask) == 0) return;
+        words[wordIndex] &= ~mask;
+        cardinality--;
+        updateSummary(wordIndex, -1);
+        recalculateWordsInUse();
+    }
+
+    /**
+     * Sets the bits from fromIndex (inclusive) to toIndex (exclusive) to false.
+     * @throws IndexOutOfBoundsException if fromIndex is negative, or toIndex
+     *    is negative or fromIndex > toIndex
+     */
+    public void clear(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) return;
+        int startWordIndex = wordIndex(fromIndex);
+        if (startWordIndex >= wordsInUse) return;
+        int endWordIndex = wordIndex(toIndex - 1);
+        if (endWordIndex >= wordsInUse) {
+            toIndex = length();
+            endWordIndex = wordsInUse - 1;
+        }
+        long firstWordMask = WORD_MASK << fromIndex;
+        long lastWordMask  = WORD_MASK >>> -toIndex;
+        for (int w = startWordIndex; w <= endWordIndex; w++) {
+            long mask = WORD_MASK;
+            if (w == startWordIndex) mask &= firstWordMask;
+            if (w == endWordIndex) mask &= lastWordMask;
+            long old = words[w];
+            words[w] &= ~mask;
+            cardinality -= Long.bitCount(old) - Long.bitCount(words[w]);
+        }
+        summaryDirty = true;
+        recalculateWordsInUse();
+    }
+
+    /**
+     * Sets all bits to false.
+     */
+    public void clear() {
+        while (wordsInUse > 0) {
+            words[--wordsInUse] = 0;
+        }
+        cardinality = 0;
+        summaryDirty = true;
+    }
+
+//---------------------- bulk shifts
+
+    /**
+     * Inserts distance clear bits at fromIndex: all bits at or above fromIndex
+     * are moved up by distance, bits below fromIndex are unchanged. <p>
+     *
+     * Implemented to move whole words by System.arraycopy and carry the
+     * remaining bit offset across word boundaries, O(number of words above fromIndex).
+     *
+     * @param fromIndex the first bit to move
+     * @param distance the number of bits to move, must not be negative
+     * @throws IndexOutOfBoundsException if fromIndex or distance is negative
+     */
+    public void shiftRight(int fromIndex, int distance) {
+        checkIndex(fromIndex);
+        checkIndex(distance);
+        if (distance == 0 || fromIndex >= length()) return;
+        int fromWord = wordIndex(fromIndex);
+        int wordShift = wordIndex(distance);
+        int bitShift = distance % BITS_PER_WORD;
+        long lowMask = (1L << fromIndex) - 1;
+        long keep = words[fromWord] & lowMask;
+        words[fromWord] &= ~lowMask;
+        int oldWordsInUse = wordsInUse;
+        // one more word for the carry
+        expandTo(oldWordsInUse + wordShift);
+        if (wordShift > 0) {
+            System.arraycopy(words, fromWord, words, fromWord + wordShift, oldWordsInUse - fromWord);
+            Arrays.fill(words, fromWord, fromWord + wordShift, 0);
+        }
+        if (bitShift > 0) {
+            int lowest = fromWord + wordShift;
+            for (int w = wordsInUse - 1; w >= lowest; w--) {
+                long carry = w > lowest ? words[w - 1] >>> (BITS_PER_WORD - bitShift) : 0;
+                words[w] = (words[w] << bitShift) | carry;
+            }
+        }
+        words[fromWord] |= keep;
+        summaryDirty = true;
+        recalculateWordsInUse();
+    }
+
+    /**
+     * Removes the bits in the range [fromIndex, fromIndex + distance): all
+     * bits at or above fromIndex + distance are moved down by distance, bits
+     * below fromIndex are unchanged. <p>
+     *
+     * Implemented to move whole words by System.arraycopy and carry the
+     * remaining bit offset across word boundaries, O(number of words above fromIndex).
+     *
+     * @param fromIndex the first bit to remove
+     * @param distance the number of bits to remove, must not be negative
+     * @throws IndexOutOfBoundsException if fromIndex or distance is negative
+     */
+    public void shiftLeft(int fromIndex, int distance) {
+        checkIndex(fromIndex);
+        checkIndex(distance);
+        int length = length();
+        if (distance == 0 || fromIndex >= length) return;
+        if ((long) fromIndex + distance >= length) {
+            clear(fromIndex, length);
+            return;
+        }
+        cardinality -= countBits(fromIndex, fromIndex + distance);
+        int fromWord = wordIndex(fromIndex);
+        int wordShift = wordIndex(distance);
+        int bitShift = distance % BITS_PER_WORD;
+        long lowMask = (1L << fromIndex) - 1;
+        long keep = words[fromWord] & lowMask;
+        int oldWordsInUse = wordsInUse;
+        if (wordShift > 0) {
+            System.arraycopy(words, fromWord + wordShift, words, fromWord,
+                    oldWordsInUse - fromWord - wordShift);
+            Arrays.fill(words, oldWordsInUse - wordShift, oldWordsInUse, 0);
+        }
+        if (bitShift > 0) {
+            int highest = oldWordsInUse - wordShift - 1;
+            for (int w = fromWord; w <= highest; w++) {
+                long carry = w < highest ? words[w + 1] << (BITS_PER_WORD - bitShift) : 0;
+                words[w] = (words[w] >>> bitShift) | carry;
+            }
+        }
+        words[fromWord] = (words[fromWord] & ~lowMask) | keep;
+        summaryDirty = true;
+        recalculateWordsInUse();
+    }
+
+    /**
+     * Returns the number of set bits in the range [fromIndex, toIndex),
+     * counting the words.
+     */
+    private int countBits(int fromIndex, int toIndex) {
+        int startWordIndex = wordIndex(fromIndex);
+        if (startWordIndex >= wordsInUse || fromIndex >= toIndex) return 0;
+        int endWordIndex = Math.min(wordIndex(toIndex - 1), wordsInUse - 1);
+        long firstWordMask = WORD_MASK << fromIndex;
+        long lastWordMask = endWordIndex == wordIndex(toIndex - 1) ? WORD_MASK >>> -toIndex : WORD_MASK;
+        int count = 0;
+        for (int w = startWordIndex; w <= endWordIndex; w++) {
+            long mask = WORD_MASK;
+            if (w == startWordIndex) mask &= firstWordMask;
+            if (w == endWordIndex) mask &= lastWordMask;
+            count += Long.bitCount(words[w] & mask);
+        }
+        return count;
+    }
+
+    /**
+     * @return the index of the first bit that is set at or after fromIndex,
+     *    or -1 if there is no such bit
+     * @throws IndexOutOfBoundsException if fromIndex is negative
+     */
+    public int nextSetBit(int fromIndex) {
+        checkIndex(fromIndex);
+        int u = wordIndex(fromIndex);
+        if (u >= wordsInUse) return -1;
+        long word = words[u] & (WORD_MASK << fromIndex);
+        while (true) {
+            if (word != 0)
+                return (u * BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+            if (++u == wordsInUse)
+                return -1;
+            word = words[u];
+        }
+    }
+
+    /**
+     * @return the index of the first bit that is not set at or after fromIndex
+     * @throws IndexOutOfBoundsException if fromIndex is negative
+     */
+    public int nextClearBit(int fromIndex) {
+        checkIndex(fromIndex);
+        int u = wordIndex(fromIndex);
+        if (u >= wordsInUse) return fromIndex;
+        long word = ~words[u] & (WORD_MASK << fromIndex);
+        while (true) {
+            if (word != 0)
+                return (u * BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+            if (++u == wordsInUse)
+                return wordsInUse * BITS_PER_WORD;
+            word = ~words[u];
+        }
+    }
+
+    /**
+     * @return the index of the nearest bit that is set at or before fromIndex,
+     *    or -1 if there is no such bit or fromIndex == -1
+     * @throws IndexOutOfBoundsException if fromIndex is less than -1
+     */
+    public int previousSetBit(int fromIndex) {
+        if (fromIndex < 0) {
+            if (fromIndex == -1) return -1;
+            throw new IndexOutOfBoundsException("fromIndex < -1: " + fromIndex);
+        }
+        int u = wordIndex(fromIndex);
+        if (u >= wordsInUse) return length() - 1;
+        long word = words[u] & (WORD_MASK >>> -(fromIndex + 1));
+        while (true) {
+            if (word != 0)
+                return (u + 1) * BITS_PER_WORD - 1 - Long.numberOfLeadingZeros(word);
+            if (u-- == 0)
+                return -1;
+            word = words[u];
+        }
+    }
+
+    /**
+     * @return the index of the nearest bit that is not set at or before
+     *    fromIndex, or -1 if there is no such bit or fromIndex == -1
+     * @throws IndexOutOfBoundsException if fromIndex is less than -1
+     */
+    public int previousClearBit(int fromIndex) {
+        if (fromIndex < 0) {
+            if (fromIndex == -1) return -1;
+            throw new IndexOutOfBoundsException("fromIndex < -1: " + fromIndex);
+        }
+        int u = wordIndex(fromIndex);
+        if (u >= wordsInUse) return fromIndex;
+        long word = ~words[u] & (WORD_MASK >>> -(fromIndex + 1));
+        while (true) {
+            if (word != 0)
+                return (u + 1) * BITS_PER_WORD - 1 - Long.numberOfLeadingZeros(word);
+            if (u-- == 0)
+                return -1;
+            word = ~words[u];
+        }
+    }
+
+    /**
+     * @return the index of the highest set bit plus one.
+     */
+    public int length() {
+        if (wordsInUse == 0) return 0;
+        return BITS_PER_WORD * (wordsInUse - 1) +
+            (BITS_PER_WORD - Long.numberOfLeadingZeros(words[wordsInUse - 1]));
+    }
+
+    /**
+     * @return the number of set bits, O(1).
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return wordsInUse == 0;
+    }
+
+//------------------ internals
+
+    private static int wordIndex(int bitIndex) {
+        return bitIndex >> ADDRESS_BITS_PER_WORD;
+    }
+
+    private static void checkIndex(int bitIndex) {
+        if (bitIndex < 0)
+            throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
+    }
+
+    private static void checkRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0)
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        if (toIndex < 0)
+            throw new IndexOutOfBoundsException("toIndex < 0: " + toIndex);
+        if (fromIndex > toIndex)
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex +
+                    " > toIndex: " + toIndex);
+    }
+
+    /**
+     * Ensures that the words can hold the given wordIndex and updates wordsInUse.
+     * Marks the summary as dirty if the words had to grow.
+     */
+    private void expandTo(int wordIndex) {
+        int wordsRequired = wordIndex + 1;
+        if (words.length < wordsRequired) {
+            int request = Math.max(2 * words.length, wordsRequired);
+            words = Arrays.copyOf(words, request);
+            summaryDirty = true;
+        }
+        if (wordsInUse < wordsRequired) {
+            wordsInUse = wordsRequired;
+        }
+    }
+
+    private void recalculateWordsInUse() {
+        int i;
+        for (i = wordsInUse - 1; i >= 0; i--)
+            if (words[i] != 0)
+                break;
+        wordsInUse = i + 1;
+    }
+
+    /**
+     * Sets the bits of this to the bits of the given bit set. Unlike clone,
+     * re-uses the words of this if large enough, so taking repeated snapshots
+     * doesn't allocate in the steady state. The summary is rebuilt lazily.
+     *
+     * @param store the indices to copy from, must not be null
+     */
+    @Override
+    public void copyFrom(IndicesStore store) {
+        if (store == this) return;
+        if (!(store instanceof RankedBitSet)) {
+            IndicesStore.copyRuns(store, this);
+            return;
+        }
+        RankedBitSet other = (RankedBitSet) store;
+        if (words.length < other.wordsInUse) {
+            words = new long[other.words.length];
+        } else if (wordsInUse > other.wordsInUse) {
+            Arrays.fill(words, other.wordsInUse, wordsInUse, 0);
+        }
+        System.arraycopy(other.words, 0, words, 0, other.wordsInUse);
+        wordsInUse = other.wordsInUse;
+        cardinality = other.cardinality;
+        summaryDirty = true;
+    }
+
+    @Override
+    public RankedBitSet copy() {
+        return clone();
+    }
+
+    @Override
+    public RankedBitSet emptyCopy() {
+        return new RankedBitSet();
+    }
+
+//---------------- Object
+
+    /**
+     * Returns a copy of this, including the rank summary.
+     */
+    @Override
+    public RankedBitSet clone() {
+        try {
+            RankedBitSet result = (RankedBitSet) super.clone();
+            result.words = words.clone();
+            if (blockTree != null) {
+                result.blockTree = blockTree.clone();
+            }
+            return result;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof RankedBitSet))
+            return false;
+        if (this == obj)
+            return true;
+        RankedBitSet set = (RankedBitSet) obj;
+        if (wordsInUse != set.wordsInUse)
+            return false;
+        for (int i = 0; i < wordsInUse; i++)
+            if (words[i] != set.words[i])
+                return false;
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        long h = 1234;
+        for (int i = wordsInUse; --i >= 0; )
+            h ^= words[i] * (i + 1);
+        return (int)((h >> 32) ^ h);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder("{");
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            if (b.length() > 1) b.append(", ");
+            b.append(i);
+        }
+        return b.append('}').toString();
+    }
+
+}
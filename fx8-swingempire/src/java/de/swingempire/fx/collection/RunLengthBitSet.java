@@ -0,0 +1,449 @@
+/*
+ * Created on 18.10.2026
+ *
+ */
+package de.swingempire.fx.collection;
+
+import java.util.Arrays;
+
+/**
+ * A run-length compressed set of indices. <p>
+ *
+ * The set indices are stored as sorted, disjoint and not adjacent runs
+ * [start, end), such that memory is proportional to the number of runs
+ * instead of the highest set index: select all of 50M rows is a single
+ * run, "all except a few" one run more per hole.
+ * <p>
+ *
+ * Lookup of the run containing an index is a binary search over the starts,
+ * O(log runs). For rank/select, the number of set indices before each run
+ * is cached, invalidated from the lowest modified run and refilled lazily.
+ * Modifications splice the run arrays, O(runs) in the worst case.
+ * <p>
+ *
+ * Note: same semantics as RankedBitSet, which is the better choice for
+ * scattered indices.
+ *
+ * @see RankedBitSet
+ * @see IndicesStore
+ */
+public class RunLengthBitSet implements IndicesStore, Cloneable {
+
+    private int[] starts;
+    private int[] ends;
+    private int runCount;
+    private int cardinality;
+
+    /**
+     * Number of set indices in the runs before run i, valid for
+     * i < validCounts.
+     */
+    private int[] counts;
+    private int validCounts;
+
+    public RunLengthBitSet() {
+        starts = new int[4];
+        ends = new int[4];
+        counts = new int[4];
+    }
+
+//---------------------- rank/select
+
+    @Override
+    public int rank(int index) {
+        checkIndex(index);
+        int run = findRun(index);
+        if (run < 0) return 0;
+        return countBefore(run) + Math.min(index, ends[run]) - starts[run];
+    }
+
+    @Override
+    public int select(int n) {
+        if (n < 0 || n >= cardinality) return -1;
+        validateCounts(runCount);
+        // last run with counts <= n
+        int low = 0;
+        int high = runCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (counts[mid] <= n) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return starts[low] + n - counts[low];
+    }
+
+    private int countBefore(int run) {
+        validateCounts(run + 1);
+        return counts[run];
+    }
+
+    private void validateCounts(int upTo) {
+        for (; validCounts < upTo; validCounts++) {
+            int run = validCounts;
+            counts[run] = run == 0 ? 0 : counts[run - 1] + ends[run - 1] - starts[run - 1];
+        }
+    }
+
+    private void invalidateCounts(int run) {
+        validCounts = Math.min(validCounts, run);
+    }
+
+//---------------------- index access
+
+    @Override
+    public boolean get(int index) {
+        checkIndex(index);
+        int run = findRun(index);
+        return run >= 0 && index < ends[run];
+    }
+
+    @Override
+    public void set(int index) {
+        checkIndex(index);
+        set(index, index + 1);
+    }
+
+    @Override
+    public void set(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) return;
+        // runs touching the range, including adjacent, are merged
+        int low = firstRunEndingAtOrAfter(fromIndex);
+        int high = findRun(toIndex);
+        if (low > high) {
+            replaceRuns(low, 0, fromIndex, toIndex, -1, -1);
+            cardinality += toIndex - fromIndex;
+            return;
+        }
+        int start = Math.min(fromIndex, starts[low]);
+        int end = Math.max(toIndex, ends[high]);
+        for (int run = low; run <= high; run++) {
+            cardinality -= ends[run] - starts[run];
+        }
+        cardinality += end - start;
+        replaceRuns(low, high + 1 - low, start, end, -1, -1);
+    }
+
+    @Override
+    public void clear(int index) {
+        checkIndex(index);
+        clear(index, index + 1);
+    }
+
+    @Override
+    public void clear(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) return;
+        // runs overlapping the range, not including adjacent
+        int low = firstRunEndingAtOrAfter(fromIndex + 1);
+        int high = findRun(toIndex - 1);
+        if (low > high) return;
+        int leftStart = starts[low];
+        int rightEnd = ends[high];
+        for (int run = low; run <= high; run++) {
+            cardinality -= ends[run] - starts[run];
+        }
+        int[] pieces = new int[4];
+        int count = 0;
+        if (leftStart < fromIndex) {
+            pieces[count++] = leftStart;
+            pieces[count++] = fromIndex;
+        }
+        if (rightEnd > toIndex) {
+            pieces[count++] = toIndex;
+            pieces[count++] = rightEnd;
+        }
+        for (int i = 0; i < count; i += 2) {
+            cardinality += pieces[i + 1] - pieces[i];
+        }
+        replaceRuns(low, high + 1 - low,
+                count > 0 ? pieces[0] : -1, count > 0 ? pieces[1] : -1,
+                count > 2 ? pieces[2] : -1, count > 2 ? pieces[3] : -1);
+    }
+
+    @Override
+    public void clear() {
+        runCount = 0;
+        cardinality = 0;
+        validCounts = 0;
+    }
+
+//---------------------- bulk shifts
+
+    /**
+     * {@inheritDoc} <p>
+     * Implemented to split the run containing fromIndex and move all runs
+     * above, O(runs).
+     */
+    @Override
+    public void shiftRight(int fromIndex, int distance) {
+        checkIndex(fromIndex);
+        checkIndex(distance);
+        if (distance == 0 || fromIndex >= length()) return;
+        int run = findRun(fromIndex);
+        if (run >= 0 && starts[run] < fromIndex && fromIndex < ends[run]) {
+            replaceRuns(run, 1, starts[run], fromIndex, fromIndex, ends[run]);
+        }
+        // first run starting at or after fromIndex
+        run = findRun(fromIndex - 1) + 1;
+        for (int i = run; i < runCount; i++) {
+            starts[i] += distance;
+            ends[i] += distance;
+        }
+        invalidateCounts(run);
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     * Implemented to clear the removed range, move all runs above and
+     * merge the runs meeting at fromIndex, O(runs).
+     */
+    @Override
+    public void shiftLeft(int fromIndex, int distance) {
+        checkIndex(fromIndex);
+        checkIndex(distance);
+        int length = length();
+        if (distance == 0 || fromIndex >= length) return;
+        if ((long) fromIndex + distance >= length) {
+            clear(fromIndex, length);
+            return;
+        }
+        clear(fromIndex, fromIndex + distance);
+        int run = firstRunEndingAtOrAfter(fromIndex + 1);
+        for (int i = run; i < runCount; i++) {
+            starts[i] -= distance;
+            ends[i] -= distance;
+        }
+        invalidateCounts(run);
+        if (run > 0 && run < runCount && ends[run - 1] == starts[run]) {
+            replaceRuns(run - 1, 2, starts[run - 1], ends[run], -1, -1);
+        }
+    }
+
+//---------------------- navigation
+
+    @Override
+    public int nextSetBit(int fromIndex) {
+        checkIndex(fromIndex);
+        int run = findRun(fromIndex);
+        if (run >= 0 && fromIndex < ends[run]) return fromIndex;
+        return run + 1 < runCount ? starts[run + 1] : -1;
+    }
+
+    @Override
+    public int nextClearBit(int fromIndex) {
+        checkIndex(fromIndex);
+        int run = findRun(fromIndex);
+        // runs are not adjacent, the end of a run is clear
+        return run >= 0 && fromIndex < ends[run] ? ends[run] : fromIndex;
+    }
+
+    @Override
+    public int previousSetBit(int fromIndex) {
+        if (fromIndex < 0) {
+            if (fromIndex == -1) return -1;
+            throw new IndexOutOfBoundsException("fromIndex < -1: " + fromIndex);
+        }
+        int run = findRun(fromIndex);
+        if (run < 0) return -1;
+        return Math.min(fromIndex, ends[run] - 1);
+    }
+
+    @Override
+    public int previousClearBit(int fromIndex) {
+        if (fromIndex < 0) {
+            if (fromIndex == -1) return -1;
+            throw new IndexOutOfBoundsException("fromIndex < -1: " + fromIndex);
+        }
+        int run = findRun(fromIndex);
+        // runs are not adjacent, the index before a run is clear
+        return run >= 0 && fromIndex < ends[run] ? starts[run] - 1 : fromIndex;
+    }
+
+    @Override
+    public int length() {
+        return runCount == 0 ? 0 : ends[runCount - 1];
+    }
+
+    @Override
+    public int cardinality() {
+        return cardinality;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return runCount == 0;
+    }
+
+    /**
+     * @return the number of runs of contiguous set indices.
+     */
+    public int getRunCount() {
+        return runCount;
+    }
+
+//------------------ internals
+
+    /**
+     * Returns the last run with start <= index or -1 if none.
+     */
+    private int findRun(int index) {
+        int low = 0;
+        int high = runCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= index) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Returns the first run with end >= index or runCount if none.
+     */
+    private int firstRunEndingAtOrAfter(int index) {
+        int low = 0;
+        int high = runCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (ends[mid] < index) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Replaces removeCount runs at the given run by up to two runs, a run
+     * with negative start is skipped. Does not touch the cardinality.
+     */
+    private void replaceRuns(int run, int removeCount, int start1, int end1, int start2, int end2) {
+        int addCount = (start1 >= 0 ? 1 : 0) + (start2 >= 0 ? 1 : 0);
+        int delta = addCount - removeCount;
+        if (delta != 0) {
+            ensureCapacity(runCount + delta);
+            int tail = runCount - run - removeCount;
+            System.arraycopy(starts, run + removeCount, starts, run + addCount, tail);
+            System.arraycopy(ends, run + removeCount, ends, run + addCount, tail);
+            runCount += delta;
+        }
+        int i = run;
+        if (start1 >= 0) {
+            starts[i] = start1;
+            ends[i++] = end1;
+        }
+        if (start2 >= 0) {
+            starts[i] = start2;
+            ends[i] = end2;
+        }
+        invalidateCounts(run);
+    }
+
+    private void ensureCapacity(int required) {
+        if (starts.length >= required) return;
+        int capacity = Math.max(2 * starts.length, required);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+    }
+
+    private static void checkIndex(int index) {
+        if (index < 0)
+            throw new IndexOutOfBoundsException("index < 0: " + index);
+    }
+
+    private static void checkRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0)
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        if (toIndex < 0)
+            throw new IndexOutOfBoundsException("toIndex < 0: " + toIndex);
+        if (fromIndex > toIndex)
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex +
+                    " > toIndex: " + toIndex);
+    }
+
+//---------------- copy
+
+    @Override
+    public void copyFrom(IndicesStore other) {
+        if (other == this) return;
+        if (!(other instanceof RunLengthBitSet)) {
+            IndicesStore.copyRuns(other, this);
+            return;
+        }
+        RunLengthBitSet runs = (RunLengthBitSet) other;
+        ensureCapacity(runs.runCount);
+        System.arraycopy(runs.starts, 0, starts, 0, runs.runCount);
+        System.arraycopy(runs.ends, 0, ends, 0, runs.runCount);
+        runCount = runs.runCount;
+        cardinality = runs.cardinality;
+        validCounts = 0;
+    }
+
+    @Override
+    public RunLengthBitSet copy() {
+        return clone();
+    }
+
+    @Override
+    public RunLengthBitSet emptyCopy() {
+        return new RunLengthBitSet();
+    }
+
+//---------------- Object
+
+    @Override
+    public RunLengthBitSet clone() {
+        try {
+            RunLengthBitSet result = (RunLengthBitSet) super.clone();
+            result.starts = starts.clone();
+            result.ends = ends.clone();
+            result.counts = counts.clone();
+            return result;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof RunLengthBitSet))
+            return false;
+        if (this == obj)
+            return true;
+        RunLengthBitSet set = (RunLengthBitSet) obj;
+        if (runCount != set.runCount)
+            return false;
+        for (int i = 0; i < runCount; i++)
+            if (starts[i] != set.starts[i] || ends[i] != set.ends[i])
+                return false;
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 1234;
+        for (int i = 0; i < runCount; i++)
+            h = 31 * (31 * h + starts[i]) + ends[i];
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder("{");
+        for (int i = 0; i < runCount; i++) {
+            if (i > 0) b.append(", ");
+            b.append('[').append(starts[i]).append(", ").append(ends[i]).append(')');
+        }
+        return b.append('}').toString();
+    }
+
+}
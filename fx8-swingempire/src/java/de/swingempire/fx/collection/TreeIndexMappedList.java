@@ -16,8 +16,6 @@ import javafx.scene.control.TreeItem;
 import javafx.scene.control.TreeItem.TreeModificationEvent;
 import javafx.scene.control.TreeView;
 
-import com.sun.javafx.collections.SortHelper;
-
 import de.swingempire.fx.scene.control.tree.TreeItemX;
 import de.swingempire.fx.scene.control.tree.TreeItemX.ExpandedDescendants;
 import de.swingempire.fx.scene.control.tree.TreeModificationEventX;
@@ -123,7 +121,9 @@ public class TreeIndexMappedList<T> extends TransformationList<TreeItem<T>, Inte
         TreeModificationEventX<T> ex = event instanceof TreeModificationEventX ? 
                 (TreeModificationEventX<T>) event : null;
         beginChange();
-        if (ex != null && ex.getChange() != null) {
+        if (ex != null && ex.wasBatch()) {
+            batchModified(ex);
+        } else if (ex != null && ex.getChange() != null) {
             childrenModified((TreeItemX<T>) event.getTreeItem(), ex.getChange());
         } else {
             treeItemModified(event);
@@ -167,7 +167,7 @@ public class TreeIndexMappedList<T> extends TransformationList<TreeItem<T>, Inte
      */
     private void collapsed(TreeModificationEvent<T> event) {
         TreeItemX<T> source = (TreeItemX<T>) event.getTreeItem();
-        int treeFrom = backingTree.getRow(source) + 1;
+        int treeFrom = TreeItemX.getRow(backingTree, source) + 1;
         int collapsedSize = getExpandedItemCountFromChildren(source);
         // find the first coordinate in our own that had been included
         // that's the from in the change we need to fire, if any
@@ -199,6 +199,42 @@ public class TreeIndexMappedList<T> extends TransformationList<TreeItem<T>, Inte
             // PENDING JW: break if > size of oldIndexed
         }
     }
+    /**
+     * Handles the modifications of children in a batch, after the indicesList
+     * updated itself.
+     * <p>
+     * Looks up the items at the old indices in the tree as it was before 
+     * the batch. Fires a remove for each item that is no longer contained if the 
+     * others kept their order, otherwise a single replaced of all.
+     * 
+     * @param event the event received at the end of the batch
+     * @see TreeItemX#batch(Runnable)
+     */
+    protected void batchModified(TreeModificationEventX<T> event) {
+        int[] oldRows = getIndicesList().oldIndices.toIntArray(0, Integer.MAX_VALUE);
+        if (oldRows.length == 0) return;
+        List<TreeItem<T>> oldItems = event.getOldTreeItems(
+                backingTree.getRoot(), backingTree.isShowRoot(), oldRows);
+        List<TreeItem<T>> removed = new ArrayList<>();
+        int[] removedAt = new int[oldItems.size()];
+        int index = 0;
+        for (TreeItem<T> item : oldItems) {
+            if (index < size() && get(index) == item) {
+                index++;
+            } else {
+                removedAt[removed.size()] = index;
+                removed.add(item);
+            }
+        }
+        if (index < size()) {
+            nextReplace(0, size(), oldItems);
+            return;
+        }
+        for (int i = 0; i < removed.size(); i++) {
+            nextRemove(removedAt[i], removed.get(i));
+        }
+    }
+    
     /**
      * Handles TreeModificationEvents that are list changes. 
      * @param treeItem
@@ -209,8 +245,7 @@ public class TreeIndexMappedList<T> extends TransformationList<TreeItem<T>, Inte
         beginChange();
         while (c.next()) {
             if (c.wasPermutated()) {
-                throw new UnsupportedOperationException("TBD - permutation " + c);
-//               permutatedItems(c);
+                permutatedItems(parent, c);
             } else if (c.wasUpdated()) {
                 throw new IllegalStateException("unexpected update from treeItem child" + c);
             } else if (c.wasReplaced()) {
@@ -250,7 +285,7 @@ public class TreeIndexMappedList<T> extends TransformationList<TreeItem<T>, Inte
      * @param c the change with its cursor set to a subchange with wasRemoved
      */
     private void removedItems(TreeItemX<T> source, Change<? extends TreeItem<T>> c) {
-        int treeFrom = backingTree.getRow(source) + 1 + c.getFrom();
+        int treeFrom = TreeItemX.getRow(backingTree, source) + 1 + c.getFrom();
 
         // fromIndex is startIndex of our own change - that doesn't change
         // as a subChange is about a single interval!
@@ -283,7 +318,7 @@ public class TreeIndexMappedList<T> extends TransformationList<TreeItem<T>, Inte
             singleReplaced(parent, c);
             return;
         }
-        int treeFrom = backingTree.getRow(parent) + 1 + c.getFrom();
+        int treeFrom = TreeItemX.getRow(backingTree, parent) + 1 + c.getFrom();
         int removedSize = 0;
         for (TreeItem<T> item : c.getRemoved()) {
             removedSize += ((TreeItemX<T>) item).getExpandedDescendantCount();
@@ -333,7 +368,7 @@ public class TreeIndexMappedList<T> extends TransformationList<TreeItem<T>, Inte
     protected void singleReplaced(TreeItemX<T> source,
             Change<? extends TreeItem<T>> c) {
 //        if (true) return;
-        int treeFrom = backingTree.getRow(source) + 1 + c.getFrom();
+        int treeFrom = TreeItemX.getRow(backingTree, source) + 1 + c.getFrom();
         TreeItem<T> removedItem = c.getRemoved().get(0);
         int removedSize = ((TreeItemX<T>) removedItem).getExpandedDescendantCount();
         TreeItem<T> addedItem = c.getAddedSubList().get(0);
@@ -348,20 +383,34 @@ public class TreeIndexMappedList<T> extends TransformationList<TreeItem<T>, Inte
 //        }
         
     }
-    protected SortHelper sortHelper = new SortHelper();
 
     /**
-     * @param c
+     * Called on a permutation of the children of the parent. 
+     * <p>
+     * Implemented to permute only the positions whose old row is in the 
+     * rows of the permutated children's subtrees, the new position of each 
+     * is the indexOf its remapped row in the already updated indicesList.
+     * Fires a single permutation. Does nothing if the parent is collapsed or 
+     * hidden, its children don't show.
+     * 
+     * @param parent the treeItem that send the change
+     * @param c the change with its cursor set to a subchange with wasPermutated
      */
-    private void permutatedItems(Change<? extends T> c) {
-        throw new IllegalStateException("TBD permutation - not yet implemented");
-//        List<Integer> perm = new ArrayList<>(getIndicesList().oldIndices);
-//        int[] permA = new int[size()];
-//        for (int i = 0; i < getIndicesList().oldIndices.size(); i++) {
-//            perm.set(i, c.getPermutation(getIndicesList().oldIndices.get(i)));
-//        }
-//        int[] permutation = sortHelper.sort(perm);
-//        nextPermutation(0, perm.size(), permutation);
+    private void permutatedItems(TreeItemX<T> parent, Change<? extends TreeItem<T>> c) {
+        if (!parent.isExpanded() || !TreeItemX.isVisible(parent)) return;
+        TreeIndicesList.RowPermutation rows = new TreeIndicesList.RowPermutation(backingTree, c);
+        IndicesSnapshot oldIndices = getIndicesList().oldIndices;
+        int[] oldRows = oldIndices.toIntArray(rows.from, rows.to);
+        if (oldRows.length == 0) return;
+        int from = oldIndices.rank(rows.from);
+        int[] permutation = new int[oldRows.length];
+        boolean identity = true;
+        for (int i = 0; i < oldRows.length; i++) {
+            permutation[i] = getIndicesList().indexOf(rows.getRow(oldRows[i]));
+            identity &= permutation[i] == from + i;
+        }
+        if (identity) return;
+        nextPermutation(from, from + oldRows.length, permutation);
     }
 
 
@@ -441,7 +490,7 @@ public class TreeIndexMappedList<T> extends TransformationList<TreeItem<T>, Inte
         // no change in backingList, so we can access its items 
         // directly
         for (Integer index : indices) {
-            items.add(backingTree.getTreeItem(index));
+            items.add(TreeItemX.getTreeItem(backingTree, index));
         }
         nextRemove(c.getFrom(), items);
     }
@@ -454,7 +503,7 @@ public class TreeIndexMappedList<T> extends TransformationList<TreeItem<T>, Inte
         List<? extends Integer> indices = c.getRemoved();
         List<TreeItem<T>> items = new ArrayList<>();
         for (Integer index : indices) {
-            items.add(backingTree.getTreeItem(index));
+            items.add(TreeItemX.getTreeItem(backingTree, index));
         }
         nextReplace(c.getFrom(), c.getTo(), items);
     }
@@ -478,27 +527,19 @@ public class TreeIndexMappedList<T> extends TransformationList<TreeItem<T>, Inte
      *    a coordinate in the range, or -1 for no match.
      */
     protected Integer findIndex(int start, int size) {
-        for (int i = start; i < start + size; i++) {
-            int index = getIndicesList().oldIndices.indexOf(i);
-            if (index > - 1) return index;
-        }
-        return -1;
+        return getIndicesList().oldIndices.indexOfFirstInRange(start, start + size);
     }
 
     /**
      * Returns the sum of the expandedDescandantCount of the item's children.
-     * We loop its children
-     * and sum up their expandedItemCount.
+     * Was: loop its children and sum up their expandedItemCount, now 
+     * delegates to the row index of the parent.
      * Called after receiving a collapsed from parent. 
      * @param parent
      * @return
      */
     protected int getExpandedItemCountFromChildren(TreeItemX<T> parent) {
-        int result = 0;
-        for (TreeItem<T> child : parent.getChildren()) {
-            result += ((TreeItemX<T>) child).getExpandedDescendantCount();
-        }
-        return result;
+        return parent.getExpandedChildCount();
     }
 
     @Override
@@ -508,8 +549,8 @@ public class TreeIndexMappedList<T> extends TransformationList<TreeItem<T>, Inte
 
     @Override
     public TreeItem<T> get(int index) {
-        int realIndex = getSource().get(index);
-        return backingTree.getTreeItem(realIndex);
+        int realIndex = getIndicesList().getInt(index);
+        return TreeItemX.getTreeItem(backingTree, realIndex);
     }
 
     @Override
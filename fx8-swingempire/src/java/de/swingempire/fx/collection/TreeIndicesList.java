@@ -4,9 +4,7 @@
  */
 package de.swingempire.fx.collection;
 
-import java.util.ArrayList;
-import java.util.BitSet;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -34,6 +32,8 @@ import de.swingempire.fx.scene.control.tree.TreeModificationEventX;
  * <li> DONE changes to showRoot property not handled   
  * <li> hiding collapsed root not handled 
  * <li> weakEventHandler?
+ * <li> DONE permutation of children
+ * <li> DONE batch modification of children
  * <li> core (OS) behaviour is to select the parent if a child has been selected
  *      when the branch is collapsed - implement here? More than the usual 
  *      bitSet-only behaviour, but feels natural enough? But can't without
@@ -62,7 +62,7 @@ public class TreeIndicesList<T> extends IndicesBase<T> {
      * change from the backing structure after this has updated itself.
      * Wheezy ... need to do better
      */
-    protected List<Integer> oldIndices = new ArrayList<>();
+    protected IndicesSnapshot oldIndices = new IndicesSnapshot();
 
 
     /**
@@ -75,11 +75,19 @@ public class TreeIndicesList<T> extends IndicesBase<T> {
      * @param tree
      */
     public TreeIndicesList(TreeView<T> tree) {
+        this(tree, new RankedBitSet());
+    }
+
+    /**
+     * @param tree
+     * @param store the storage of the indices, must be empty
+     */
+    public TreeIndicesList(TreeView<T> tree, IndicesStore store) {
         this.tree = Objects.requireNonNull(tree, "tree must not be null");
         if (tree.getRoot() != null &&!(tree.getRoot() instanceof TreeItemX)) {
             throw new IllegalArgumentException("expected extended TreeItemX but was:" + tree.getRoot() );
         }
-        bitSet = new BitSet();
+        bitSet = Objects.requireNonNull(store, "store must not be null");
         tree.showRootProperty().addListener((source, old, value) -> {
             showRootChanged(value);
         });
@@ -162,8 +170,8 @@ public class TreeIndicesList<T> extends IndicesBase<T> {
      * 
      * Does nothing if the sending treeItem isn't visible.
      * 
-     * Delegates the event either to childrenChanged or treeItemModified for
-     * further processing. 
+     * Delegates the event either to batchModified, childrenChanged or 
+     * treeItemModified for further processing. 
      * 
      * Guarantees to reset treeModification: either null if event not handled,
      * or the event as received.
@@ -182,11 +190,10 @@ public class TreeIndicesList<T> extends IndicesBase<T> {
         if (!TreeItemX.isVisible(source)) return;
         beginChange();
         // doooh .... need old state for the sake of IndexedItems
-        oldIndices = new ArrayList<>();
-        for (int i = 0; i < size(); i++) {
-            oldIndices.add(get(i));
-        }
-        if (ex != null && ex.getChange() != null) {
+        oldIndices.update(bitSet);
+        if (ex != null && ex.wasBatch()) {
+            batchModified(ex);
+        } else if (ex != null && ex.getChange() != null) {
             childrenChanged(source, ex.getChange());
         } else {
             treeItemModified(event);
@@ -196,6 +203,34 @@ public class TreeIndicesList<T> extends IndicesBase<T> {
         setTreeModification(null);
     }
     
+    /**
+     * Implements internal update for the modifications of children in a batch.
+     * <p>
+     * Looks up the items at the set indices in the tree as it was before the 
+     * batch and sets the indices to their rows after, dropping the items that 
+     * are no longer visible. Does nothing if the rows are unchanged, otherwise 
+     * clears only the rows that are no longer set and adds only the new rows
+     * (was: clear all and re-add), fired as removed/added per run.
+     * 
+     * @param event the event received at the end of the batch
+     * @see TreeItemX#batch(Runnable)
+     */
+    protected void batchModified(TreeModificationEventX<T> event) {
+        int[] oldRows = oldIndices.toIntArray(0, Integer.MAX_VALUE);
+        if (oldRows.length == 0) return;
+        List<TreeItem<T>> items = event.getOldTreeItems(tree.getRoot(), tree.isShowRoot(), oldRows);
+        int[] rows = new int[oldRows.length];
+        int count = 0;
+        for (TreeItem<T> item : items) {
+            int row = TreeItemX.getRow(tree, item);
+            if (row >= 0) rows[count++] = row;
+        }
+        if (count == oldRows.length && Arrays.equals(rows, oldRows)) return;
+        int[] newRows = Arrays.copyOf(rows, count);
+        doClearAllIndicesExcept(newRows);
+        doAddIndices(newRows);
+    }
+    
     /**
      * Called to handle modifications events other than childrenModified.
      * @param event
@@ -223,7 +258,7 @@ public class TreeIndicesList<T> extends IndicesBase<T> {
     protected void expanded(TreeModificationEvent<T> event) {
         TreeItemX<T> source = (TreeItemX<T>) event.getTreeItem();
         // getRow returns expected result only for visible items
-        int from = tree.getRow(source);
+        int from = TreeItemX.getRow(tree, source);
         // source hidden anyway or change completely after, nothing to do
         if (from < 0) {
             // might get here when a collapsed root is hidden:
@@ -252,7 +287,7 @@ public class TreeIndicesList<T> extends IndicesBase<T> {
     protected void collapsed(TreeModificationEvent<T> event) {
         TreeItemX<T> source = (TreeItemX<T>) event.getTreeItem();
         // getRow returns expected result only for visible items
-        int from = tree.getRow(source);
+        int from = TreeItemX.getRow(tree, source);
         // source hidden anyway or change completely after, nothing to do
         if (from < 0) {
             throw new IllegalStateException("weeded out hidden items before, "
@@ -275,18 +310,15 @@ public class TreeIndicesList<T> extends IndicesBase<T> {
 
     /**
      * Returns the sum of the expandedDescandantCount of the item's children.
-     * We loop its children
-     * and sum up their expandedItemCount.
+     * Was: loop its children and sum up their expandedItemCount, now 
+     * delegates to the row index of the parent which doesn't touch 
+     * children that are not yet created in lazy parents.
      * Called after receiving a collapsed from parent. 
      * @param parent
      * @return
      */
     protected int getExpandedChildCount(TreeItemX<T> parent) {
-        int result = 0;
-        for (TreeItem<T> child : parent.getChildren()) {
-            result += ((TreeItemX<T>) child).getExpandedDescendantCount();
-        }
-        return result;
+        return parent.getExpandedChildCount();
     }
 
     /**
@@ -301,8 +333,7 @@ public class TreeIndicesList<T> extends IndicesBase<T> {
         if (!source.isExpanded() || !TreeItemX.isVisible(source)) return;
         while (c.next()) {
             if (c.wasPermutated()) {
-                throw new UnsupportedOperationException("TBD - permutation " + c);
-//                permutated(c);
+                permutated(c);
             } else if (c.wasUpdated()) {
                 // don't expect a modification on the TreeItem itself, should
                 // be notified via TreeModification.value/graphicChanged?
@@ -317,6 +348,33 @@ public class TreeIndicesList<T> extends IndicesBase<T> {
         }
     }
     
+    /**
+     * Implements internal update for a permutation of the children of an 
+     * expanded and visible treeItem.
+     * <p>
+     * The subtrees of the permutated children move as blocks, each keeping 
+     * its expanded descendants. Implemented to remap the set indices in the 
+     * rows of the permutated range in one pass, same as IndicesList 
+     * the permutation is a replaced on the indices.
+     * 
+     * @param c the change received from the children, its cursor set to subChange
+     *    of type wasPermutated
+     */
+    private void permutated(Change<? extends TreeItem<T>> c) {
+        RowPermutation rows = new RowPermutation(tree, c);
+        int first = bitSet.nextSetBit(rows.from);
+        // change completely after
+        if (first < 0 || first >= rows.to) return;
+        int[] permutated = new int[bitSet.rank(rows.to) - bitSet.rank(rows.from)];
+        int current = 0;
+        for (int oldRow = first; current < permutated.length; 
+                oldRow = bitSet.nextSetBit(oldRow + 1)) {
+            permutated[current++] = rows.getRow(oldRow);
+        }
+        doClearIndicesInRange(rows.from, rows.to - rows.from);
+        doAddIndices(permutated);
+    }
+    
     /**
      * Implements internal update for separate add/remove from backing list.
      * This method is called if we got a treeModification with change != null
@@ -328,7 +386,7 @@ public class TreeIndicesList<T> extends IndicesBase<T> {
      * @param c
      */
     private void addedOrRemoved(TreeItemX<T> source, Change<? extends TreeItem<T>> c) {
-        int from = tree.getRow(source) + 1 + c.getFrom();
+        int from = TreeItemX.getRow(tree, source) + 1 + c.getFrom();
         // change completely after return
         if (bitSet.nextSetBit(from) < 0) return;
 
@@ -351,7 +409,7 @@ public class TreeIndicesList<T> extends IndicesBase<T> {
      * @param c
      */
     private void added(TreeItemX<T> source, Change<? extends TreeItem<T>> c) {
-        int from = tree.getRow(source) + 1 + c.getFrom();
+        int from = TreeItemX.getRow(tree, source) + 1 + c.getFrom();
         // added: values that are after the added index must be increased by addedSize
         // need to calculate the added size from the expandedCount of all
         // added children
@@ -370,7 +428,7 @@ public class TreeIndicesList<T> extends IndicesBase<T> {
      * @param c
      */
     private void removed(TreeItemX<T> source, Change<? extends TreeItem<T>> c) {
-        int from = tree.getRow(source) + 1 + c.getFrom();
+        int from = TreeItemX.getRow(tree, source) + 1 + c.getFrom();
         // removed is two-step:
         // 1. if any of the values that are mapped to indices, is removed remove the index
         // 2. for all left over indices after the remove, decrease the value by removedSize (?)
@@ -391,7 +449,7 @@ public class TreeIndicesList<T> extends IndicesBase<T> {
             return;
         }
 
-        int treeFrom = tree.getRow(source) + 1 + c.getFrom();
+        int treeFrom = TreeItemX.getRow(tree, source) + 1 + c.getFrom();
         int removedSize = 0;
         for (TreeItem<T> item : c.getRemoved()) {
             removedSize += ((TreeItemX<T>) item).getExpandedDescendantCount();
@@ -403,7 +461,7 @@ public class TreeIndicesList<T> extends IndicesBase<T> {
         doClearIndicesInRange(treeFrom, removedSize);
         int diff = addedSize - removedSize;
         if (diff < 0) {
-            doShiftLeft(treeFrom, diff);
+            doShiftLeft(treeFrom, -diff);
         } else {
             doShiftRight(treeFrom, diff);
         }
@@ -429,7 +487,7 @@ public class TreeIndicesList<T> extends IndicesBase<T> {
     protected void singleReplaced(TreeItemX<T> source,
             Change<? extends TreeItem<T>> c) {
 //        if (true) return;
-        int treeFrom = tree.getRow(source) + 1 + c.getFrom();
+        int treeFrom = TreeItemX.getRow(tree, source) + 1 + c.getFrom();
         TreeItem<T> removedItem = c.getRemoved().get(0);
         int removedSize = ((TreeItemX<T>) removedItem).getExpandedDescendantCount();
         TreeItem<T> addedItem = c.getAddedSubList().get(0);
@@ -449,7 +507,7 @@ public class TreeIndicesList<T> extends IndicesBase<T> {
         // PENDING JW: same size? check if doShift
         // handles range 0 ..
         if (diff < 0) {
-            doShiftLeft(treeFrom, diff);
+            doShiftLeft(treeFrom, -diff);
         } else {
             doShiftRight(treeFrom, diff);
         }
@@ -484,8 +542,8 @@ public class TreeIndicesList<T> extends IndicesBase<T> {
      * 
      * @return
      */
-    public List<Integer> getOldIndices() {
-        return Collections.unmodifiableList(oldIndices);
+    public IndicesSnapshot getOldIndices() {
+        return oldIndices;
     }
 
     /**
@@ -504,4 +562,66 @@ public class TreeIndicesList<T> extends IndicesBase<T> {
         return getSource().getExpandedItemCount();
     }
 
+    /**
+     * Maps the rows before a permutation of the children of an expanded and
+     * visible treeItem to the rows after. The rows of each child's subtree 
+     * move as a block, the blocks are sized by the (unchanged) expanded 
+     * descendant count of the children.
+     * <p>
+     * Must be created after the children are permutated, that is while 
+     * handling the change.
+     */
+    static class RowPermutation {
+        /** first row of the permutated range, inclusive */
+        final int from;
+        /** last row of the permutated range, exclusive */
+        final int to;
+        /** start row per child in old order, before and after the permutation */
+        private final int[] oldStarts;
+        private final int[] newStarts;
+        
+        /**
+         * @param tree the tree showing the children
+         * @param c the change received from the children, its cursor set to
+         *   subChange of type wasPermutated
+         */
+        <T> RowPermutation(TreeView<T> tree, Change<? extends TreeItem<T>> c) {
+            List<? extends TreeItem<T>> children = c.getList();
+            int size = c.getTo() - c.getFrom();
+            from = TreeItemX.getRow(tree, children.get(c.getFrom()));
+            // start rows in new order
+            int[] starts = new int[size];
+            int row = from;
+            for (int i = 0; i < size; i++) {
+                starts[i] = row;
+                row += getExpandedCount(children.get(c.getFrom() + i));
+            }
+            to = row;
+            oldStarts = new int[size];
+            newStarts = new int[size];
+            row = from;
+            for (int i = 0; i < size; i++) {
+                int newIndex = c.getPermutation(c.getFrom() + i) - c.getFrom();
+                oldStarts[i] = row;
+                newStarts[i] = starts[newIndex];
+                row += getExpandedCount(children.get(c.getFrom() + newIndex));
+            }
+        }
+        
+        /**
+         * Returns the row after the permutation.
+         * 
+         * @param oldRow the row before the permutation, must be in range
+         * @return the row after the permutation
+         */
+        int getRow(int oldRow) {
+            int block = Arrays.binarySearch(oldStarts, oldRow);
+            if (block < 0) block = - block - 2;
+            return newStarts[block] + oldRow - oldStarts[block];
+        }
+        
+        private static int getExpandedCount(TreeItem<?> item) {
+            return ((TreeItemX<?>) item).getExpandedDescendantCount();
+        }
+    }
 }
@@ -137,6 +137,21 @@ public abstract class AbstractSelectionModelBase<T> extends MultipleSelectionMod
         syncSingleSelectionState(getItemCount() - 1);
     }
 
+    /**
+     * Inverts the selection: selected indices are cleared, all others are
+     * selected. Does nothing in single selection mode. The selectedIndex is
+     * updated to the last selected, or -1 if empty.
+     * <p>
+     * Cost is independent of the number of items if the controller supports
+     * a complement representation of the indices, as IndicesBase does.
+     */
+    public void invertSelection() {
+        if (getSelectionMode() == SelectionMode.SINGLE) return;
+        controller.invertIndices();
+        ObservableList<Integer> indices = getSelectedIndices();
+        syncSingleSelectionState(indices.isEmpty() ? -1 : indices.get(indices.size() - 1));
+    }
+
 //------------------- SelectionModel api
     
     @Override
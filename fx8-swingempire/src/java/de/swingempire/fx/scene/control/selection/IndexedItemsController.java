@@ -58,6 +58,12 @@ public interface IndexedItemsController<T> {
      */
     void setAllIndices();
     
+    /**
+     * Inverts the indices: all set indices are cleared, all others in the 
+     * range of the backing structure are set.
+     */
+    void invertIndices();
+    
     /**
      * Clears all indices.
      */
@@ -4,8 +4,6 @@
  */
 package de.swingempire.fx.scene.control.selection;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 
 import javafx.beans.property.ListProperty;
@@ -18,6 +16,9 @@ import javafx.collections.WeakListChangeListener;
 import javafx.scene.control.ListView;
 import javafx.scene.control.MultipleSelectionModel;
 
+import de.swingempire.fx.collection.IndicesStore;
+import de.swingempire.fx.collection.RankedBitSet;
+
 /**
  * Plain copy of core, for playing with extensions.
  * 
@@ -34,6 +35,11 @@ import javafx.scene.control.MultipleSelectionModel;
  * Changed unrelated to particular update release
  * - registered changeListener to listView's selectionModelProperty implemented to 
  *   release this on being replaced
+ * - added constructor with a custom IndicesStore, f.i. RunLengthBitSet for
+ *   huge lists with mostly contiguous selection
+ * - a permutation of the items (f.i. sort) remaps the selected indices in place:
+ *   selectedIndex (and focus) follow their item instead of becoming the last
+ *   reselected index as in core
  * 
  */ 
 public class ListViewBitSetSelectionModel<T> extends MultipleSelectionModelBase<T> {
@@ -50,6 +56,15 @@ public class ListViewBitSetSelectionModel<T> extends MultipleSelectionModelBase<
      **********************************************************************/
 
     public ListViewBitSetSelectionModel(final ListView<T> listView) {
+        this(listView, new RankedBitSet());
+    }
+    
+    /**
+     * @param listView the view to select in, must not be null
+     * @param store the storage of the selected indices, must be empty
+     */
+    public ListViewBitSetSelectionModel(final ListView<T> listView, IndicesStore store) {
+        super(store);
         if (listView == null) {
             throw new IllegalArgumentException("ListView can not be null");
         }
@@ -222,59 +237,29 @@ public class ListViewBitSetSelectionModel<T> extends MultipleSelectionModelBase<
                 }
             } else if (c.wasAdded() || c.wasRemoved()) {
                 int shift = c.wasAdded() ? c.getAddedSize() : -c.getRemovedSize();
-                shiftSelection(c.getFrom(), shift, null);
+                // CHANGED JW: pass the removed items for notifying selectedItems
+                shiftRemovedItems = c.wasRemoved() ? c.getRemoved() : null;
+                try {
+                    shiftSelection(c.getFrom(), shift, null);
+                } finally {
+                    shiftRemovedItems = null;
+                }
                 focusHandled = false;
             } else if (c.wasPermutated()) {
-
-                // General approach:
-                //   -- detected a sort has happened
-                //   -- Create a permutation lookup map (1)
-                //   -- dump all the selected indices into a list (2)
-                //   -- clear the selected items / indexes (3)
-                //   -- create a list containing the new indices (4)
-                //   -- for each previously-selected index (5)
-                //     -- if index is in the permutation lookup map
-                //       -- add the new index to the new indices list
-                //   -- Perform batch selection (6)
-
-                // (1)
-                int length = c.getTo() - c.getFrom();
-                HashMap<Integer, Integer> pMap = new HashMap<Integer, Integer>(length);
-                for (int i = c.getFrom(); i < c.getTo(); i++) {
-                    pMap.put(i, c.getPermutation(i));
+                // CHANGED JW: remap the selection in place instead of core's
+                // clear/reselect - which fired a remove/add on selectedItems
+                // and boxed every selected index into a lookup map
+                int from = c.getFrom();
+                int to = c.getTo();
+                int[] permutation = new int[to - from];
+                for (int i = from; i < to; i++) {
+                    permutation[i - from] = c.getPermutation(i);
                 }
-
-                // (2)
-                List<Integer> selectedIndices = new ArrayList<Integer>(getSelectedIndices());
-
-
-                // (3)
-                clearSelection();
-
-                // (4)
-                List<Integer> newIndices = new ArrayList<Integer>(getSelectedIndices().size());
-
-                // (5)
-                for (int i = 0; i < selectedIndices.size(); i++) {
-                    int oldIndex = selectedIndices.get(i);
-
-                    if (pMap.containsKey(oldIndex)) {
-                        Integer newIndex = pMap.get(oldIndex);
-                        newIndices.add(newIndex);
-                    }
-                }
-
-                // (6)
-                if (!newIndices.isEmpty()) {
-                    if (newIndices.size() == 1) {
-                        select(newIndices.get(0));
-                    } else {
-                        int[] ints = new int[newIndices.size() - 1];
-                        for (int i = 0; i < newIndices.size() - 1; i++) {
-                            ints[i] = newIndices.get(i + 1);
-                        }
-                        selectIndices(newIndices.get(0), ints);
-                    }
+                int focusedIndex = getFocusedIndex();
+                permutateSelection(from, to, permutation);
+                // focus follows its item, as does the selectedIndex
+                if (focusedIndex >= from && focusedIndex < to) {
+                    focus(permutation[focusedIndex - from]);
                 }
             }
         }
@@ -7,6 +7,7 @@ package de.swingempire.fx.scene.control.selection;
 import javafx.collections.ObservableList;
 import de.swingempire.fx.collection.IndexMappedList;
 import de.swingempire.fx.collection.IndicesList;
+import de.swingempire.fx.collection.IndicesStore;
 
 /**
  * Implementation of IndexedItemsController that handles a list of items.
@@ -26,6 +27,15 @@ public class MultipleSelectionController<T> implements IndexedItemsController<T>
         indexedItems = new IndexMappedList<>(indicesList);
     }
     
+    /**
+     * @param items
+     * @param store the storage of the selected indices, must be empty
+     */
+    public MultipleSelectionController(ObservableList<T> items, IndicesStore store) {
+        indicesList = new IndicesList<>(items, store);
+        indexedItems = new IndexMappedList<>(indicesList);
+    }
+    
     @Override
     public ObservableList<Integer> getIndices() {
         return indicesList;
@@ -56,6 +66,11 @@ public class MultipleSelectionController<T> implements IndexedItemsController<T>
         indicesList.setAllIndices();
     }
 
+    @Override
+    public void invertIndices() {
+        indicesList.invertIndices();
+    }
+
     @Override
     public void clearAllIndices() {
         indicesList.clearAllIndices();
@@ -11,9 +11,13 @@ package de.swingempire.fx.scene.control.selection;
 
 import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.BitSet;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 import javafx.collections.ListChangeListener;
 import javafx.collections.ListChangeListener.Change;
@@ -26,6 +30,9 @@ import com.sun.javafx.collections.MappingChange;
 import com.sun.javafx.collections.NonIterableChange;
 import com.sun.javafx.scene.control.ReadOnlyUnbackedObservableList;
 
+import de.swingempire.fx.collection.IndicesStore;
+import de.swingempire.fx.collection.RankedBitSet;
+
 import static javafx.scene.control.SelectionMode.*;
 
 
@@ -48,6 +55,10 @@ import static javafx.scene.control.SelectionMode.*;
  *   behalf of selectedItemsSeq!
  * - applied patch for RT-37360: incorrect number/type of events when
  *   singleSelect item after it had been part of a multiple selection
+ * - selectedIndices/-Items iterate by nextSetBit in O(k), random access 
+ *   by select of the store
+ * - pluggable storage of the selected indices (IndicesStore), RankedBitSet
+ *   by default
  * 
  * @param <T> The type of the underlying data model for the UI control.
  */
@@ -61,6 +72,13 @@ public abstract class MultipleSelectionModelBase<T> extends MultipleSelectionMod
      **********************************************************************/
 
     public MultipleSelectionModelBase() {
+        this(new RankedBitSet());
+    }
+    
+    /**
+     * @param store the storage of the selected indices, must be empty
+     */
+    protected MultipleSelectionModelBase(IndicesStore store) {
         selectedIndexProperty().addListener(valueModel -> {
             // we used to lazily retrieve the selected item, but now we just
             // do it when the selection changes. This is hardly likely to be
@@ -69,9 +87,43 @@ public abstract class MultipleSelectionModelBase<T> extends MultipleSelectionMod
             setSelectedItem(getModelItem(getSelectedIndex()));
         });
         
-        selectedIndices = new BitSet();
+        selectedIndices = Objects.requireNonNull(store, "store must not be null");
 
-        selectedIndicesSeq = createListFromBitSet(selectedIndices);
+        selectedIndicesSeq = new ReadOnlyUnbackedObservableList<Integer>() {
+            @Override public Integer get(int index) {
+                return getSelectedIndexAt(index);
+            }
+
+            @Override public int size() {
+                return getSelectedCount();
+            }
+
+            @Override public Iterator<Integer> iterator() {
+                return new SelectedIndicesIterator();
+            }
+
+            @Override public void forEach(Consumer<? super Integer> action) {
+                Objects.requireNonNull(action);
+                for (int i = selectedIndices.nextSetBit(0); i >= 0; i = selectedIndices.nextSetBit(i + 1)) {
+                    action.accept(i);
+                }
+            }
+
+            @Override public boolean contains(Object o) {
+                if (o instanceof Number) {
+                    int index = ((Number) o).intValue();
+                    return index >= 0 && index < selectedIndices.length() &&
+                            selectedIndices.get(index);
+                }
+                return false;
+            }
+
+            @Override public int indexOf(Object o) {
+                if (!contains(o)) return -1;
+                int index = ((Number) o).intValue();
+                return selectedIndices.rank(index);
+            }
+        };
         
         final MappingChange.Map<Integer,T> map = f -> getModelItem(f);
         
@@ -92,7 +144,8 @@ public abstract class MultipleSelectionModelBase<T> extends MultipleSelectionMod
                 }
 
                 // CHANGED JW: patch for RT-38884 copied
-                if (hasRealChangeOccurred) {
+                // CHANGED JW: a remapped selection notifies selectedItems itself
+                if (hasRealChangeOccurred && !remappingSelection) {
                     if (selectedItemChange != null) {
                         selectedItemsSeq.callObservers(selectedItemChange);
                     } else {
@@ -107,12 +160,48 @@ public abstract class MultipleSelectionModelBase<T> extends MultipleSelectionMod
 
         selectedItemsSeq = new ReadOnlyUnbackedObservableList<T>() {
             @Override public T get(int i) {
-                int pos = selectedIndicesSeq.get(i);
+                int pos = getSelectedIndexAt(i);
                 return getModelItem(pos);
             }
 
             @Override public int size() {
-                return selectedIndices.cardinality();
+                return getSelectedCount();
+            }
+
+            @Override public Iterator<T> iterator() {
+                final Iterator<Integer> indices = new SelectedIndicesIterator();
+                return new Iterator<T>() {
+                    @Override public boolean hasNext() {
+                        return indices.hasNext();
+                    }
+
+                    @Override public T next() {
+                        return getModelItem(indices.next());
+                    }
+                };
+            }
+
+            @Override public void forEach(Consumer<? super T> action) {
+                Objects.requireNonNull(action);
+                for (int i = selectedIndices.nextSetBit(0); i >= 0; i = selectedIndices.nextSetBit(i + 1)) {
+                    action.accept(getModelItem(i));
+                }
+            }
+
+            @Override public Object[] toArray() {
+                Object[] items = new Object[getSelectedCount()];
+                copySelectedItemsInto(uncheckedArray(items));
+                return items;
+            }
+
+            @Override public <E> E[] toArray(E[] a) {
+                int count = getSelectedCount();
+                E[] items = a.length >= count ? a : Arrays.copyOf(a, count);
+                copySelectedItemsInto(uncheckedArray(items));
+                if (items.length > count) {
+                    items[count] = null;
+                }
+                return items;
             }
         };
     }
@@ -148,7 +237,7 @@ public abstract class MultipleSelectionModelBase<T> extends MultipleSelectionMod
      */
 
 
-    final BitSet selectedIndices;
+    final IndicesStore selectedIndices;
     private final ReadOnlyUnbackedObservableList<Integer> selectedIndicesSeq;
     @Override public ObservableList<Integer> getSelectedIndices() {
         return selectedIndicesSeq;
@@ -171,6 +260,75 @@ public abstract class MultipleSelectionModelBase<T> extends MultipleSelectionMod
     // implementing classes must set this when 
     ListChangeListener.Change selectedItemChange;
     
+    // CHANGED JW: true while a remapped selection fires on selectedIndices,
+    // selectedItems are notified (or not) by the remapping method
+    private boolean remappingSelection;
+    
+    // CHANGED JW: implementing classes must set this to the items removed 
+    // from the model while calling shiftSelection on a removal, used to 
+    // notify selectedItems about those that had been selected
+    List<? extends T> shiftRemovedItems;
+    
+    private int getSelectedCount() {
+        return selectedIndices.cardinality();
+    }
+    
+    /**
+     * Returns the selected index at the given position in selectedIndices or
+     * -1 if off range. Looked up by select, random access costs that of 
+     * the store (O(log n) for RankedBitSet).
+     */
+    private int getSelectedIndexAt(int position) {
+        if (position < 0 || position >= getSelectedCount()) return -1;
+        return selectedIndices.select(position);
+    }
+    
+    /**
+     * Iterates the selected indices in ascending order by nextSetBit, 
+     * O(k) for k selected. Read-only, the selection must not change 
+     * while iterating.
+     */
+    private class SelectedIndicesIterator implements Iterator<Integer> {
+        private int next = selectedIndices.nextSetBit(0);
+
+        @Override public boolean hasNext() {
+            return next >= 0;
+        }
+
+        @Override public Integer next() {
+            if (next < 0) throw new NoSuchElementException();
+            int current = next;
+            next = selectedIndices.nextSetBit(current + 1);
+            return current;
+        }
+    }
+    
+    /**
+     * Copies the selected items into the given array, in order of their
+     * index, starting at 0. Walks the bitSet once.
+     * 
+     * @param target the array to copy into, must be at least as long as 
+     *    the selection
+     * @return the number of items copied
+     * @throws IndexOutOfBoundsException if the target is too short
+     */
+    public int copySelectedItemsInto(T[] target) {
+        int count = getSelectedCount();
+        if (target.length < count) 
+            throw new IndexOutOfBoundsException("target length " + target.length 
+                    + " must not be less than selection size " + count);
+        int pos = 0;
+        for (int i = selectedIndices.nextSetBit(0); i >= 0; i = selectedIndices.nextSetBit(i + 1)) {
+            target[pos++] = getModelItem(i);
+        }
+        return count;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <E> E[] uncheckedArray(Object[] array) {
+        return (E[]) array;
+    }
+    
     // Fix for RT-20945 (and numerous other issues!)
     private int atomicityCount = 0;
     boolean isAtomic() {
@@ -237,15 +395,109 @@ public abstract class MultipleSelectionModelBase<T> extends MultipleSelectionMod
     
     // package only
     // CHANGED JW: widened scope to protected
+    // CHANGED JW: shift the store in bulk, fire a single replaced
     protected void shiftSelection(int position, int shift, final Callback<ShiftParams, Void> callback) {
         // with no check here, we get RT-15024
         if (position < 0) return;
         if (shift == 0) return;
+        if (callback != null) {
+            shiftSelectionPerBit(position, shift, callback);
+            return;
+        }
+        final int selectedIndex = getSelectedIndex();
+        // the lead as set by updateSelectedIndexOnShift: below position if 
+        // the selectedIndex is removed (RT-38787)
+        final int lead = selectedIndex >= position ? Math.max(0, selectedIndex + shift) : -1;
+        // the change starts at the lead if it is newly set
+        final int start = lead >= 0 && lead < position && !selectedIndices.get(lead) 
+                ? lead : position;
+        boolean hasTail = start < selectedIndices.length();
+        if (!hasTail && lead < 0) return;
         
+        int oldCardinality = selectedIndices.cardinality();
+        int rank = selectedIndices.rank(start);
+        // old selected indices at or after start, for the removed
+        final IndicesStore oldTail = hasTail ? copyTail(selectedIndices, start) : null;
+        if (hasTail) {
+            if (shift > 0) {
+                selectedIndices.shiftRight(position, shift);
+            } else {
+                selectedIndices.shiftLeft(position, -shift);
+            }
+        }
+        updateSelectedIndexOnShift(position, shift);
+        
+        int newCardinality = selectedIndices.cardinality();
+        if (!hasTail && newCardinality == oldCardinality) return;
+        // items are unchanged on inserts, removals are notified below
+        remappingSelection = true;
+        try {
+            selectedIndicesSeq.callObservers(
+                    new NonIterableChange.GenericAddRemoveChange<>(rank, newCardinality, 
+                            hasTail ? createIndicesList(oldTail) 
+                                    : Collections.<Integer>emptyList(), 
+                            selectedIndicesSeq));
+        } finally {
+            remappingSelection = false;
+        }
+        if (shift < 0) {
+            fireSelectedItemsRemovedOnShift(rank, start, position, -shift, oldTail);
+        }
+    }
+    
+    /**
+     * Notifies selectedItems after removing items from the model: the 
+     * selected items in the removed range leave the selection, a newly 
+     * set lead below the range enters it. The items at old indices in 
+     * [start, position + removedSize) are replaced by those at new indices 
+     * in [start, position).
+     * <p>
+     * PENDING JW: does nothing if the removed items are unknown (that is 
+     * shiftRemovedItems not set) but had been selected. 
+     * 
+     * @param rank the position of start in selectedIndices
+     * @param start the lowest changed index
+     * @param position the start of the removed range
+     * @param removedSize the number of removed items
+     * @param oldTail the old selected indices at or after start, may be null
+     *    if there had been none
+     */
+    private void fireSelectedItemsRemovedOnShift(int rank, int start, int position, 
+            int removedSize, IndicesStore oldTail) {
+        final int removedCount = oldTail != null ? oldTail.rank(position + removedSize) : 0;
+        int addedCount = selectedIndices.rank(position) - rank;
+        if (removedCount == 0 && addedCount == 0) return;
+        final List<? extends T> removedItems = shiftRemovedItems;
+        if (removedCount > 0 && removedItems == null 
+                && oldTail.rank(position) < removedCount) return;
+        List<T> removed = new AbstractList<T>() {
+            @Override public T get(int index) {
+                if (index < 0 || index >= removedCount) 
+                    throw new IndexOutOfBoundsException("index must be not negative "
+                            + "and less than size " + removedCount + ", but was: " + index);
+                int oldIndex = oldTail.select(index);
+                // below position the model is unchanged
+                return oldIndex < position ? getModelItem(oldIndex) 
+                        : removedItems.get(oldIndex - position);
+            }
+
+            @Override public int size() {
+                return removedCount;
+            }
+        };
+        selectedItemsSeq.callObservers(
+                new NonIterableChange.GenericAddRemoveChange<>(rank, rank + addedCount, 
+                        removed, selectedItemsSeq));
+    }
+    
+    /**
+     * Core's shift, bit by bit. Used if a callback is given. 
+     */
+    private void shiftSelectionPerBit(int position, int shift, final Callback<ShiftParams, Void> callback) {
         int selectedIndicesCardinality = selectedIndices.cardinality(); // number of true bits
         if (selectedIndicesCardinality == 0) return;
         
-        int selectedIndicesSize = selectedIndices.size();   // number of bits reserved 
+        int selectedIndicesSize = selectedIndices.length();   // highest set bit + 1 
         
         int[] perm = new int[selectedIndicesSize];
         int idx = 0;
@@ -254,13 +506,7 @@ public abstract class MultipleSelectionModelBase<T> extends MultipleSelectionMod
         if (shift > 0) {
             for (int i = selectedIndicesSize - 1; i >= position && i >= 0; i--) {
                 boolean selected = selectedIndices.get(i);
-                
-                if (callback == null) {
-                    selectedIndices.clear(i);
-                    selectedIndices.set(i + shift, selected);
-                } else {
-                    callback.call(new ShiftParams(i, i + shift, selected));
-                }
+                callback.call(new ShiftParams(i, i + shift, selected));
 
                 if (selected) {
                     perm[idx++] = i + 1;
@@ -273,13 +519,7 @@ public abstract class MultipleSelectionModelBase<T> extends MultipleSelectionMod
                 if ((i + shift) < 0) continue;
                 if ((i + 1 + shift) < position) continue;
                 boolean selected = selectedIndices.get(i + 1);
-                
-                if (callback == null) {
-                    selectedIndices.clear(i + 1);
-                    selectedIndices.set(i + 1 + shift, selected);
-                } else {
-                    callback.call(new ShiftParams(i + 1, i + 1 + shift, selected));
-                }
+                callback.call(new ShiftParams(i + 1, i + 1 + shift, selected));
 
                 if (selected) {
                     perm[idx++] = i;
@@ -288,6 +528,19 @@ public abstract class MultipleSelectionModelBase<T> extends MultipleSelectionMod
             }
         }
         
+        updateSelectedIndexOnShift(position, shift);
+
+        if (hasPermutated) {
+            selectedIndicesSeq.callObservers(
+                new NonIterableChange.SimplePermutationChange<Integer>(
+                        0, 
+                        selectedIndicesCardinality, 
+                        perm, 
+                        selectedIndicesSeq));
+        }
+    }
+    
+    private void updateSelectedIndexOnShift(int position, int shift) {
         // This ensure that the selection remains accurate when a shift occurs.
         final int selectedIndex = getSelectedIndex();
         if (selectedIndex >= position && selectedIndex > -1) {
@@ -304,14 +557,84 @@ public abstract class MultipleSelectionModelBase<T> extends MultipleSelectionMod
             // removed due to RT-27185
 //            focus(newSelectionLead);
         }
+    }
 
-        if (hasPermutated) {
-            selectedIndicesSeq.callObservers(
-                new NonIterableChange.SimplePermutationChange<Integer>(
-                        0, 
-                        selectedIndicesCardinality, 
-                        perm, 
-                        selectedIndicesSeq));
+    /**
+     * Applies a permutation of the items in [from, to) to the selection,
+     * counterpart of shiftSelection for sorting.
+     * <p>
+     * Moves the selected bits of the range in a single pass, looking up
+     * their new index in the primitive permutation array. Fires one replaced
+     * on selectedIndices and a permutation (instead of remove/add) on selectedItems,
+     * the latter only if the order of the selected items changed. The selectedIndex
+     * follows its item.
+     * 
+     * @param from start of the permutated range, inclusive
+     * @param to end of the permutated range, exclusive
+     * @param permutation the new index of the item at old index i is
+     *    permutation[i - from]
+     */
+    protected void permutateSelection(int from, int to, int[] permutation) {
+        // position of the range in selectedIndices
+        final int position = selectedIndices.rank(from);
+        int count = selectedIndices.rank(to) - position;
+        if (count == 0) return;
+        final int[] oldIndices = new int[count];
+        int[] newIndices = new int[count];
+        int k = 0;
+        for (int i = selectedIndices.nextSetBit(from); i >= 0 && i < to; 
+                i = selectedIndices.nextSetBit(i + 1)) {
+            oldIndices[k] = i;
+            newIndices[k++] = permutation[i - from];
+        }
+        // new position of the selected item at old position j is the rank
+        // of its new index
+        int[] sorted = newIndices.clone();
+        Arrays.sort(sorted);
+        int[] perm = new int[count];
+        boolean indicesChanged = false;
+        boolean itemsPermutated = false;
+        for (int j = 0; j < count; j++) {
+            int rank = Arrays.binarySearch(sorted, newIndices[j]);
+            perm[j] = position + rank;
+            itemsPermutated |= rank != j;
+            indicesChanged |= sorted[j] != oldIndices[j];
+        }
+        if (!indicesChanged && !itemsPermutated) return;
+        
+        selectedIndices.clear(from, to);
+        for (int index : newIndices) {
+            selectedIndices.set(index);
+        }
+        final int selectedIndex = getSelectedIndex();
+        if (selectedIndex >= from && selectedIndex < to) {
+            setSelectedIndex(permutation[selectedIndex - from]);
+        }
+        
+        if (indicesChanged) {
+            List<Integer> removed = new AbstractList<Integer>() {
+                @Override public Integer get(int index) {
+                    return oldIndices[index];
+                }
+
+                @Override public int size() {
+                    return oldIndices.length;
+                }
+            };
+            // items are unchanged, don't let the listener map the replaced
+            remappingSelection = true;
+            try {
+                selectedIndicesSeq.callObservers(
+                        new NonIterableChange.GenericAddRemoveChange<>(
+                                position, position + count, removed, selectedIndicesSeq));
+            } finally {
+                remappingSelection = false;
+            }
+        }
+        if (itemsPermutated) {
+            selectedItemsSeq.callObservers(
+                    new NonIterableChange.SimplePermutationChange<T>(
+                            position, position + count, perm, selectedItemsSeq));
         }
     }
 
@@ -331,8 +654,7 @@ public abstract class MultipleSelectionModelBase<T> extends MultipleSelectionMod
         // firstly we make a copy of the selection, so that we can send out
         // the correct details in the selection change event.
         // We remove the new selection from the list seeing as it is not removed.
-        BitSet selectedIndicesCopy = new BitSet();
-        selectedIndicesCopy.or(selectedIndices);
+        IndicesStore selectedIndicesCopy = selectedIndices.copy();
         selectedIndicesCopy.clear(row);
         List<Integer> previousSelectedIndices = createListFromBitSet(selectedIndicesCopy);
 
@@ -679,10 +1001,10 @@ public abstract class MultipleSelectionModelBase<T> extends MultipleSelectionMod
 
         if (! selectedIndices.isEmpty()) {
             List<Integer> removed = new AbstractList<Integer>() {
-                final BitSet clone = (BitSet) selectedIndices.clone();
+                final IndicesStore clone = selectedIndices.copy();
 
                 @Override public Integer get(int index) {
-                    return clone.nextSetBit(index);
+                    return clone.select(index);
                 }
 
                 @Override public int size() {
@@ -759,7 +1081,43 @@ public abstract class MultipleSelectionModelBase<T> extends MultipleSelectionMod
      *                                                                     *
      **********************************************************************/
 
-    private ReadOnlyUnbackedObservableList<Integer> createListFromBitSet(final BitSet bitset) {
+    /**
+     * Returns an unmodifiable list of the set indices of the store, 
+     * looked up by select on access. The store must not be changed 
+     * after creating the list.
+     */
+    private static List<Integer> createIndicesList(final IndicesStore store) {
+        return new AbstractList<Integer>() {
+
+            @Override public Integer get(int index) {
+                if (index < 0 || index >= size()) 
+                    throw new IndexOutOfBoundsException("index must be not negative "
+                            + "and less than size " + size() + ", but was: " + index);
+                return store.select(index);
+            }
+
+            @Override public int size() {
+                return store.cardinality();
+            }
+        };
+    }
+
+    /**
+     * Returns a new store of the same type as the given, containing its 
+     * set indices at or after fromIndex. Copies run by run, the cost 
+     * is that of the tail, not of the whole store.
+     */
+    private static IndicesStore copyTail(final IndicesStore store, final int fromIndex) {
+        IndicesStore tail = store.emptyCopy();
+        for (int from = store.nextSetBit(fromIndex); from >= 0; ) {
+            int to = store.nextClearBit(from);
+            tail.set(from, to);
+            from = store.nextSetBit(to);
+        }
+        return tail;
+    }
+
+    private ReadOnlyUnbackedObservableList<Integer> createListFromBitSet(final IndicesStore bitset) {
         return new ReadOnlyUnbackedObservableList<Integer>() {
             @Override public Integer get(int index) {
                 // PENDING JW: wrong! this list is defined for our own list only
@@ -767,14 +1125,8 @@ public abstract class MultipleSelectionModelBase<T> extends MultipleSelectionMod
                 if (index < 0 || index >= getItemCount()) return -1;
 
                 // PENDING JW: the incorrect guard above requires this
-                // double check
-                for (int pos = 0, val = bitset.nextSetBit(0);
-                     val >= 0 || pos == index;
-                     pos++, val = bitset.nextSetBit(val+1)) {
-                    if (pos == index) return val;
-                }
-
-                return -1;
+                // double check - select returns -1 if off range
+                return bitset.select(index);
             }
 
             @Override public int size() {
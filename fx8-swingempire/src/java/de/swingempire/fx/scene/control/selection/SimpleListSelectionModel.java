@@ -12,6 +12,8 @@ import javafx.scene.control.FocusModel;
 import javafx.scene.control.ListView;
 import de.swingempire.fx.collection.IndexMappedList;
 import de.swingempire.fx.collection.IndicesList;
+import de.swingempire.fx.collection.IndicesStore;
+import de.swingempire.fx.collection.RankedBitSet;
 
 /**
  * Concrete SelectionModel using indicesList/indexedItems for ListView.
@@ -34,10 +36,19 @@ public class SimpleListSelectionModel<T>
      * @param listView
      */
     public SimpleListSelectionModel(ListView<T> listView) {
+        this(listView, new RankedBitSet());
+    }
+    
+    /**
+     * Live with coupling to view for now, will be removed!
+     * @param listView
+     * @param store the storage of the selected indices, must be empty
+     */
+    public SimpleListSelectionModel(ListView<T> listView, IndicesStore store) {
         this.listView = listView;
         itemsList = new SimpleListProperty<>();
         itemsList.bind(listView.itemsProperty());
-        controller = new MultipleSelectionController<>(itemsList);
+        controller = new MultipleSelectionController<>(itemsList, store);
         // PENDING JW: this is brittle: need to register _after_ controller!
         helper = new ListBasedSelectionHelper<>(this, itemsList);
     }
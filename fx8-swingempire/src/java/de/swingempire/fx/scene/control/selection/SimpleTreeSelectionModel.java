@@ -7,6 +7,8 @@ package de.swingempire.fx.scene.control.selection;
 import javafx.scene.control.FocusModel;
 import javafx.scene.control.TreeItem;
 import javafx.scene.control.TreeView;
+import de.swingempire.fx.collection.IndicesStore;
+import de.swingempire.fx.collection.RankedBitSet;
 
 /**
  * @author Jeanette Winzenburg, Berlin
@@ -20,8 +22,16 @@ public class SimpleTreeSelectionModel<T> extends AbstractSelectionModelBase<Tree
      * 
      */
     public SimpleTreeSelectionModel(TreeView<T> treeView) {
+       this(treeView, new RankedBitSet());
+    }
+    
+    /**
+     * @param treeView
+     * @param store the storage of the selected indices, must be empty
+     */
+    public SimpleTreeSelectionModel(TreeView<T> treeView, IndicesStore store) {
        this.treeView = treeView;
-       controller = new TreeSelectionController<>(treeView);
+       controller = new TreeSelectionController<>(treeView, store);
         // PENDING JW: this is brittle: need to register _after_ controller!
        helper = new TreeBasedSelectionHelper(this, treeView);
     }
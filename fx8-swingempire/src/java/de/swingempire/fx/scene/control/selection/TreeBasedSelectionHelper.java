@@ -106,13 +106,45 @@ public class TreeBasedSelectionHelper<T> {
                 (TreeModificationEventX<T>) event : null;
         TreeItemX<T> source = (TreeItemX<T>) event.getTreeItem(); 
         if (!TreeItemX.isVisible(source)) return;
-        if (ex != null && ex.getChange() != null) {
+        if (ex != null && ex.wasBatch()) {
+            batchModified(ex);
+        } else if (ex != null && ex.getChange() != null) {
             childrenChanged(source, ex.getChange());
         } else {
             treeItemModified(event);
         }
     }
 
+    /**
+     * Called if the treeModification reports the modifications of children
+     * in a batch. Same short-cuts as in childrenChanged, if the selectedItem
+     * was removed or hidden by the batch, selects the item that took its row.
+     * 
+     * @param event the event received at the end of the batch
+     * @see TreeItemX#batch(Runnable)
+     */
+    protected void batchModified(TreeModificationEventX<T> event) {
+        int oldSelectedIndex = selectionModel.getSelectedIndex();
+        TreeItem<T> oldSelectedItem = selectionModel.getSelectedItem();
+        int oldFocus = selectionModel.getFocusedIndex();
+        boolean sameFocus = oldFocus == oldSelectedIndex;
+        // short-cut 1: no old selection
+        if (oldSelectedIndex < 0) return;
+        // short-cut 3: oldSelectedItem still in selectedItems
+        if (selectionModel.getSelectedItems().contains(oldSelectedItem)) {
+            int indexInIndices = selectionModel.getSelectedItems().indexOf(oldSelectedItem);
+            int sourceIndex = selectionModel.getSelectedIndices().get(indexInIndices);
+            selectionModel.syncSingleSelectionState(sourceIndex, sameFocus);
+            return;
+        }
+        int row = Math.min(oldSelectedIndex, treeView.getExpandedItemCount() - 1);
+        if (row < 0) {
+            selectionModel.clearSelection();
+        } else {
+            selectionModel.select(row);
+        }
+    }
+    
     /**
      * Called if the treeModification was caused by a change of a child list of 
      * a visible treeItem.
@@ -218,7 +250,7 @@ public class TreeBasedSelectionHelper<T> {
 
     protected void selectedItemReplaced(TreeItemX<T> source,
             Change<? extends TreeItem<T>> c) {
-        int treeFrom = treeView.getRow(source) + 1 + c.getFrom();
+        int treeFrom = TreeItemX.getRow(treeView, source) + 1 + c.getFrom();
         if (c.getRemovedSize() == 1 && c.getAddedSize() == 1) {
             // single replace (not entirely safe, could be a 
             // setAll with a single new element
@@ -295,7 +327,7 @@ public class TreeBasedSelectionHelper<T> {
         
         TreeItemX<T> source = (TreeItemX<T>) event.getTreeItem();
         // getRow returns expected result only for visible items
-        int from = treeView.getRow(source);
+        int from = TreeItemX.getRow(treeView, source);
         // source hidden anyway or change completely after, nothing to do
         if (from < 0) {
             throw new IllegalStateException("weeded out hidden items before, "
@@ -367,7 +399,7 @@ public class TreeBasedSelectionHelper<T> {
     protected void collapsed(TreeModificationEvent<T> event) {
         TreeItemX<T> source = (TreeItemX<T>) event.getTreeItem();
         // getRow returns expected result only for visible items
-        int from = treeView.getRow(source);
+        int from = TreeItemX.getRow(treeView, source);
         // source hidden anyway or change completely after, nothing to do
         if (from < 0) {
             throw new IllegalStateException("weeded out hidden items before, "
@@ -7,8 +7,10 @@ package de.swingempire.fx.scene.control.selection;
 import javafx.collections.ObservableList;
 import javafx.scene.control.TreeItem;
 import javafx.scene.control.TreeView;
+import de.swingempire.fx.collection.IndicesStore;
 import de.swingempire.fx.collection.TreeIndexMappedList;
 import de.swingempire.fx.collection.TreeIndicesList;
+import de.swingempire.fx.scene.control.tree.TreeItemX;
 
 
 /**
@@ -34,6 +36,15 @@ public class TreeSelectionController<T> implements IndexedItemsController<TreeIt
         indexedItems = new TreeIndexMappedList<>(indicesList);
     }
 
+    /**
+     * @param tree
+     * @param store the storage of the selected indices, must be empty
+     */
+    public TreeSelectionController(TreeView<T> tree, IndicesStore store) {
+        indicesList = new TreeIndicesList<>(tree, store);
+        indexedItems = new TreeIndexMappedList<>(indicesList);
+    }
+
     @Override
     public ObservableList<Integer> getIndices() {
         return indicesList;
@@ -64,6 +75,11 @@ public class TreeSelectionController<T> implements IndexedItemsController<TreeIt
         indicesList.setAllIndices();
     }
 
+    @Override
+    public void invertIndices() {
+        indicesList.invertIndices();
+    }
+
     @Override
     public void clearAllIndices() {
         indicesList.clearAllIndices();
@@ -71,7 +87,7 @@ public class TreeSelectionController<T> implements IndexedItemsController<TreeIt
 
     @Override
     public int sourceIndexOf(TreeItem<T> item) {
-        return indicesList.getSource().getRow(item);
+        return TreeItemX.getRow(indicesList.getSource(), item);
     }
 
     @Override
@@ -81,7 +97,7 @@ public class TreeSelectionController<T> implements IndexedItemsController<TreeIt
 
     @Override
     public TreeItem<T> getSourceItem(int index) {
-        return indicesList.getSource().getTreeItem(index);
+        return TreeItemX.getTreeItem(indicesList.getSource(), index);
     }
 
 }
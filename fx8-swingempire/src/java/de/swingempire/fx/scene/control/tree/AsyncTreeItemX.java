@@ -0,0 +1,237 @@
+/*
+ * Created on 17.10.2026
+ *
+ */
+package de.swingempire.fx.scene.control.tree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.scene.Node;
+import javafx.scene.control.TreeItem;
+
+/**
+ * TreeItemX which loads its children in the background on first expansion,
+ * backed by a ChildrenLoader.
+ * <p>
+ *
+ * Until loaded, the only child is a placeholder, passed into the constructor
+ * or a TreeItemX with null value by default. Expanding starts loading on
+ * the executor and shows the placeholder as "loading" row. When done, the
+ * placeholder is replaced by the real children with a single
+ * childrenModification (aka: setAll) on the FX thread, so that TreeIndicesList
+ * sees one replace and shifts the indices below once. Collapsing while loading
+ * cancels the load, interrupting the loading thread, the next expand starts 
+ * a new. A failed load collapses this and is reported by the 
+ * loadExceptionProperty, the next expand tries again.
+ * <p>
+ *
+ * Note: the loader is called off the FX thread, it must not access any
+ * state of the tree. It should respond to interruption, f.i. by 
+ * blocking in interruptible calls.
+ * <p>
+ *
+ * PENDING JW: no support for reloading, children are loaded once.
+ *
+ * @see ChildrenLoader
+ * @see PagedTreeItemX
+ */
+public class AsyncTreeItemX<T> extends TreeItemX<T> {
+
+    private final ChildrenLoader<T> loader;
+    private final Executor loadExecutor;
+    private Executor resultExecutor = Platform::runLater;
+
+    private boolean loaded;
+    private LoadTask pendingTask;
+
+    /**
+     * @param value the value of this item
+     * @param loader the loader of the children, must not be null
+     * @param executor the executor to load the children, must not be null
+     *
+     * @throws IllegalArgumentException if loader or executor is null
+     */
+    public AsyncTreeItemX(T value, ChildrenLoader<T> loader, Executor executor) {
+        this(value, null, loader, executor);
+    }
+
+    /**
+     * @param value the value of this item
+     * @param graphic the graphic of this item
+     * @param loader the loader of the children, must not be null
+     * @param executor the executor to load the children, must not be null
+     *
+     * @throws IllegalArgumentException if loader or executor is null
+     */
+    public AsyncTreeItemX(T value, Node graphic, ChildrenLoader<T> loader,
+            Executor executor) {
+        this(value, graphic, loader, executor, new TreeItemX<>(null));
+    }
+
+    /**
+     * @param value the value of this item
+     * @param graphic the graphic of this item
+     * @param loader the loader of the children, must not be null
+     * @param executor the executor to load the children, must not be null
+     * @param placeholder the child shown until the children are loaded, 
+     *    f.i. with a ProgressIndicator as graphic, must not be null
+     *
+     * @throws IllegalArgumentException if loader, executor or placeholder 
+     *    is null
+     */
+    public AsyncTreeItemX(T value, Node graphic, ChildrenLoader<T> loader,
+            Executor executor, TreeItemX<T> placeholder) {
+        super(value, graphic);
+        if (loader == null || executor == null || placeholder == null)
+            throw new IllegalArgumentException("loader, executor and placeholder must not be null");
+        this.loader = loader;
+        this.loadExecutor = executor;
+        getChildren().add(placeholder);
+        expandedProperty().addListener((source, old, expanded) -> expandedChanged(expanded));
+    }
+
+    /**
+     * Returns true if the real children are loaded.
+     *
+     * @return true if the children are loaded, false if the only child is
+     *    the placeholder
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Read-only property indicating if a background load is in progress.
+     */
+    private final ReadOnlyBooleanWrapper loading = new ReadOnlyBooleanWrapper(this, "loading");
+
+    public final ReadOnlyBooleanProperty loadingProperty() {
+        return loading.getReadOnlyProperty();
+    }
+
+    public final boolean isLoading() {
+        return loading.get();
+    }
+
+    /**
+     * Read-only property of the exception thrown by the last load, 
+     * typically by the loader. Reset to null when the next load starts.
+     */
+    private final ReadOnlyObjectWrapper<Throwable> loadException = 
+            new ReadOnlyObjectWrapper<>(this, "loadException");
+
+    public final ReadOnlyObjectProperty<Throwable> loadExceptionProperty() {
+        return loadException.getReadOnlyProperty();
+    }
+
+    public final Throwable getLoadException() {
+        return loadException.get();
+    }
+
+    /**
+     * Creates and returns the child item for the given value. This
+     * implementation returns an AsyncTreeItemX with the same loader and
+     * executor as this.
+     *
+     * @param value the value of the child
+     * @return the child item
+     */
+    protected TreeItem<T> createChild(T value) {
+        return new AsyncTreeItemX<>(value, loader, loadExecutor);
+    }
+
+    /**
+     * Testing only: sets the executor to publish the loaded children.
+     * Default is Platform::runLater.
+     */
+    void setResultExecutor(Executor executor) {
+        this.resultExecutor = executor;
+    }
+
+    /**
+     * Starts loading on first expand, cancels the pending load on collapse.
+     */
+    private void expandedChanged(boolean expanded) {
+        if (loaded) return;
+        if (expanded) {
+            if (pendingTask == null) load();
+        } else {
+            cancelPending();
+        }
+    }
+
+    private void load() {
+        LoadTask task = new LoadTask(getValue());
+        pendingTask = task;
+        loadException.set(null);
+        loading.set(true);
+        loadExecutor.execute(task);
+    }
+
+    /**
+     * Replaces the placeholder by the children if the task is the pending,
+     * does nothing if it had been cancelled. Must be called on the FX thread.
+     * A failure is reported by the loadExceptionProperty and collapses
+     * this, the next expand will try again.
+     */
+    private void loadDone(LoadTask task) {
+        if (task != pendingTask) return;
+        pendingTask = null;
+        loading.set(false);
+        List<T> values;
+        try {
+            values = task.get();
+        } catch (ExecutionException ex) {
+            loadException.set(ex.getCause());
+            setExpanded(false);
+            return;
+        } catch (InterruptedException | CancellationException ex) {
+            // can't happen: done and not cancelled
+            return;
+        }
+        List<TreeItem<T>> children = new ArrayList<>(values.size());
+        for (T value : values) {
+            children.add(createChild(value));
+        }
+        loaded = true;
+        getChildren().setAll(children);
+    }
+
+    private void cancelPending() {
+        if (pendingTask == null) return;
+        pendingTask.cancel(true);
+        pendingTask = null;
+        loading.set(false);
+    }
+
+    /**
+     * Background load of the children values, publishes its result on 
+     * the resultExecutor if not cancelled.
+     */
+    private class LoadTask extends FutureTask<List<T>> {
+
+        LoadTask(T value) {
+            super(() -> {
+                int count = loader.getChildCount(value);
+                if (Thread.currentThread().isInterrupted()) throw new CancellationException();
+                return loader.getChildren(value, 0, count);
+            });
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) return;
+            resultExecutor.execute(() -> loadDone(this));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Created on 17.10.2026
+ *
+ */
+package de.swingempire.fx.scene.control.tree;
+
+import java.util.List;
+
+/**
+ * Source of the children values of a lazily populated tree, queried by
+ * PagedTreeItemX. Implementations are expected to be cheap for the count
+ * and to support random access to ranges of children, f.i. backed by a
+ * database with offset/limit queries.
+ *
+ * @see PagedTreeItemX
+ */
+public interface ChildrenLoader<T> {
+
+    /**
+     * Returns the number of children of the given parent value. Must not
+     * change while the parent's children are in use.
+     *
+     * @param parent the value of the parent item
+     * @return the number of children, 0 for a leaf
+     */
+    int getChildCount(T parent);
+
+    /**
+     * Returns the values of the children of the parent in the range from
+     * (inclusive) to (exclusive). The returned list must have exactly
+     * to - from elements.
+     *
+     * @param parent the value of the parent item
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @return the values of the children in the range
+     */
+    List<T> getChildren(T parent, int from, int to);
+}
@@ -4,8 +4,14 @@
  */
 package de.swingempire.fx.scene.control.tree;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
 import de.swingempire.fx.collection.FilteredListX;
-import javafx.beans.binding.Bindings;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.ObservableList;
@@ -25,12 +31,42 @@ import javafx.scene.control.TreeItem;
  * Working with FilteredListX (which is using a fine-grained notification on refilter), so might
  * relax the IllegalState - add tests with FilteredList to the suit and see which changes we
  * actually get from it on refilter.
+ * <p>
+ * 
+ * Changed: filtering is bottom-up (was: binding the predicate of the filteredList
+ * which pushed the predicate to every child from inside the filter, re-evaluating
+ * nodes and firing per level). On setting the predicate, the backing subtree is
+ * walked depth-first, every leaf is tested once, the "has kept children" state
+ * is propagated upwards and each filteredList is updated once after all its
+ * children, firing at most one (minimal) change. Descendants get the same predicate,
+ * without re-filtering. The leaves can optionally be tested in parallel, see
+ * {@link #setParallelThreshold(int)}.
+ * <p>
+ * 
+ * PENDING JW: modifications of the backing children of a descendant don't update
+ * the kept state of its ancestors, same as before.
  * 
  * @author Jeanette Winzenburg, Berlin
  */
 public class FilterableTreeItemX<T> extends TreeItemX<T> {
 
-    private ObjectProperty<TreeItemPredicate<T>> predicate = new SimpleObjectProperty<TreeItemPredicate<T>>();
+    private ObjectProperty<TreeItemPredicate<T>> predicate = new SimpleObjectProperty<TreeItemPredicate<T>>() {
+
+        @Override
+        protected void invalidated() {
+            predicateChanged();
+        }
+        
+    };
+
+    /** 
+     * the kept state of the backing children, lazily filled for new children,
+     * removed children are dropped on next predicate change
+     */
+    private Map<TreeItem<T>, Boolean> keptChildren = new IdentityHashMap<>();
+    /** flag to indicate that the predicate is set by the parent */
+    private boolean inheritingPredicate;
+    private int parallelThreshold = Integer.MAX_VALUE;
 
     
     /**
@@ -102,36 +138,169 @@ public class FilterableTreeItemX<T> extends TreeItemX<T> {
     protected ObservableList<TreeItem<T>> createChildrenList() {
         ObservableList<TreeItem<T>> internal = super.createChildrenList();
         FilteredListX<TreeItem<T>> filteredList = new FilteredListX(internal);
-        installPredicateBinding(filteredList);
+        installPredicate(filteredList);
         return filteredList;
     }
 
     /**
+     * Returns the number of leaves at and above which they are tested in
+     * parallel on setting the predicate of this.
+     * 
+     * @return the number of leaves to test in parallel
+     * @see #setParallelThreshold(int)
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Sets the number of leaves in the backing subtree at and above which 
+     * they are tested in parallel on setting the predicate of this. The
+     * default is Integer.MAX_VALUE, that is never.
+     * <p>
+     * Note: the predicate must be thread-safe if parallel.
+     * 
+     * @param threshold the number of leaves to switch to parallel evaluation, 
+     *    must be > 0
+     * @throws IllegalArgumentException if threshold < 1   
+     */
+    public void setParallelThreshold(int threshold) {
+        if (threshold < 1) 
+            throw new IllegalArgumentException("threshold must be > 0 but was: " + threshold);
+        this.parallelThreshold = threshold;
+    }
+
+    /**
+     * Installs the predicate of the filteredList, which looks up the kept 
+     * state of the child. 
+     * 
      * @param filteredList
      */
-    private void installPredicateBinding(FilteredListX<TreeItem<T>> filteredList) {
-        filteredList.predicateProperty().bind(Bindings.createObjectBinding(
-                () -> {
-                    return child -> {
-                            // Set the predicate of child items to force filtering
-                            if (child instanceof FilterableTreeItemX) {
-                                    FilterableTreeItemX<T> filterableChild = (FilterableTreeItemX<T>) child;
-                                    filterableChild.setPredicate(this.predicate.get());
-                            }
-                            // If there is no predicate, keep this tree item
-                            if (this.predicate.get() == null)
-                                    return true;
-                            // If there are children, keep this tree item
-                            if (child.getChildren().size() > 0)
-                                    return true;
-                            // Otherwise ask the TreeItemPredicate
-                            return this.predicate.get().test(this, child.getValue());
-                    };
-                }, 
-                this.predicate)
-        );
+    private void installPredicate(FilteredListX<TreeItem<T>> filteredList) {
+        // a new instance forces a refilter
+        filteredList.setPredicate(child -> isKept(child));
+    }
+
+    /**
+     * Returns the kept state of the child, filters the child if not 
+     * yet done (f.i. added after the last predicate change).
+     */
+    private boolean isKept(TreeItem<T> child) {
+        Boolean kept = keptChildren.get(child);
+        if (kept == null) {
+            kept = filterChild(child, getPredicate(), Collections.emptyMap());
+            keptChildren.put(child, kept);
+        }
+        return kept;
+    }
+
+    /**
+     * Called on change of the predicate. Filters the backing subtree 
+     * unless the predicate is inherited from the parent.
+     */
+    private void predicateChanged() {
+        if (inheritingPredicate) return;
+        TreeItemPredicate<T> p = getPredicate();
+        filter(p, p != null ? testLeafs(p) : Collections.emptyMap());
+    }
+
+    /**
+     * Filters the backing subtree of this bottom-up: filters the subtrees
+     * of the children, then updates the filteredList of this.
+     * 
+     * @param p the predicate, may be null
+     * @param matches the precomputed results of leaves
+     * @return true if any child is kept
+     */
+    private boolean filter(TreeItemPredicate<T> p, Map<TreeItem<T>, Boolean> matches) {
+        Map<TreeItem<T>, Boolean> kept = new IdentityHashMap<>();
+        boolean any = false;
+        for (TreeItem<T> child : getBackingChildren()) {
+            boolean keep = filterChild(child, p, matches);
+            kept.put(child, keep);
+            any |= keep;
+        }
+        keptChildren = kept;
+        installPredicate(getChildren());
+        return any;
+    }
+
+    /**
+     * Returns whether the child is kept with the given predicate, filters
+     * the subtree of the child first if it is filterable.
+     * 
+     * @param child the child to filter
+     * @param p the predicate, may be null
+     * @param matches the precomputed results of leaves
+     * @return true if the child is kept
+     */
+    private boolean filterChild(TreeItem<T> child, TreeItemPredicate<T> p, 
+            Map<TreeItem<T>, Boolean> matches) {
+        boolean hasKeptChildren;
+        if (child instanceof FilterableTreeItemX) {
+            FilterableTreeItemX<T> filterableChild = (FilterableTreeItemX<T>) child;
+            filterableChild.inheritPredicate(p);
+            hasKeptChildren = filterableChild.filter(p, matches);
+        } else {
+            hasKeptChildren = !child.getChildren().isEmpty();
+        }
+        // If there is no predicate or there are children, keep this tree item
+        if (p == null || hasKeptChildren) return true;
+        // Otherwise ask the TreeItemPredicate
+        Boolean match = matches.get(child);
+        return match != null ? match : p.test(this, child.getValue());
+    }
 
+    private void inheritPredicate(TreeItemPredicate<T> p) {
+        if (predicate.isBound()) return;
+        inheritingPredicate = true;
+        try {
+            setPredicate(p);
+        } finally {
+            inheritingPredicate = false;
+        }
     }
 
+    /**
+     * Tests all leaves of the backing subtree in parallel if there are at
+     * least parallelThreshold. 
+     * 
+     * @return the results by leaf, empty if below the threshold
+     */
+    private Map<TreeItem<T>, Boolean> testLeafs(TreeItemPredicate<T> p) {
+        if (parallelThreshold == Integer.MAX_VALUE) return Collections.emptyMap();
+        List<TreeItem<T>> leafs = new ArrayList<>();
+        List<TreeItem<T>> parents = new ArrayList<>();
+        collectLeafs(leafs, parents);
+        if (leafs.size() < parallelThreshold) return Collections.emptyMap();
+        boolean[] results = new boolean[leafs.size()];
+        IntStream.range(0, results.length).parallel()
+            .forEach(i -> results[i] = p.test(parents.get(i), leafs.get(i).getValue()));
+        Map<TreeItem<T>, Boolean> matches = new IdentityHashMap<>(results.length);
+        for (int i = 0; i < results.length; i++) {
+            matches.put(leafs.get(i), results[i]);
+        }
+        return matches;
+    }
+
+    /**
+     * Collects the leaves of the backing subtree and their parents. Non-filterable
+     * children with children are kept anyway, their subtree is not traversed.
+     */
+    private void collectLeafs(List<TreeItem<T>> leafs, List<TreeItem<T>> parents) {
+        for (TreeItem<T> child : getBackingChildren()) {
+            if (child instanceof FilterableTreeItemX) {
+                FilterableTreeItemX<T> filterableChild = (FilterableTreeItemX<T>) child;
+                if (!filterableChild.getBackingChildren().isEmpty()) {
+                    filterableChild.collectLeafs(leafs, parents);
+                    continue;
+                }
+            } else if (!child.getChildren().isEmpty()) {
+                continue;
+            }
+            leafs.add(child);
+            parents.add(this);
+        }
+    }
 
 }
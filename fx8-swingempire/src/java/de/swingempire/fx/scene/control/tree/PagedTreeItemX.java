@@ -0,0 +1,327 @@
+/*
+ * Created on 17.10.2026
+ *
+ */
+package de.swingempire.fx.scene.control.tree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Predicate;
+
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+import javafx.scene.Node;
+import javafx.scene.control.FocusModel;
+import javafx.scene.control.MultipleSelectionModel;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeView;
+
+/**
+ * TreeItemX with lazily created children, backed by a ChildrenLoader.
+ * <p>
+ *
+ * The children list is unmodifiable, its size is queried from the loader
+ * on first access. Children are created in pages of pageSize on access by
+ * index, that is typically when a VirtualFlow asks for the items of the
+ * visible rows. Once more than maxPages pages are created, the least
+ * recently accessed pages are dropped, except those with expanded children
+ * or children matching the retainPredicate. Items referenced elsewhere, 
+ * typically selected or focused in a TreeView, must be retained
+ * (see {@link #selectedOrFocused(TreeView)}): dropping them would leave
+ * stale items in the selection.
+ * Dropped children are detached (their parent set to null), accessing the
+ * same index again creates a new item. Collapsed children always have an
+ * expanded count of 1, so dropping doesn't change any count and doesn't
+ * fire a change. Any state of the descendants of a dropped child is lost.
+ * <p>
+ *
+ * The row index of TreeItemX doesn't create children (not yet created children
+ * are collapsed by definition), so TreeItemX.getRow/getTreeItem,
+ * TreeIndicesList and TreeIndexMappedList touch only the pages on the path.
+ * The expanded descendant count is overridden to sum up the row index, 
+ * an expanded item counts its children from the child count without 
+ * creating any page.
+ * <p>
+ *
+ * PENDING JW: core TreeItem's own (private) recalculation of the expanded 
+ * descendant count, as used by core TreeView.getExpandedItemCount, iterates 
+ * all children, as does core TreeView.getTreeItem(row) for the children 
+ * before the row. Both create and drop all pages on the way, that is memory 
+ * stays bounded but time is linear in the child count. There's no way to 
+ * hook into core here.
+ * <p>
+ *
+ * PENDING JW: no support for changes of the backing data (nor the value)
+ * - would need a replace of all children.
+ *
+ * @see ChildrenLoader
+ */
+public class PagedTreeItemX<T> extends TreeItemX<T> {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int DEFAULT_MAX_PAGES = 10;
+
+    private final ChildrenLoader<T> loader;
+    private final int pageSize;
+    private final int maxPages;
+
+    private PagedChildren pagedChildren;
+    private Predicate<? super TreeItem<T>> retainPredicate;
+
+    /**
+     * Instantiates a PagedTreeItemX with default page size and max pages.
+     *
+     * @param value the value of this item
+     * @param loader the loader of the children, must not be null
+     */
+    public PagedTreeItemX(T value, ChildrenLoader<T> loader) {
+        this(value, null, loader, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    /**
+     * @param value the value of this item
+     * @param graphic the graphic of this item
+     * @param loader the loader of the children, must not be null
+     * @param pageSize the number of children created at once, must be &gt; 0
+     * @param maxPages the number of pages to keep, must be &gt; 0
+     *
+     * @throws IllegalArgumentException if any of the parameters is invalid
+     */
+    public PagedTreeItemX(T value, Node graphic, ChildrenLoader<T> loader,
+            int pageSize, int maxPages) {
+        super(value, graphic);
+        if (loader == null)
+            throw new IllegalArgumentException("loader must not be null");
+        if (pageSize <= 0 || maxPages <= 0)
+            throw new IllegalArgumentException("pageSize and maxPages must be > 0 "
+                    + "but were: " + pageSize + " / " + maxPages);
+        this.loader = loader;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * Overridden to report leafness from the child count, without
+     * creating any child.
+     */
+    @Override
+    public boolean isLeaf() {
+        return getChildren().isEmpty();
+    }
+
+    /**
+     * Overridden to sum up the expanded counts of the children from the
+     * row index, without creating any child: core iterates all children.
+     */
+    @Override
+    public int getExpandedDescendantCount() {
+        if (isLeaf() || !isExpanded()) return 1;
+        return 1 + getExpandedChildCount();
+    }
+
+    /**
+     * Returns the predicate of children to keep when dropping pages.
+     *
+     * @return the predicate of children to keep, may be null
+     * @see #setRetainPredicate(Predicate)
+     */
+    public Predicate<? super TreeItem<T>> getRetainPredicate() {
+        return retainPredicate;
+    }
+
+    /**
+     * Sets the predicate of children to keep when dropping pages: a page
+     * with any child matching the predicate is not dropped, same as a page
+     * with expanded children. Children created by createChild inherit the
+     * predicate. Default is null, that is keep expanded only.
+     *
+     * @param predicate the predicate of children to keep, may be null
+     * @see #selectedOrFocused(TreeView)
+     */
+    public void setRetainPredicate(Predicate<? super TreeItem<T>> predicate) {
+        this.retainPredicate = predicate;
+    }
+
+    /**
+     * Returns a predicate that matches items which are selected or
+     * focused in the given tree, looked up by their row.
+     *
+     * @param tree the tree to check selection and focus
+     * @return a predicate matching selected or focused items
+     */
+    public static <T> Predicate<TreeItem<T>> selectedOrFocused(TreeView<T> tree) {
+        return item -> {
+            int row = TreeItemX.getRow(tree, item);
+            if (row < 0) return false;
+            MultipleSelectionModel<TreeItem<T>> selection = tree.getSelectionModel();
+            FocusModel<TreeItem<T>> focus = tree.getFocusModel();
+            return (selection != null && selection.isSelected(row))
+                    || (focus != null && focus.isFocused(row));
+        };
+    }
+
+    /**
+     * Returns true if the child at the index is created and kept, false
+     * otherwise.
+     *
+     * @param index the position of the child
+     * @return true if the child at the index is created
+     */
+    public boolean isLoaded(int index) {
+        return getPagedChildren().isLoaded(index);
+    }
+
+    /**
+     * Overridden to not create the child: not yet created children are
+     * collapsed.
+     */
+    @Override
+    protected int getChildExpandedCount(int index) {
+        if (!isLoaded(index)) return 1;
+        return super.getChildExpandedCount(index);
+    }
+
+    /**
+     * Creates and returns the child item for the given value. This
+     * implementation returns a PagedTreeItemX with the same loader,
+     * pageSize, maxPages and retainPredicate as this.
+     *
+     * @param value the value of the child
+     * @return the child item
+     */
+    protected TreeItem<T> createChild(T value) {
+        PagedTreeItemX<T> child = new PagedTreeItemX<>(value, null, loader, pageSize, maxPages);
+        child.setRetainPredicate(retainPredicate);
+        return child;
+    }
+
+    /**
+     * Overridden to return the paged list.
+     */
+    @Override
+    protected ObservableList<TreeItem<T>> createChildrenList() {
+        pagedChildren = new PagedChildren();
+        return pagedChildren;
+    }
+
+    private PagedChildren getPagedChildren() {
+        // force replacement of super's children
+        getChildren();
+        return pagedChildren;
+    }
+
+    /**
+     * Unmodifiable list of children, created in pages on access.
+     */
+    private class PagedChildren extends ObservableListBase<TreeItem<T>> {
+
+        /** the created pages in access order, eldest first */
+        private final Map<Integer, List<TreeItem<T>>> pages =
+                new LinkedHashMap<>(16, 0.75f, true);
+        private int size = -1;
+
+        @Override
+        public TreeItem<T> get(int index) {
+            if (index < 0 || index >= size())
+                throw new IndexOutOfBoundsException("index must be not negative "
+                        + "and less than size " + size() + ", but was: " + index);
+            int page = index / pageSize;
+            List<TreeItem<T>> items = pages.get(page);
+            if (items == null) {
+                items = loadPage(page);
+            }
+            return items.get(index - page * pageSize);
+        }
+
+        @Override
+        public int size() {
+            if (size < 0) {
+                size = loader.getChildCount(getValue());
+                invokeSetLeaf(size == 0);
+            }
+            return size;
+        }
+
+        /**
+         * Overridden to search the created pages only, all other children
+         * are either not yet created or dropped.
+         */
+        @Override
+        public int indexOf(Object o) {
+            for (Entry<Integer, List<TreeItem<T>>> entry : pages.entrySet()) {
+                int index = entry.getValue().indexOf(o);
+                if (index >= 0) return entry.getKey() * pageSize + index;
+            }
+            return -1;
+        }
+
+        /**
+         * Overridden to search the created pages only, children are unique.
+         */
+        @Override
+        public int lastIndexOf(Object o) {
+            return indexOf(o);
+        }
+
+        boolean isLoaded(int index) {
+            return pages.containsKey(index / pageSize);
+        }
+
+        /**
+         * Creates the children of the page and drops the eldest if
+         * too many.
+         */
+        private List<TreeItem<T>> loadPage(int page) {
+            int from = page * pageSize;
+            int to = Math.min(size(), from + pageSize);
+            List<T> values = loader.getChildren(getValue(), from, to);
+            if (values.size() != to - from)
+                throw new IllegalStateException("loader must return " + (to - from)
+                        + " children for range [" + from + ", " + to + ") but was: "
+                        + values.size());
+            List<TreeItem<T>> items = new ArrayList<>(values.size());
+            for (T value : values) {
+                items.add(createChild(value));
+            }
+            invokeUpdateChildrenParent(items, PagedTreeItemX.this);
+            pages.put(page, items);
+            evict(page);
+            return items;
+        }
+
+        /**
+         * Drops the least recently accessed pages without retained
+         * children until at most maxPages are left (or none droppable).
+         * <p>
+         * Walks a copy of the entries: the retainPredicate might access
+         * children, which changes the access order.
+         */
+        private void evict(int current) {
+            if (pages.size() <= maxPages) return;
+            List<Entry<Integer, List<TreeItem<T>>>> eldestFirst = new ArrayList<>(pages.entrySet());
+            Iterator<Entry<Integer, List<TreeItem<T>>>> iter = eldestFirst.iterator();
+            while (pages.size() > maxPages && iter.hasNext()) {
+                Entry<Integer, List<TreeItem<T>>> entry = iter.next();
+                if (entry.getKey() == current || hasRetained(entry.getValue())) continue;
+                pages.remove(entry.getKey());
+                invokeUpdateChildrenParent(entry.getValue(), null);
+            }
+        }
+
+        /**
+         * Returns true if any of the items is expanded or matches the 
+         * retainPredicate.
+         */
+        private boolean hasRetained(List<TreeItem<T>> items) {
+            for (TreeItem<T> item : items) {
+                if (item.isExpanded()) return true;
+                if (retainPredicate != null && retainPredicate.test(item)) return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,575 @@
+/*
+ * Created on 17.10.2026
+ *
+ */
+package de.swingempire.fx.scene.control.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.collections.ListChangeListener.Change;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.TransformationList;
+import javafx.event.EventHandler;
+import javafx.scene.Node;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeItem.TreeModificationEvent;
+
+/**
+ * TreeItemX with sorted children: the children are a sorted view over the
+ * backing children, modifications must go to the backing children.
+ * <p>
+ *
+ * The children are sorted by the comparator of this or, if not set, by the
+ * comparator inherited from the parent (if sortable). Without any, the
+ * children are in the order of the backing children.
+ * <p>
+ *
+ * Re-sorting is incremental and stable: a child whose value changed is
+ * re-positioned by binary search, value changes inside
+ * {@link #batchUpdate(Runnable)} are sorted among themselves (in parallel if
+ * at least parallelThreshold) and merged into the unchanged children. Every
+ * re-sort fires a single permutation, TreeIndicesList/TreeIndexMappedList
+ * keep the selection. Additions are merged at their sorted position,
+ * removals done in a single pass. Children are located by an identity
+ * map of their positions, not by scanning.
+ * <p>
+ *
+ * PENDING JW: a permutation of the backing children doesn't change the order
+ * of sorted children, not even of equal ones.
+ *
+ * @see TreeItemComparator
+ * @see FilterableTreeItemX
+ */
+public class SortableTreeItemX<T> extends TreeItemX<T> {
+
+    private ObjectProperty<TreeItemComparator<T>> comparator = new SimpleObjectProperty<TreeItemComparator<T>>() {
+
+        @Override
+        protected void invalidated() {
+            effectiveComparatorChanged();
+        }
+
+    };
+
+    private EventHandler<TreeModificationEvent<T>> valueListener = e -> childValueChanged(e.getTreeItem());
+
+    private int parallelThreshold = Integer.MAX_VALUE;
+    /** nesting depth of batchUpdate */
+    private int batchDepth;
+    /** children with value changed during a batch */
+    private Set<TreeItem<T>> changedChildren = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     *
+     */
+    public SortableTreeItemX() {
+        super();
+        addEventHandler(TreeItem.valueChangedEvent(), valueListener);
+    }
+
+    /**
+     * @param value
+     * @param graphic
+     */
+    public SortableTreeItemX(T value, Node graphic) {
+        super(value, graphic);
+        addEventHandler(TreeItem.valueChangedEvent(), valueListener);
+    }
+
+    /**
+     * @param value
+     */
+    public SortableTreeItemX(T value) {
+        super(value);
+        addEventHandler(TreeItem.valueChangedEvent(), valueListener);
+    }
+
+    /**
+     * @return the comparator property
+     */
+    public final ObjectProperty<TreeItemComparator<T>> comparatorProperty() {
+        return comparator;
+    }
+
+    /**
+     * @return the comparator of this, may be null
+     */
+    public final TreeItemComparator<T> getComparator() {
+        return comparator.get();
+    }
+
+    /**
+     * Sets the comparator of this, null to inherit the comparator of the
+     * parent.
+     *
+     * @param comparator the comparator
+     */
+    public final void setComparator(TreeItemComparator<T> comparator) {
+        this.comparator.set(comparator);
+    }
+
+    /**
+     * Returns the comparator used to sort the children: the comparator of
+     * this if set, the effective comparator of the parent if sortable,
+     * null otherwise.
+     *
+     * @return the comparator used to sort the children, may be null
+     */
+    public TreeItemComparator<T> getEffectiveComparator() {
+        TreeItemComparator<T> own = getComparator();
+        if (own != null) return own;
+        TreeItem<T> parent = getParent();
+        return parent instanceof SortableTreeItemX ?
+                ((SortableTreeItemX<T>) parent).getEffectiveComparator() : null;
+    }
+
+    /**
+     * Returns the source list of children.
+     *
+     * @return
+     */
+    public ObservableList<TreeItem<T>> getBackingChildren() {
+        return (ObservableList<TreeItem<T>>) getSortedChildren().getSource();
+    }
+
+    /**
+     * Returns the number of changed children at and above which they are
+     * sorted in parallel in batchUpdate.
+     *
+     * @return the number of changed children to sort in parallel
+     * @see #setParallelThreshold(int)
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Sets the number of changed children at and above which they are
+     * sorted in parallel in batchUpdate. The default is Integer.MAX_VALUE,
+     * that is never.
+     * <p>
+     * Note: the comparator must be thread-safe if parallel.
+     *
+     * @param threshold the number of changed children to switch to parallel
+     *    sorting, must be > 0
+     * @throws IllegalArgumentException if threshold < 1
+     */
+    public void setParallelThreshold(int threshold) {
+        if (threshold < 1)
+            throw new IllegalArgumentException("threshold must be > 0 but was: " + threshold);
+        this.parallelThreshold = threshold;
+    }
+
+    /**
+     * Runs the updates and re-sorts the children whose value changed
+     * meanwhile at once, firing a single permutation. Nested batches are
+     * re-sorted when the outermost ends.
+     *
+     * @param updates the updates to run, typically changing values of children
+     */
+    public void batchUpdate(Runnable updates) {
+        batchDepth++;
+        try {
+            updates.run();
+        } finally {
+            batchDepth--;
+        }
+        if (batchDepth > 0 || changedChildren.isEmpty()) return;
+        Set<TreeItem<T>> changed = changedChildren;
+        changedChildren = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (getEffectiveComparator() == null) return;
+        getSortedChildren().resortChanged(changed);
+    }
+
+    @Override
+    protected ObservableList<TreeItem<T>> createChildrenList() {
+        return new SortedChildren(super.createChildrenList());
+    }
+
+    /**
+     * Overridden to update the inherited comparator of sortable children
+     * added or removed.
+     */
+    @Override
+    protected void childrenChanged(Change<? extends TreeItem<T>> c) {
+        super.childrenChanged(c);
+        c.reset();
+        while (c.next()) {
+            if (c.wasPermutated() || c.wasUpdated()) continue;
+            inheritedComparatorChanged(c.getRemoved());
+            inheritedComparatorChanged(c.getAddedSubList());
+        }
+    }
+
+    private void inheritedComparatorChanged(List<? extends TreeItem<T>> children) {
+        for (TreeItem<T> child : children) {
+            if (child instanceof SortableTreeItemX
+                    && ((SortableTreeItemX<T>) child).getComparator() == null) {
+                ((SortableTreeItemX<T>) child).effectiveComparatorChanged();
+            }
+        }
+    }
+
+    /**
+     * Called on change of the effective comparator. Re-sorts the children
+     * and notifies the sortable children that inherit the comparator.
+     */
+    private void effectiveComparatorChanged() {
+        getSortedChildren().resort();
+        inheritedComparatorChanged(getBackingChildren());
+    }
+
+    /**
+     * Called on receiving a valueChanged event from this or any descendant.
+     * Re-positions the child if the event is from a child, defers to the end
+     * of the batch if any.
+     */
+    private void childValueChanged(TreeItem<T> child) {
+        if (child == null || child.getParent() != this) return;
+        if (batchDepth > 0) {
+            changedChildren.add(child);
+            return;
+        }
+        if (getEffectiveComparator() == null) return;
+        getSortedChildren().reposition(child);
+    }
+
+    private SortedChildren getSortedChildren() {
+        return (SortedChildren) getChildren();
+    }
+
+    /**
+     * Sorted view of the backing children.
+     */
+    private class SortedChildren extends TransformationList<TreeItem<T>, TreeItem<T>> {
+
+        private List<TreeItem<T>> sorted;
+        /** position of each child in sorted, null if invalid */
+        private Map<TreeItem<T>, Integer> positions;
+
+        SortedChildren(ObservableList<TreeItem<T>> source) {
+            super(source);
+            sorted = new ArrayList<>(source);
+            TreeItemComparator<T> cmp = getEffectiveComparator();
+            if (cmp != null) {
+                sorted.sort(createComparator(cmp));
+            }
+        }
+
+        @Override
+        public TreeItem<T> get(int index) {
+            return sorted.get(index);
+        }
+
+        @Override
+        public int size() {
+            return sorted.size();
+        }
+
+        @Override
+        public int getSourceIndex(int index) {
+            return indexOfItem(getSource(), sorted.get(index));
+        }
+
+        @Override
+        protected void sourceChanged(Change<? extends TreeItem<T>> c) {
+            TreeItemComparator<T> cmp = getEffectiveComparator();
+            beginChange();
+            while (c.next()) {
+                if (cmp == null) {
+                    forward(c);
+                } else if (c.wasPermutated()) {
+                    // order is independent of the backing order
+                } else if (c.wasUpdated()) {
+                    for (int i = c.getFrom(); i < c.getTo(); i++) {
+                        reposition(c.getList().get(i));
+                    }
+                } else {
+                    removeChildren(c.getRemoved());
+                    addChildren(c.getAddedSubList(), createComparator(cmp));
+                }
+            }
+            endChange();
+        }
+
+        /**
+         * Removes the children in a single pass, firing a remove for each.
+         * 
+         * @throws IllegalStateException if any of the children is not 
+         *    contained
+         */
+        private void removeChildren(List<? extends TreeItem<T>> children) {
+            if (children.isEmpty()) return;
+            Set<TreeItem<T>> toRemove = Collections.newSetFromMap(new IdentityHashMap<>());
+            toRemove.addAll(children);
+            int write = 0;
+            for (int read = 0; read < sorted.size(); read++) {
+                TreeItem<T> child = sorted.get(read);
+                if (toRemove.remove(child)) {
+                    nextRemove(write, child);
+                } else {
+                    sorted.set(write++, child);
+                }
+            }
+            sorted.subList(write, sorted.size()).clear();
+            positions = null;
+            if (!toRemove.isEmpty())
+                throw new IllegalStateException("removed children not in sorted children " + toRemove);
+        }
+
+        /**
+         * Inserts the children at their sorted position: sorts them among 
+         * themselves and merges them into the existing, existing first if 
+         * equal. Fires an add for each.
+         */
+        private void addChildren(List<? extends TreeItem<T>> children, 
+                Comparator<TreeItem<T>> comparator) {
+            if (children.isEmpty()) return;
+            TreeItem<T>[] added = sort(new ArrayList<TreeItem<T>>(children), comparator);
+            List<TreeItem<T>> merged = new ArrayList<>(sorted.size() + added.length);
+            int i = 0;
+            int j = 0;
+            while (i < sorted.size() || j < added.length) {
+                if (j == added.length || (i < sorted.size()
+                        && comparator.compare(sorted.get(i), added[j]) <= 0)) {
+                    merged.add(sorted.get(i++));
+                } else {
+                    nextAdd(merged.size(), merged.size() + 1);
+                    merged.add(added[j++]);
+                }
+            }
+            sorted = merged;
+            positions = null;
+        }
+
+        /**
+         * Returns the position of the child in sorted or -1 if not 
+         * contained. Looked up in the positions map, which is re-built 
+         * if invalid.
+         */
+        private int indexOfChild(TreeItem<T> child) {
+            if (positions == null) {
+                positions = new IdentityHashMap<>(sorted.size());
+                updatePositions(0, sorted.size());
+            }
+            Integer index = positions.get(child);
+            return index != null ? index : -1;
+        }
+
+        /**
+         * Updates the positions map for the children in [from, to) of 
+         * sorted. Does nothing if the map is invalid.
+         */
+        private void updatePositions(int from, int to) {
+            if (positions == null) return;
+            for (int i = from; i < to; i++) {
+                positions.put(sorted.get(i), i);
+            }
+        }
+
+        /**
+         * Applies the change to this unsorted, that is same order as source.
+         */
+        private void forward(Change<? extends TreeItem<T>> c) {
+            if (!c.wasUpdated()) {
+                positions = null;
+            }
+            int from = c.getFrom();
+            int to = c.getTo();
+            if (c.wasPermutated()) {
+                int[] perm = new int[to - from];
+                List<TreeItem<T>> old = new ArrayList<>(sorted.subList(from, to));
+                for (int i = from; i < to; i++) {
+                    perm[i - from] = c.getPermutation(i);
+                    sorted.set(perm[i - from], old.get(i - from));
+                }
+                nextPermutation(from, to, perm);
+            } else if (c.wasUpdated()) {
+                for (int i = from; i < to; i++) {
+                    nextUpdate(i);
+                }
+            } else {
+                if (c.wasRemoved()) {
+                    sorted.subList(from, from + c.getRemovedSize()).clear();
+                    nextRemove(from, c.getRemoved());
+                }
+                if (c.wasAdded()) {
+                    sorted.addAll(from, c.getAddedSubList());
+                    nextAdd(from, to);
+                }
+            }
+        }
+
+        /**
+         * Re-positions the child after its value changed. Moves it left or
+         * right by binary search such that its position relative to equal
+         * children is unchanged, same as a stable sort. Fires a single
+         * permutation if moved.
+         */
+        void reposition(TreeItem<T> child) {
+            int old = indexOfChild(child);
+            if (old < 0) return;
+            Comparator<TreeItem<T>> comparator = createComparator(getEffectiveComparator());
+            int index = old;
+            if (old > 0 && comparator.compare(sorted.get(old - 1), child) > 0) {
+                index = upperBound(child, 0, old - 1, comparator);
+            } else if (old < sorted.size() - 1
+                    && comparator.compare(child, sorted.get(old + 1)) > 0) {
+                // first greater or equal, shifted by the removal of the child
+                index = lowerBound(child, old + 2, sorted.size(), comparator) - 1;
+            }
+            if (index == old) return;
+            sorted.remove(old);
+            sorted.add(index, child);
+            int from = Math.min(old, index);
+            int to = Math.max(old, index) + 1;
+            updatePositions(from, to);
+            int[] perm = new int[to - from];
+            for (int i = from; i < to; i++) {
+                perm[i - from] = i == old ? index : (old < index ? i - 1 : i + 1);
+            }
+            beginChange();
+            nextPermutation(from, to, perm);
+            endChange();
+        }
+
+        /**
+         * Re-sorts the changed children: sorts them among themselves,
+         * in parallel if at least parallelThreshold, and merges them
+         * into the unchanged. Unchanged come first if equal.
+         */
+        void resortChanged(Set<TreeItem<T>> changed) {
+            if (changed.size() == 1) {
+                reposition(changed.iterator().next());
+                return;
+            }
+            Comparator<TreeItem<T>> comparator = createComparator(getEffectiveComparator());
+            List<TreeItem<T>> unchanged = new ArrayList<>(sorted.size());
+            List<TreeItem<T>> batch = new ArrayList<>(changed.size());
+            for (TreeItem<T> child : sorted) {
+                (changed.contains(child) ? batch : unchanged).add(child);
+            }
+            TreeItem<T>[] batchArray = sort(batch, comparator);
+            List<TreeItem<T>> merged = new ArrayList<>(sorted.size());
+            int i = 0;
+            int j = 0;
+            while (i < unchanged.size() || j < batchArray.length) {
+                if (j == batchArray.length || (i < unchanged.size()
+                        && comparator.compare(unchanged.get(i), batchArray[j]) <= 0)) {
+                    merged.add(unchanged.get(i++));
+                } else {
+                    merged.add(batchArray[j++]);
+                }
+            }
+            reorder(merged);
+        }
+
+        /**
+         * Re-sorts all children by the effective comparator, stable
+         * relative to the current order, or restores the order of the source
+         * if there is none.
+         */
+        void resort() {
+            TreeItemComparator<T> cmp = getEffectiveComparator();
+            if (cmp == null) {
+                reorder(new ArrayList<>(getSource()));
+            } else {
+                reorder(Arrays.asList(sort(sorted, createComparator(cmp))));
+            }
+        }
+
+        /**
+         * Stable sort of a copy of the items, in parallel if at least
+         * parallelThreshold.
+         */
+        private TreeItem<T>[] sort(List<TreeItem<T>> items, Comparator<TreeItem<T>> comparator) {
+            TreeItem<T>[] array = items.toArray(new TreeItem[items.size()]);
+            if (array.length >= parallelThreshold) {
+                Arrays.parallelSort(array, comparator);
+            } else {
+                Arrays.sort(array, comparator);
+            }
+            return array;
+        }
+
+        /**
+         * Changes the order of this to the target, which must contain the
+         * same children. Fires a single permutation over the range of
+         * changed positions.
+         */
+        private void reorder(List<TreeItem<T>> target) {
+            int from = 0;
+            int to = sorted.size();
+            while (from < to && sorted.get(from) == target.get(from)) from++;
+            if (from == to) return;
+            while (sorted.get(to - 1) == target.get(to - 1)) to--;
+            Map<TreeItem<T>, Integer> newIndices = new IdentityHashMap<>();
+            for (int i = from; i < to; i++) {
+                newIndices.put(target.get(i), i);
+            }
+            int[] perm = new int[to - from];
+            for (int i = from; i < to; i++) {
+                perm[i - from] = newIndices.get(sorted.get(i));
+            }
+            sorted = new ArrayList<>(target);
+            updatePositions(from, to);
+            beginChange();
+            nextPermutation(from, to, perm);
+            endChange();
+        }
+
+        private Comparator<TreeItem<T>> createComparator(TreeItemComparator<T> cmp) {
+            return (a, b) -> cmp.compare(SortableTreeItemX.this, a.getValue(), b.getValue());
+        }
+
+        /**
+         * Returns the first position in [from, to) with an item greater than
+         * the child, to if none.
+         */
+        private int upperBound(TreeItem<T> child, int from, int to, Comparator<TreeItem<T>> comparator) {
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                if (comparator.compare(sorted.get(mid), child) <= 0) {
+                    from = mid + 1;
+                } else {
+                    to = mid;
+                }
+            }
+            return from;
+        }
+
+        /**
+         * Returns the first position in [from, to) with an item greater than
+         * or equal to the child, to if none.
+         */
+        private int lowerBound(TreeItem<T> child, int from, int to, Comparator<TreeItem<T>> comparator) {
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                if (comparator.compare(sorted.get(mid), child) < 0) {
+                    from = mid + 1;
+                } else {
+                    to = mid;
+                }
+            }
+            return from;
+        }
+
+    }
+
+    private static <T> int indexOfItem(List<? extends TreeItem<T>> list, TreeItem<T> item) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == item) return i;
+        }
+        return -1;
+    }
+
+}
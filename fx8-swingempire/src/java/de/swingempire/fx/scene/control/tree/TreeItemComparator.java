@@ -0,0 +1,27 @@
+/*
+ * Created on 17.10.2026
+ *
+ */
+package de.swingempire.fx.scene.control.tree;
+
+import java.util.Comparator;
+
+import javafx.scene.control.TreeItem;
+
+/**
+ * Compares the values of the children of a TreeItem, counterpart
+ * of TreeItemPredicate for sorting.
+ *
+ * @see SortableTreeItemX
+ * @see TreeItemPredicate
+ */
+@FunctionalInterface
+public interface TreeItemComparator<T> {
+
+    int compare(TreeItem<T> parent, T value1, T value2);
+
+    static <T> TreeItemComparator<T> create(Comparator<? super T> comparator) {
+        return (parent, value1, value2) -> comparator.compare(value1, value2);
+    }
+
+}
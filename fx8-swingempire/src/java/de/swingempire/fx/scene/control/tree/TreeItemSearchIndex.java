@@ -0,0 +1,332 @@
+/*
+ * Created on 17.10.2026
+ *
+ */
+package de.swingempire.fx.scene.control.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TreeItem;
+
+/**
+ * Case-insensitive substring index over the values of a tree, based on
+ * trigrams. Kept up-to-date with the tree by listening to the value and
+ * children of every indexed item.
+ * <p>
+ *
+ * A search looks up the items containing all trigrams of the query and
+ * verifies the candidates, collecting the offsets of all occurrences (so
+ * a cell can highlight them without scanning the text again). Queries shorter
+ * than a trigram scan all texts. The result can be used as predicate of a
+ * FilterableTreeItemX.
+ * <p>
+ *
+ * The children of a FilterableTreeItemX are indexed from its backing children,
+ * that is filtering doesn't change the index.
+ * <p>
+ *
+ * Folding to lower case is per char, so the offsets are valid for the
+ * converted text of the value.
+ * <p>
+ *
+ * PENDING JW: indexes all children, not suited for lazily created children
+ * (PagedTreeItemX).
+ *
+ * @see FilterableTreeItemX
+ */
+public class TreeItemSearchIndex<T> {
+
+    private static final int GRAM = 3;
+
+    private final TreeItem<T> root;
+    private final Function<? super T, String> converter;
+    private final Map<TreeItem<T>, Entry> entries = new IdentityHashMap<>();
+    private final Map<String, Set<TreeItem<T>>> postings = new HashMap<>();
+
+    /**
+     * Indexes the values of the tree rooted at root, converted by
+     * String.valueOf.
+     *
+     * @param root the root of the tree to index
+     */
+    public TreeItemSearchIndex(TreeItem<T> root) {
+        this(root, String::valueOf);
+    }
+
+    /**
+     * Indexes the values of the tree rooted at root, converted by the
+     * given converter.
+     *
+     * @param root the root of the tree to index, must not be null
+     * @param converter the converter of values to text, must not be null
+     *
+     * @throws IllegalArgumentException if root or converter is null
+     */
+    public TreeItemSearchIndex(TreeItem<T> root, Function<? super T, String> converter) {
+        if (root == null || converter == null)
+            throw new IllegalArgumentException("root and converter must not be null");
+        this.root = root;
+        this.converter = converter;
+        indexSubtree(root);
+    }
+
+    /**
+     * Returns the matches of the query, that is all indexed items whose
+     * text contains the query, ignoring case.
+     *
+     * @param query the text to search, must not be null
+     * @return the matches of the query, empty for an empty query
+     */
+    public Matches<T> search(String query) {
+        String folded = fold(query);
+        Map<TreeItem<T>, int[]> offsets = new IdentityHashMap<>();
+        if (folded.isEmpty()) return new Matches<>(folded, offsets);
+        for (TreeItem<T> item : getCandidates(folded)) {
+            int[] found = findOffsets(entries.get(item).text, folded);
+            if (found.length > 0) {
+                offsets.put(item, found);
+            }
+        }
+        return new Matches<>(folded, offsets);
+    }
+
+    /**
+     * Returns the number of indexed items.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all listeners from the tree and clears the index.
+     */
+    public void dispose() {
+        unindexSubtree(root);
+    }
+
+    /**
+     * Returns the items that contain all trigrams of the query, all items
+     * if the query is shorter than a trigram.
+     */
+    private Set<TreeItem<T>> getCandidates(String folded) {
+        if (folded.length() < GRAM) return entries.keySet();
+        Set<TreeItem<T>> smallest = null;
+        List<Set<TreeItem<T>>> all = new ArrayList<>();
+        for (int i = 0; i + GRAM <= folded.length(); i++) {
+            Set<TreeItem<T>> posting = postings.get(folded.substring(i, i + GRAM));
+            if (posting == null) return Collections.emptySet();
+            all.add(posting);
+            if (smallest == null || posting.size() < smallest.size()) smallest = posting;
+        }
+        Set<TreeItem<T>> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+        outer:
+        for (TreeItem<T> item : smallest) {
+            for (Set<TreeItem<T>> posting : all) {
+                if (!posting.contains(item)) continue outer;
+            }
+            candidates.add(item);
+        }
+        return candidates;
+    }
+
+    private static int[] findOffsets(String text, String folded) {
+        int[] offsets = new int[0];
+        int count = 0;
+        for (int i = text.indexOf(folded); i >= 0; i = text.indexOf(folded, i + 1)) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, Math.max(2, 2 * count));
+            }
+            offsets[count++] = i;
+        }
+        return count == offsets.length ? offsets : Arrays.copyOf(offsets, count);
+    }
+
+    /**
+     * Returns the text lower-cased per char, that is with the same length.
+     */
+    private static String fold(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private String getText(TreeItem<T> item) {
+        T value = item.getValue();
+        if (value == null) return "";
+        String text = converter.apply(value);
+        return text != null ? fold(text) : "";
+    }
+
+//------------------ maintain index
+
+    /**
+     * Returns the children to index: the backing children of a
+     * FilterableTreeItemX, the children otherwise.
+     */
+    private ObservableList<TreeItem<T>> getSourceChildren(TreeItem<T> item) {
+        if (item instanceof FilterableTreeItemX) {
+            return ((FilterableTreeItemX<T>) item).getBackingChildren();
+        }
+        return item.getChildren();
+    }
+
+    private void indexSubtree(TreeItem<T> item) {
+        if (item == null || entries.containsKey(item)) return;
+        Entry entry = new Entry(item);
+        entries.put(item, entry);
+        addPostings(item, entry.text);
+        item.valueProperty().addListener(entry.valueListener);
+        ObservableList<TreeItem<T>> children = getSourceChildren(item);
+        children.addListener(entry.childrenListener);
+        for (TreeItem<T> child : children) {
+            indexSubtree(child);
+        }
+    }
+
+    private void unindexSubtree(TreeItem<T> item) {
+        Entry entry = item != null ? entries.remove(item) : null;
+        if (entry == null) return;
+        removePostings(item, entry.text);
+        item.valueProperty().removeListener(entry.valueListener);
+        ObservableList<TreeItem<T>> children = getSourceChildren(item);
+        children.removeListener(entry.childrenListener);
+        for (TreeItem<T> child : children) {
+            unindexSubtree(child);
+        }
+    }
+
+    private void valueChanged(TreeItem<T> item) {
+        Entry entry = entries.get(item);
+        if (entry == null) return;
+        removePostings(item, entry.text);
+        entry.text = getText(item);
+        addPostings(item, entry.text);
+    }
+
+    private void childrenChanged(ListChangeListener.Change<? extends TreeItem<T>> c) {
+        while (c.next()) {
+            if (c.wasPermutated() || c.wasUpdated()) continue;
+            for (TreeItem<T> removed : c.getRemoved()) {
+                unindexSubtree(removed);
+            }
+            for (TreeItem<T> added : c.getAddedSubList()) {
+                indexSubtree(added);
+            }
+        }
+    }
+
+    private void addPostings(TreeItem<T> item, String text) {
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            postings.computeIfAbsent(text.substring(i, i + GRAM),
+                    gram -> Collections.newSetFromMap(new IdentityHashMap<>()))
+                .add(item);
+        }
+    }
+
+    private void removePostings(TreeItem<T> item, String text) {
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            String gram = text.substring(i, i + GRAM);
+            Set<TreeItem<T>> posting = postings.get(gram);
+            if (posting == null) continue;
+            posting.remove(item);
+            if (posting.isEmpty()) postings.remove(gram);
+        }
+    }
+
+    /**
+     * Indexed state of an item: its folded text and the listeners
+     * registered with it.
+     */
+    private class Entry {
+        String text;
+        final ChangeListener<T> valueListener;
+        final ListChangeListener<TreeItem<T>> childrenListener = c -> childrenChanged(c);
+
+        Entry(TreeItem<T> item) {
+            text = getText(item);
+            valueListener = (source, old, value) -> valueChanged(item);
+        }
+    }
+
+    /**
+     * Result of a search: the matching items and the offsets of the
+     * occurrences of the query in their text.
+     */
+    public static class Matches<T> {
+
+        private final String query;
+        private final Map<TreeItem<T>, int[]> offsets;
+        private final Set<T> values = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Matches(String query, Map<TreeItem<T>, int[]> offsets) {
+            this.query = query;
+            this.offsets = offsets;
+            for (TreeItem<T> item : offsets.keySet()) {
+                values.add(item.getValue());
+            }
+        }
+
+        /**
+         * Returns the query, folded to lower case.
+         */
+        public String getQuery() {
+            return query;
+        }
+
+        /**
+         * Returns the length of a match, that is the query.
+         */
+        public int getMatchLength() {
+            return query.length();
+        }
+
+        public boolean contains(TreeItem<T> item) {
+            return offsets.containsKey(item);
+        }
+
+        /**
+         * Returns the start offsets of the occurrences of the query in the
+         * text of the item, in ascending order.
+         *
+         * @param item the item to get the offsets for
+         * @return the offsets of the matches, empty if the item doesn't match
+         */
+        public int[] getOffsets(TreeItem<T> item) {
+            int[] found = offsets.get(item);
+            return found != null ? found.clone() : new int[0];
+        }
+
+        /**
+         * Returns the matching items, unmodifiable.
+         */
+        public Set<TreeItem<T>> getItems() {
+            return Collections.unmodifiableSet(offsets.keySet());
+        }
+
+        public int size() {
+            return offsets.size();
+        }
+
+        /**
+         * Returns a predicate testing for the values of the matching items,
+         * by identity. Note that all items sharing a value instance with a 
+         * matching item are accepted, they have the same text anyway.
+         */
+        public TreeItemPredicate<T> asPredicate() {
+            return (parent, value) -> values.contains(value);
+        }
+    }
+}
@@ -4,24 +4,37 @@
  */
 package de.swingempire.fx.scene.control.tree;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.ArrayDeque;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.Enumeration;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Vector;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ListChangeListener.Change;
 import javafx.collections.ObservableList;
 import javafx.event.Event;
+import javafx.event.EventHandler;
 import javafx.scene.Node;
 import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeView;
 
 /**
  * Extended to fire extended TreeModificationEvent that exposes the 
@@ -44,19 +57,191 @@ public class TreeItemX<T> extends TreeItem<T> implements Leafness<T> {
      * if either not yet accessed or reflection failed.
      */
     private ObservableList<TreeItem<T>> aliasChildren;
+    
+    /**
+     * Prefix sums over the expanded descendant count of the children, 
+     * built lazily on first row lookup, null if invalid.
+     */
+    private ChildCounts childCounts;
+    
+    /**
+     * Position of this in the children of the parent as of the last
+     * build of the parent's childCounts or lookup by the parent, -1 if 
+     * unknown. 
+     */
+    private int indexInParent = -1;
+    
+    /**
+     * Handler of expandedItemCountChange, shared by all items (was: a lambda
+     * per item). The source of the event is the item it is currently 
+     * dispatched to, that is the item the handler is registered on. 
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static final EventHandler<TreeModificationEvent> COUNT_HANDLER = 
+            e -> ((TreeItemX) e.getSource()).expandedCountChanged(e.getTreeItem());
+    
+    /** 
+     * nesting depth of batch, children modifications are collected if > 0.
+     * Note: global, shared by all trees - safe because batch is confined
+     * to the fx application thread.
+     */
+    private static int batchDepth;
+    
+    /** 
+     * The children before their first modification in the current batch, 
+     * per modified parent, null if not yet modified. Global as batchDepth,
+     * keyed by the parent of any tree.
+     */
+    private static Map<TreeItem<?>, List<TreeItem<?>>> batchChildren;
 
 //-------------------------- support extended TreeModificationEvent
     
     protected void childrenChanged(Change<? extends TreeItem<T>> c) {
         // first update internals of this treeItem
         updateChildren(c);
+        c.reset();
+        if (batchDepth > 0) {
+            batchChildrenChanged(c);
+            return;
+        }
         // then fire an extended TreeModificationEvent that carries the complete change
         // (vs. one event for each sub-change as core does).
-        c.reset();
         Event.fireEvent(this, new TreeModificationEventX<T>(
                 childrenModificationEvent(), this, null, null, c));
     }
 
+//-------------------------- support batch modification
+    
+    /**
+     * Runs the modification as a batch: changes of the children of any TreeItemX
+     * are not fired as they happen but collected per parent. At the end, a single 
+     * TreeModificationEventX of type childrenModification is fired from the 
+     * root of each tree that had been modified, listeners can query it for 
+     * the children before the batch. Batches may be nested, the outermost 
+     * fires.
+     * <p>
+     * Must be called on the fx application thread: the batch state is 
+     * global (static), a batch collects the modifications of all trees 
+     * that happen while it is running, not only those of a particular tree.
+     * <p>
+     * PENDING JW: 
+     * <li> expanding/collapsing items inside the batch is not supported, the 
+     *   events are fired as they happen and listeners see a tree with
+     *   pending modifications
+     * <li> items that change their root (f.i. moved from one tree into another) 
+     *   are reported for the new root only
+     * 
+     * @param modification the modification of the tree(s) to run
+     * 
+     * @see TreeModificationEventX#wasBatch()
+     */
+    public static void batch(Runnable modification) {
+        assert Platform.isFxApplicationThread() : "batch must be called on the fx application thread";
+        batchDepth++;
+        try {
+            modification.run();
+        } finally {
+            if (--batchDepth == 0) {
+                fireBatch();
+            }
+        }
+    }
+    
+    /**
+     * Returns a flag indicating whether or not modifications of children 
+     * are collected in a batch.
+     * 
+     * @return true if inside a batch, false otherwise
+     */
+    public static boolean isBatching() {
+        return batchDepth > 0;
+    }
+    
+    /**
+     * Called on a change of the children inside a batch, after updating
+     * the internals. Records the children before the change if this is the 
+     * first in the batch. No event bubbles up, so the expanded counts of the 
+     * ancestors are invalidated here.
+     */
+    private void batchChildrenChanged(Change<? extends TreeItem<T>> c) {
+        if (batchChildren == null) {
+            batchChildren = new IdentityHashMap<>();
+        }
+        if (!batchChildren.containsKey(this)) {
+            batchChildren.put(this, (List) getOldChildren(c));
+        }
+        TreeItem<T> child = this;
+        for (TreeItem<T> parent = getParent(); parent != null; parent = parent.getParent()) {
+            invokeExpandedDescendentCountDirty(parent);
+            if (parent instanceof TreeItemX) {
+                ((TreeItemX<T>) parent).expandedCountChanged(child);
+            }
+            child = parent;
+        }
+    }
+    
+    /**
+     * Returns the list as it was before the change. Walks the subchanges,
+     * their from in ascending order, and takes the removed in place of the
+     * added. Resets the change.
+     */
+    private static <T> List<TreeItem<T>> getOldChildren(Change<? extends TreeItem<T>> c) {
+        List<? extends TreeItem<T>> current = c.getList();
+        List<TreeItem<T>> old = new ArrayList<>(current.size());
+        int pos = 0;
+        while (c.next()) {
+            if (c.wasPermutated()) {
+                old.addAll(current.subList(pos, c.getFrom()));
+                for (int i = c.getFrom(); i < c.getTo(); i++) {
+                    old.add(current.get(c.getPermutation(i)));
+                }
+                pos = c.getTo();
+            } else if (!c.wasUpdated()) {
+                old.addAll(current.subList(pos, c.getFrom()));
+                old.addAll(c.getRemoved());
+                pos = c.getFrom() + c.getAddedSize();
+            }
+        }
+        old.addAll(current.subList(pos, current.size()));
+        c.reset();
+        return old;
+    }
+    
+    /**
+     * Fires the event for the batch that just ended. Parents with children 
+     * unchanged after all are dropped. Marks the remaining and their ancestors 
+     * as modified, and fires from each of the roots.
+     */
+    private static void fireBatch() {
+        Map<TreeItem<?>, List<TreeItem<?>>> oldChildren = batchChildren;
+        batchChildren = null;
+        if (oldChildren == null) return;
+        oldChildren.entrySet().removeIf(e -> isSame(e.getValue(), e.getKey().getChildren()));
+        Set<TreeItem<?>> modified = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<TreeItem<?>> roots = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (TreeItem<?> parent : oldChildren.keySet()) {
+            TreeItem<?> item = parent;
+            while (item.getParent() != null) {
+                modified.add(item);
+                item = item.getParent();
+            }
+            modified.add(item);
+            roots.add(item);
+        }
+        for (TreeItem root : roots) {
+            Event.fireEvent(root, new TreeModificationEventX<>(
+                    childrenModificationEvent(), root, (Map) oldChildren, (Set) modified));
+        }
+    }
+    
+    private static boolean isSame(List<?> old, List<?> current) {
+        if (old.size() != current.size()) return false;
+        for (int i = 0; i < old.size(); i++) {
+            if (old.get(i) != current.get(i)) return false;
+        }
+        return true;
+    }
+
     /**
      * Internal on receiving a change notification from children.
      * 
@@ -64,6 +249,7 @@ public class TreeItemX<T> extends TreeItem<T> implements Leafness<T> {
      */
     private void updateChildren(ListChangeListener.Change<? extends TreeItem<T>> c) {
         invokeExpandedDescendentCountDirty();
+        childCounts = null;
         updateLeaf(c.getList());
         while (c.next()) {
             final List<? extends TreeItem<T>> added = c.getAddedSubList();
@@ -162,6 +348,309 @@ public class TreeItemX<T> extends TreeItem<T> implements Leafness<T> {
         return invokePreviousExpandedDescendantCount();
     }
 
+//-------------------------- support row index
+    
+    /**
+     * Returns the row of the item in the tree, same as tree.getRow(item) 
+     * but in O(depth * log(fanout)) if all ancestors are of type TreeItemX.
+     * 
+     * @param tree the tree to lookup the row in
+     * @param item the item to find
+     * @return the row of the item or -1 if not visible in the tree
+     */
+    public static <T> int getRow(TreeView<T> tree, TreeItem<T> item) {
+        return getRow(item, tree.getRoot(), tree.isShowRoot());
+    }
+    
+    /**
+     * Returns the row of the item in the tree rooted at the given root, 
+     * or -1 if the item is not a visible descendant of the root. The
+     * root has row 0 if showing. 
+     * 
+     * @param item the item to find
+     * @param root the root of the tree
+     * @param showRoot flag to indicate whether the root is showing
+     * @return the row of the item or -1 if not visible
+     */
+    public static <T> int getRow(TreeItem<T> item, TreeItem<T> root, boolean showRoot) {
+        if (item == null || root == null) return -1;
+        int row = 0;
+        TreeItem<T> child = item;
+        for (TreeItem<T> parent = item.getParent(); child != root && parent != null; 
+                parent = parent.getParent()) {
+            if (!parent.isExpanded()) return -1;
+            int preceding = getPrecedingCount(parent, child);
+            if (preceding < 0) return -1;
+            row += 1 + preceding;
+            child = parent;
+        }
+        if (child != root) return -1;
+        return showRoot ? row : row - 1;
+    }
+    
+    /**
+     * Returns the item at the row in the tree, same as tree.getTreeItem(row)
+     * but in O(depth * log(fanout)) if all ancestors are of type TreeItemX.
+     * 
+     * @param tree the tree to lookup the item in
+     * @param row the row of the item
+     * @return the item at the row or null if off range
+     */
+    public static <T> TreeItem<T> getTreeItem(TreeView<T> tree, int row) {
+        return getTreeItem(tree.getRoot(), row, tree.isShowRoot());
+    }
+    
+    /**
+     * Returns the item at the row in the tree rooted at the given root,
+     * or null if off range.
+     * 
+     * @param root the root of the tree
+     * @param row the row of the item
+     * @param showRoot flag to indicate whether the root is showing
+     * @return the item at the row or null if off range
+     */
+    public static <T> TreeItem<T> getTreeItem(TreeItem<T> root, int row, boolean showRoot) {
+        if (root == null || row < 0) return null;
+        // offset from the current item, the root at offset 0
+        int offset = showRoot ? row : row + 1;
+        TreeItem<T> item = root;
+        while (offset > 0) {
+            if (item.isLeaf() || !item.isExpanded()) return null;
+            // account for the item itself
+            offset--;
+            List<TreeItem<T>> children = item.getChildren();
+            int index;
+            int preceding;
+            if (item instanceof TreeItemX) {
+                ChildCounts counts = ((TreeItemX<T>) item).getChildCounts();
+                index = counts.find(offset);
+                preceding = index < children.size() ? counts.sum(index) : 0;
+            } else {
+                index = 0;
+                preceding = 0;
+                for (; index < children.size(); index++) {
+                    int count = getExpandedCount(children.get(index));
+                    if (preceding + count > offset) break;
+                    preceding += count;
+                }
+            }
+            if (index >= children.size()) return null;
+            item = children.get(index);
+            offset -= preceding;
+        }
+        return item;
+    }
+    
+    /**
+     * Returns the sum of the expanded counts of the children of the parent
+     * before the child, or -1 if the child is not contained in the parent's
+     * children (f.i. a stale item that still points to its former parent).
+     */
+    private static <T> int getPrecedingCount(TreeItem<T> parent, TreeItem<T> child) {
+        if (parent instanceof TreeItemX) {
+            TreeItemX<T> parentX = (TreeItemX<T>) parent;
+            int index = parentX.getChildIndex(child);
+            if (index < 0) return -1;
+            return parentX.getChildCounts().sum(index);
+        }
+        int count = 0;
+        for (TreeItem<T> sibling : parent.getChildren()) {
+            if (sibling == child) return count;
+            count += getExpandedCount(sibling);
+        }
+        return -1;
+    }
+    
+    /**
+     * Returns the expanded descendant count of the item, including the 
+     * item itself, 0 for null.
+     */
+    static int getExpandedCount(TreeItem<?> item) {
+        if (item == null) return 0;
+        if (item instanceof TreeItemX) {
+            return ((TreeItemX<?>) item).getExpandedDescendantCount();
+        }
+        int count = 1;
+        if (!item.isLeaf() && item.isExpanded()) {
+            for (TreeItem<?> child : item.getChildren()) {
+                count += getExpandedCount(child);
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Returns the position of the child in the children, using the position
+     * cached on the last lookup if valid.
+     */
+    private int getChildIndex(TreeItem<T> child) {
+        List<TreeItem<T>> children = getChildren();
+        if (!(child instanceof TreeItemX)) return children.indexOf(child);
+        TreeItemX<T> childX = (TreeItemX<T>) child;
+        int index = childX.indexInParent;
+        if (index >= 0 && index < children.size() && children.get(index) == child) {
+            return index;
+        }
+        index = children.indexOf(child);
+        childX.indexInParent = index;
+        return index;
+    }
+    
+    /**
+     * Returns the sum of the expanded descendant counts of the children,
+     * that is the number of rows below this if expanded, independent of
+     * the current expansion state of this. Uses the row index, O(log(fanout))
+     * if valid.
+     * 
+     * @return the sum of the expanded counts of the children
+     */
+    public int getExpandedChildCount() {
+        List<TreeItem<T>> children = getChildren();
+        return getChildCounts().sum(children.size());
+    }
+    
+    /**
+     * Returns the expanded descendant count of the child at the given index,
+     * including the child itself. Called on building/updating the row index,
+     * caches the position in the child.
+     * <p>
+     * Subclasses that create their children lazily may override to report
+     * the count without creating the child.
+     * 
+     * @param index the position of the child
+     * @return the expanded count of the child
+     */
+    protected int getChildExpandedCount(int index) {
+        TreeItem<T> child = getChildren().get(index);
+        if (child instanceof TreeItemX) {
+            ((TreeItemX<T>) child).indexInParent = index;
+        }
+        return getExpandedCount(child);
+    }
+    
+    /**
+     * Returns the up-to-date counts of the children, rebuilds if invalid and
+     * updates the children that changed since the last access.
+     */
+    private ChildCounts getChildCounts() {
+        List<TreeItem<T>> children = getChildren();
+        if (childCounts == null) {
+            childCounts = new ChildCounts(children.size());
+            for (int i = 0; i < children.size(); i++) {
+                childCounts.init(i, getChildExpandedCount(i));
+            }
+            childCounts.build();
+        } else {
+            for (int i = 0; i < childCounts.dirtyCount; i++) {
+                int index = childCounts.dirty[i];
+                childCounts.set(index, getChildExpandedCount(index));
+            }
+            childCounts.dirtyCount = 0;
+        }
+        return childCounts;
+    }
+    
+    /**
+     * Called on receiving an event of type expandedItemCountChanged from
+     * this or any descendant, or on a change of the descendant's children 
+     * inside a batch. Marks the child on the path to the changed item as 
+     * dirty, changes of this itself don't change the counts of its children.
+     */
+    private void expandedCountChanged(TreeItem<T> item) {
+        if (childCounts == null) return;
+        TreeItem<T> child = item;
+        while (child != null && child.getParent() != this) {
+            child = child.getParent();
+        }
+        if (child == null) return;
+        int index = getChildIndex(child);
+        if (index < 0 || !childCounts.markDirty(index)) {
+            childCounts = null;
+        }
+    }
+    
+    /**
+     * Fenwick tree of the expanded counts of children, supports prefix 
+     * sums and finding the child at an offset in O(log(fanout)).
+     */
+    private static class ChildCounts {
+        private static final int MAX_DIRTY = 32;
+        /** the count per child, 0-based */
+        private final int[] counts;
+        /** the fenwick tree, 1-based */
+        private final int[] tree;
+        /** the positions of children changed since last access */
+        private final int[] dirty = new int[MAX_DIRTY];
+        private int dirtyCount;
+        
+        ChildCounts(int size) {
+            counts = new int[size];
+            tree = new int[size + 1];
+        }
+        
+        void init(int index, int count) {
+            counts[index] = count;
+            tree[index + 1] = count;
+        }
+        
+        /**
+         * Builds the tree from the initial counts in O(fanout).
+         */
+        void build() {
+            for (int i = 1; i < tree.length; i++) {
+                int parent = i + (i & -i);
+                if (parent < tree.length) tree[parent] += tree[i];
+            }
+        }
+        
+        void set(int index, int count) {
+            int delta = count - counts[index];
+            if (delta == 0) return;
+            counts[index] = count;
+            for (int i = index + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+        
+        /**
+         * Returns the sum of the counts before the index.
+         */
+        int sum(int index) {
+            int sum = 0;
+            for (int i = index; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+        
+        /**
+         * Returns the index of the child containing the offset, that is 
+         * with sum(index) <= offset < sum(index + 1), or the number of
+         * children if the offset is beyond the total.
+         */
+        int find(int offset) {
+            int pos = 0;
+            int remaining = offset;
+            for (int step = Integer.highestOneBit(Math.max(1, counts.length)); step > 0; step >>= 1) {
+                int next = pos + step;
+                if (next < tree.length && tree[next] <= remaining) {
+                    pos = next;
+                    remaining -= tree[next];
+                }
+            }
+            return pos;
+        }
+        
+        /**
+         * Marks the child at index as changed, returns false if too many.
+         */
+        boolean markDirty(int index) {
+            if (dirtyCount == MAX_DIRTY) return false;
+            dirty[dirtyCount++] = index;
+            return true;
+        }
+    }
+    
 //-------------------------- support leafness
     
     /**
@@ -177,12 +666,83 @@ public class TreeItemX<T> extends TreeItem<T> implements Leafness<T> {
     
 //----------- going dirty: reflective access of super
 
+    /**
+     * System property to force per-call reflective access of super's
+     * private members instead of the cached handles. For comparison only.
+     */
+    private static final boolean FORCE_REFLECTION = 
+            Boolean.getBoolean("de.swingempire.fx.TreeItemX.reflection");
+    
+    /*
+     * Handles to super's private members, resolved once: the methods below
+     * are called per child and change. A handle is null if resolution failed, 
+     * access falls back to per-call reflection then.
+     */
+    private static final MethodHandle GET_EXPANDED_DESCENDENT_COUNT = 
+            findMethod("getExpandedDescendentCount", boolean.class);
+    private static final MethodHandle UPDATE_CHILDREN_PARENT = 
+            findMethod("updateChildrenParent", List.class, TreeItem.class);
+    private static final MethodHandle SET_LEAF = 
+            findMethod("setLeaf", boolean.class);
+    private static final MethodHandle GET_PREVIOUS_EXPANDED_DESCENDENT_COUNT = 
+            findField("previousExpandedDescendentCount", true);
+    private static final MethodHandle SET_EXPANDED_DESCENDENT_COUNT_DIRTY = 
+            findField("expandedDescendentCountDirty", false);
+    private static final MethodHandle SET_CHILDREN = 
+            findField("children", false);
+
+    /**
+     * Returns a handle to super's declared method or null if not accessible.
+     * The handle of a static method takes the treeItem as first 
+     * parameter as well, which is ignored.
+     */
+    private static MethodHandle findMethod(String name, Class<?>... parameterTypes) {
+        if (FORCE_REFLECTION) return null;
+        try {
+            Method method = TreeItem.class.getDeclaredMethod(name, parameterTypes);
+            method.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, TreeItem.class);
+            }
+            return handle;
+        } catch (NoSuchMethodException | SecurityException | IllegalAccessException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+    
+    /**
+     * Returns a getter or setter handle to super's declared field or null 
+     * if not accessible.
+     */
+    private static MethodHandle findField(String name, boolean getter) {
+        if (FORCE_REFLECTION) return null;
+        try {
+            Field field = TreeItem.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return getter ? MethodHandles.lookup().unreflectGetter(field)
+                    : MethodHandles.lookup().unreflectSetter(field);
+        } catch (NoSuchFieldException | SecurityException | IllegalAccessException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
     /**
      * NOTE the typo "descendents" vs. "descendants" - reflective access
      * will break if fixed...
      * @return
      */
     private int invokePreviousExpandedDescendantCount() {
+        if (GET_PREVIOUS_EXPANDED_DESCENDENT_COUNT != null) {
+            try {
+                return (int) GET_PREVIOUS_EXPANDED_DESCENDENT_COUNT.invoke(this);
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
+            return 0;
+        }
         Class clazz = TreeItem.class;
         try {
             Field field = clazz.getDeclaredField("previousExpandedDescendentCount");
@@ -201,6 +761,14 @@ public class TreeItemX<T> extends TreeItem<T> implements Leafness<T> {
      * @return
      */
     private int invokeGetExpandedDescendantCount() {
+        if (GET_EXPANDED_DESCENDENT_COUNT != null) {
+            try {
+                return (int) GET_EXPANDED_DESCENDENT_COUNT.invoke(this, false);
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
+            return 0;
+        }
         Class clazz = TreeItem.class;
         try {
             Method method = clazz.getDeclaredMethod("getExpandedDescendentCount", boolean.class);
@@ -219,6 +787,14 @@ public class TreeItemX<T> extends TreeItem<T> implements Leafness<T> {
      * @param newParent
      */
     protected void invokeUpdateChildrenParent(List<? extends TreeItem<T>> treeItems, final TreeItem<T> newParent) {
+        if (UPDATE_CHILDREN_PARENT != null) {
+            try {
+                UPDATE_CHILDREN_PARENT.invoke(this, treeItems, newParent);
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
+            return;
+        }
         Class<?> clazz = TreeItem.class;
         try {
             Method method = clazz.getDeclaredMethod("updateChildrenParent", List.class, TreeItem.class);
@@ -234,11 +810,29 @@ public class TreeItemX<T> extends TreeItem<T> implements Leafness<T> {
      * 
      */
     private void invokeExpandedDescendentCountDirty() {
+        invokeExpandedDescendentCountDirty(this);
+    }
+    
+    /**
+     * Reflectiv setting super expendedDescendentCountDirty of the given item 
+     * to true.
+     * 
+     * @param item
+     */
+    private static void invokeExpandedDescendentCountDirty(TreeItem<?> item) {
+        if (SET_EXPANDED_DESCENDENT_COUNT_DIRTY != null) {
+            try {
+                SET_EXPANDED_DESCENDENT_COUNT_DIRTY.invoke(item, true);
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
+            return;
+        }
         Class<?> clazz = TreeItem.class;
         try {
             Field field = clazz.getDeclaredField("expandedDescendentCountDirty");
             field.setAccessible(true);
-            field.set(this, true);
+            field.set(item, true);
         } catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException e) {
             e.printStackTrace();
         }
@@ -250,6 +844,14 @@ public class TreeItemX<T> extends TreeItem<T> implements Leafness<T> {
      * @param leaf
      */
     protected void invokeSetLeaf(boolean leaf) {
+        if (SET_LEAF != null) {
+            try {
+                SET_LEAF.invoke(this, leaf);
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
+            return;
+        }
         Class<?> clazz = TreeItem.class;
         try {
             Method method = clazz.getDeclaredMethod("setLeaf", boolean.class);
@@ -266,6 +868,16 @@ public class TreeItemX<T> extends TreeItem<T> implements Leafness<T> {
      */
     protected void checkChildren() {
         wasCheckedChildren = true;
+        if (SET_CHILDREN != null) {
+            try {
+                ObservableList<TreeItem<T>> replaceChildren = createAndWireChildren();
+                SET_CHILDREN.invoke(this, replaceChildren);
+                aliasChildren = replaceChildren;
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
+            return;
+        }
         Class<?> clazz = TreeItem.class;
         try {
             Field field = clazz.getDeclaredField("children");
@@ -300,9 +912,35 @@ public class TreeItemX<T> extends TreeItem<T> implements Leafness<T> {
         return childrenListener;
     }
     
+    /**
+     * Returns a sequential stream of this and its expanded descendants in 
+     * preorder, with the direct children of this always included, same as 
+     * ExpandedDescendants. Can be turned parallel, splitting subtrees.
+     * 
+     * @return a stream of this and its expanded descendants
+     */
+    public Stream<TreeItem<T>> streamExpanded() {
+        TreeItemSpliterator<TreeItem<T>> spliterator = 
+                new TreeItemSpliterator<>(this, true, 1 + getExpandedChildCount());
+        return StreamSupport.stream(spliterator, false);
+    }
+    
+    /**
+     * Returns a sequential stream of this and all its descendants in 
+     * preorder. Can be turned parallel, splitting subtrees.
+     * 
+     * @return a stream of this and all its descendants
+     */
+    public Stream<TreeItem<T>> streamAll() {
+        TreeItemSpliterator<TreeItem<T>> spliterator = 
+                new TreeItemSpliterator<>(this, false, Long.MAX_VALUE);
+        return StreamSupport.stream(spliterator, false);
+    }
+    
 //--------------- constructors from super    
     public TreeItemX() {
         super();
+        addCountHandler();
     }
 
     /**
@@ -311,6 +949,7 @@ public class TreeItemX<T> extends TreeItem<T> implements Leafness<T> {
      */
     public TreeItemX(T value, Node graphic) {
         super(value, graphic);
+        addCountHandler();
     }
 
     /**
@@ -318,51 +957,111 @@ public class TreeItemX<T> extends TreeItem<T> implements Leafness<T> {
      */
     public TreeItemX(T value) {
         super(value);
+        addCountHandler();
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private void addCountHandler() {
+        addEventHandler(TreeItem.expandedItemCountChangeEvent(), (EventHandler) COUNT_HANDLER);
     }
 
 //------------- enum across visible child nodes
  
     
     /**
-     * Implementation of a preorder traversal of a subtree with nodes of type TreeNode.
+     * Index-based preorder traversal of a subtree: keeps the path of parents
+     * and the position in their children in arrays, allocates nothing per
+     * node (was: an iterator/enumeration per node pushed onto a stack).
+     * <p>
+     * The children of a node are visited if isTraversed returns true.
+     * The tree must not be modified during the traversal.
      * <p>
-     * PENDING JW: change to Iterator.
+     * CHANGED JW: replaced the stack-based implementation of the subclasses, 
+     * removing their protected hooks: the per-node children enumeration/iterator
+     * getChildren(M), the stack and the EMPTY iterator. Subclasses that 
+     * overrode getChildren(M) to skip the children of a node must override 
+     * isTraversed instead, filtering individual children is no longer supported.
      */
-    public static class PreorderTreeItemEnumeration<M extends TreeItem> implements Enumeration<M> {
-        protected Deque<Enumeration<M>> stack;
+    public static abstract class PreorderCursor<M extends TreeItem> {
+        protected M root;
+        private TreeItem[] parents = new TreeItem[16];
+        private int[] positions = new int[16];
+        private int depth;
+        private M nextNode;
+        
+        public PreorderCursor(M rootNode) {
+            this.root = rootNode;
+            this.nextNode = rootNode;
+        }
+        
+        public boolean hasNext() {
+            return nextNode != null;
+        }
+        
+        public M next() {
+            M node = nextNode;
+            if (node == null) throw new NoSuchElementException();
+            advance(node);
+            return node;
+        }
+        
+        /**
+         * Returns a flag indicating whether the children of the node 
+         * are visited.
+         */
+        protected abstract boolean isTraversed(M node);
+        
+        /**
+         * Moves to the node following the given in preorder: its first child
+         * if traversed, else the next sibling of it or its nearest ancestor.
+         */
+        private void advance(M node) {
+            if (isTraversed(node) && !node.getChildren().isEmpty()) {
+                if (depth == parents.length) {
+                    parents = Arrays.copyOf(parents, depth * 2);
+                    positions = Arrays.copyOf(positions, depth * 2);
+                }
+                parents[depth] = node;
+                positions[depth++] = 0;
+                nextNode = (M) node.getChildren().get(0);
+                return;
+            }
+            while (depth > 0) {
+                List<M> children = parents[depth - 1].getChildren();
+                int position = ++positions[depth - 1];
+                if (position < children.size()) {
+                    nextNode = children.get(position);
+                    return;
+                }
+                parents[--depth] = null;
+            }
+            nextNode = null;
+        }
+    }
+    
+    /**
+     * Implementation of a preorder traversal of a subtree with nodes of type TreeNode.
+     */
+    public static class PreorderTreeItemEnumeration<M extends TreeItem> extends PreorderCursor<M> 
+        implements Enumeration<M>, Iterator<M> {
         
         public PreorderTreeItemEnumeration(M rootNode) {
-            // Vector is just used for getting an Enumeration easily
-            Vector<M> v = new Vector<M>(1);
-            v.addElement(rootNode);     
-            stack = new ArrayDeque<Enumeration<M>>();
-            stack.push(v.elements());
+            super(rootNode);
         }
         
         @Override
         public boolean hasMoreElements() {
-            return (!stack.isEmpty() &&
-                    stack.peek().hasMoreElements());
+            return hasNext();
         }
         
         @Override
         public M nextElement() {
-            Enumeration<M> enumer = stack.peek();
-            M node = enumer.nextElement();
-            Enumeration<M> children = getChildren(node);
-            
-            if (!enumer.hasMoreElements()) {
-                stack.pop();
-            }
-            if (children.hasMoreElements()) {
-                stack.push(children);
-            }
-            return node;
+            return next();
         }
         
-        protected Enumeration<M> getChildren(M node) {
-            Enumeration<M> children = Collections.enumeration(node.getChildren());
-            return children;
+        @Override
+        protected boolean isTraversed(M node) {
+            return true;
         }
         
     }  // End of class PreorderEnumeration
@@ -371,45 +1070,142 @@ public class TreeItemX<T> extends TreeItem<T> implements Leafness<T> {
      * Implementation of a preorder traversal across the expanded descendants
      * of a TreeItem. The direct children of the root are always included.
      */
-    public static class ExpandedDescendants<M extends TreeItem> implements Iterator<M> {
-        protected Iterator<M> EMPTY = Collections.emptyIterator(); 
-        protected Deque<Iterator<M>> stack;
-        protected M root; 
+    public static class ExpandedDescendants<M extends TreeItem> extends PreorderCursor<M> 
+        implements Iterator<M> {
         
         public ExpandedDescendants(M rootNode) {
-            this.root = rootNode;
-            stack = new ArrayDeque<Iterator<M>>();
-            stack.push(Collections.singletonList(rootNode).iterator());
+            super(rootNode);
         }
     
         @Override
-        public boolean hasNext() {
-            return (!stack.isEmpty() &&
-                    stack.peek().hasNext());
+        protected boolean isTraversed(M node) {
+            return node == root || isExpandedBranch(node);
         }
     
-        @Override
-        public M next() {
-            Iterator<M> enumer = stack.peek();
-            M node = enumer.next();
-            Iterator<M> children = getChildren(node);
+    }  // End of class PreorderEnumeration
+
+    private static boolean isExpandedBranch(TreeItem<?> node) {
+        return !node.isLeaf() && node.isExpanded();
+    }
     
-            if (!enumer.hasNext()) {
-                stack.pop();
+    /**
+     * Spliterator across a preorder traversal of a subtree, either of all or 
+     * of the expanded descendants (with the direct children of the root always 
+     * included, same as ExpandedDescendants).
+     * <p>
+     * Covers an optional parent and a range of its children, each child with 
+     * its subtree. Splits off the first half of the range, or descends if a 
+     * single subtree is left. The size is unknown, the estimate starts at the 
+     * given and is halved per split.
+     * <p>
+     * The tree must not be modified during the traversal.
+     */
+    public static class TreeItemSpliterator<M extends TreeItem> implements Spliterator<M> {
+        private final boolean expandedOnly;
+        private M parent;
+        private boolean parentPending;
+        private int index;
+        private int fence;
+        private Iterator<M> subtree;
+        private long estimate;
+        
+        /**
+         * @param rootNode the root of the subtree
+         * @param expandedOnly flag to traverse the expanded descendants only
+         * @param estimate the estimated number of items, Long.MAX_VALUE if unknown
+         */
+        public TreeItemSpliterator(M rootNode, boolean expandedOnly, long estimate) {
+            this(rootNode, true, 0, rootNode.getChildren().size(), null, expandedOnly, estimate);
+        }
+        
+        private TreeItemSpliterator(M parent, boolean parentPending, int index, int fence, 
+                Iterator<M> subtree, boolean expandedOnly, long estimate) {
+            this.parent = parent;
+            this.parentPending = parentPending;
+            this.index = index;
+            this.fence = fence;
+            this.subtree = subtree;
+            this.expandedOnly = expandedOnly;
+            this.estimate = estimate;
+        }
+        
+        @Override
+        public boolean tryAdvance(Consumer<? super M> action) {
+            if (parentPending) {
+                parentPending = false;
+                action.accept(parent);
+                return true;
             }
-            if (children.hasNext()) {
-                stack.push(children);
+            if (subtree == null || !subtree.hasNext()) {
+                if (index >= fence) return false;
+                subtree = createSubtree((M) parent.getChildren().get(index++));
             }
-            return node;
+            action.accept(subtree.next());
+            return true;
         }
-    
-        protected Iterator<M> getChildren(M node) {
-            if (node != root && (node.isLeaf() || !node.isExpanded())) return EMPTY;
-            Iterator<M> children = node.getChildren().iterator();
-            return children;
+        
+        @Override
+        public Spliterator<M> trySplit() {
+            Spliterator<M> prefix = null;
+            if (subtree == null && fence - index == 1) {
+                // single subtree left: descend, splitting off the parent if pending
+                M child = (M) parent.getChildren().get(index);
+                if (!isTraversed(child) || child.getChildren().isEmpty()) return null;
+                if (parentPending) {
+                    prefix = new TreeItemSpliterator<>(parent, true, index, index, null, expandedOnly, 1);
+                }
+                parent = child;
+                parentPending = true;
+                index = 0;
+                fence = child.getChildren().size();
+                if (prefix != null) return prefix;
+            }
+            if (fence - index < 2) return null;
+            int mid = (index + fence) >>> 1;
+            estimate >>>= 1;
+            prefix = new TreeItemSpliterator<>(parent, parentPending, index, mid, 
+                    subtree, expandedOnly, estimate);
+            parentPending = false;
+            subtree = null;
+            index = mid;
+            return prefix;
         }
+        
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+        
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+        
+        private boolean isTraversed(M node) {
+            return !expandedOnly || isExpandedBranch(node);
+        }
+        
+        private Iterator<M> createSubtree(M child) {
+            return expandedOnly ? new ExpandedBranch<>(child) : new PreorderTreeItemEnumeration<>(child);
+        }
+    }
     
-    }  // End of class PreorderEnumeration
+    /**
+     * Expanded descendants of a node below the root of a traversal, that
+     * is its children are only included if it is expanded.
+     */
+    private static class ExpandedBranch<M extends TreeItem> extends PreorderCursor<M> 
+        implements Iterator<M> {
+        
+        ExpandedBranch(M rootNode) {
+            super(rootNode);
+        }
+        
+        @Override
+        protected boolean isTraversed(M node) {
+            return isExpandedBranch(node);
+        }
+    }
 
 //    /**
 //     * Implementation of a preorder traversal across the expanded descendants
@@ -4,7 +4,11 @@
  */
 package de.swingempire.fx.scene.control.tree;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javafx.collections.ListChangeListener.Change;
 import javafx.event.Event;
@@ -22,6 +26,11 @@ import javafx.scene.control.TreeItem.TreeModificationEvent;
 public class TreeModificationEventX<T> extends TreeModificationEvent<T> {
 
     private Change<? extends TreeItem<T>> change;
+    
+    /** the children before the batch per modified parent, null if not a batch */
+    private Map<TreeItem<T>, List<TreeItem<T>>> oldChildren;
+    /** the modified parents and their ancestors, null if not a batch */
+    private Set<TreeItem<T>> modified;
 
     /**
      * @param eventType
@@ -94,6 +103,112 @@ public class TreeModificationEventX<T> extends TreeModificationEvent<T> {
         return change;
     }
     
+    /**
+     * Creates an event that reports the modifications of children in a batch.
+     * 
+     * @param eventType
+     * @param treeItem the root of the modified tree
+     * @param oldChildren the children before the batch per modified parent
+     * @param modified the modified parents and all their ancestors
+     * 
+     * @see TreeItemX#batch(Runnable)
+     */
+    TreeModificationEventX(EventType<? extends Event> eventType,
+            TreeItem<T> treeItem, Map<TreeItem<T>, List<TreeItem<T>>> oldChildren, 
+            Set<TreeItem<T>> modified) {
+        super(eventType, treeItem);
+        this.oldChildren = oldChildren;
+        this.modified = modified;
+    }
+    
+    /**
+     * Returns a flag indicating whether this reports the modifications of 
+     * a batch. If so, the change is null and the state before can be queried
+     * by getOldChildren/getOldTreeItems.
+     * 
+     * @return true if this event reports a batch, false otherwise
+     * @see TreeItemX#batch(Runnable)
+     */
+    public boolean wasBatch() {
+        return oldChildren != null;
+    }
+    
+    /**
+     * Returns the children of the parent before the batch, that is the 
+     * current children if they were not modified.
+     * 
+     * @param parent the parent to get the old children for
+     * @return the children of the parent before the batch
+     */
+    public List<TreeItem<T>> getOldChildren(TreeItem<T> parent) {
+        List<TreeItem<T>> children = oldChildren != null ? oldChildren.get(parent) : null;
+        return children != null ? children : parent.getChildren();
+    }
+    
+    /**
+     * Returns the items at the rows before the batch. Visits the old tree 
+     * once, skips subtrees without modification by their expanded 
+     * count and looks up the rows inside them in the current tree. 
+     * The expansion state is assumed to be unchanged.
+     * 
+     * @param root the root of the tree
+     * @param showRoot flag to indicate whether the root is showing
+     * @param rows the rows before the batch, in ascending order
+     * @return the items at the rows, null if off range
+     */
+    public List<TreeItem<T>> getOldTreeItems(TreeItem<T> root, boolean showRoot, int[] rows) {
+        List<TreeItem<T>> items = new ArrayList<>(Collections.nCopies(rows.length, null));
+        if (root != null) {
+            new OldRows(rows, items).visit(root, showRoot ? 0 : -1);
+        }
+        return items;
+    }
+    
+    /**
+     * Walks the tree as it was before a batch, collecting the items at 
+     * ascending rows.
+     */
+    private class OldRows {
+        private final int[] rows;
+        private final List<TreeItem<T>> items;
+        /** the position of the next row to look up */
+        private int pos;
+        
+        OldRows(int[] rows, List<TreeItem<T>> items) {
+            this.rows = rows;
+            this.items = items;
+        }
+        
+        /**
+         * Visits the old subtree of the item at the row, returns the row
+         * following the subtree.
+         */
+        int visit(TreeItem<T> item, int row) {
+            if (!modified.contains(item)) {
+                int count = TreeItemX.getExpandedCount(item);
+                for (; pos < rows.length && rows[pos] < row + count; pos++) {
+                    if (rows[pos] >= row) {
+                        items.set(pos, TreeItemX.getTreeItem(item, rows[pos] - row, true));
+                    }
+                }
+                return row + count;
+            }
+            for (; pos < rows.length && rows[pos] <= row; pos++) {
+                if (rows[pos] == row) {
+                    items.set(pos, item);
+                }
+            }
+            row++;
+            if (item.isExpanded()) {
+                for (TreeItem<T> child : getOldChildren(item)) {
+                    if (pos >= rows.length) break;
+                    row = visit(child, row);
+                }
+            }
+            return row;
+        }
+    }
+    
     /**
      * @param eventType
      * @param treeItem
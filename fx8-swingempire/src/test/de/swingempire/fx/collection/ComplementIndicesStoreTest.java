@@ -0,0 +1,151 @@
+/*
+ * Created on 18.10.2026
+ *
+ */
+package de.swingempire.fx.collection;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for ComplementIndicesStore: equivalence to java.util.BitSet, rank/select
+ * against the excluded.
+ */
+@RunWith(JUnit4.class)
+public class ComplementIndicesStoreTest {
+
+    ComplementIndicesStore bitSet;
+
+    @Test
+    public void testRandomOperationsSameAsBitSet() {
+        Random random = new Random(42);
+        BitSet base = new BitSet();
+        base.set(0, 1000);
+        int max = 3000;
+        for (int op = 0; op < 20000; op++) {
+            int index = random.nextInt(max);
+            int type = random.nextInt(12);
+            if (type < 4) {
+                bitSet.set(index);
+                base.set(index);
+            } else if (type < 7) {
+                bitSet.clear(index);
+                base.clear(index);
+            } else if (type == 7) {
+                int to = index + random.nextInt(100);
+                bitSet.set(index, to);
+                base.set(index, to);
+            } else if (type == 8) {
+                int to = index + random.nextInt(200);
+                bitSet.clear(index, to);
+                base.clear(index, to);
+            } else if (type == 9) {
+                int distance = random.nextInt(50);
+                bitSet.shiftRight(index, distance);
+                BitSet shifted = base.get(0, index);
+                for (int i = base.nextSetBit(index); i >= 0; i = base.nextSetBit(i + 1)) {
+                    shifted.set(i + distance);
+                }
+                base = shifted;
+            } else if (type == 10) {
+                int distance = random.nextInt(50);
+                bitSet.shiftLeft(index, distance);
+                BitSet shifted = base.get(0, index);
+                for (int i = base.nextSetBit(index + distance); i >= 0; i = base.nextSetBit(i + 1)) {
+                    shifted.set(i - distance);
+                }
+                base = shifted;
+            }
+            if (op % 100 == 0) {
+                assertSameBits(base, bitSet);
+            }
+        }
+        assertSameBits(base, bitSet);
+    }
+
+    @Test
+    public void testAllExceptFew() {
+        int size = 50_000_000;
+        bitSet = new ComplementIndicesStore(new RankedBitSet(), size);
+        bitSet.clear(10);
+        bitSet.clear(20_000_000);
+        assertEquals(2, bitSet.getExcluded().cardinality());
+        assertEquals(size - 2, bitSet.cardinality());
+        assertEquals(size, bitSet.length());
+        assertEquals(19_999_999, bitSet.rank(20_000_001));
+        assertEquals(20_000_001, bitSet.select(19_999_999));
+        assertEquals(9, bitSet.select(9));
+        assertEquals(11, bitSet.select(10));
+        assertEquals(size - 1, bitSet.select(size - 3));
+        assertEquals(-1, bitSet.select(size - 2));
+        assertEquals(11, bitSet.nextSetBit(10));
+        assertEquals(20_000_000, bitSet.nextClearBit(11));
+        assertEquals(9, bitSet.previousSetBit(10));
+    }
+
+    @Test
+    public void testCopyFrom() {
+        RunLengthBitSet other = new RunLengthBitSet();
+        other.set(3);
+        other.set(100, 700);
+        bitSet.copyFrom(other);
+        assertEquals(601, bitSet.cardinality());
+        assertEquals(700, bitSet.getLimit());
+        RunLengthBitSet back = new RunLengthBitSet();
+        back.copyFrom(bitSet);
+        assertEquals(other, back);
+        ComplementIndicesStore copy = bitSet.copy();
+        bitSet.clear(3);
+        assertTrue(copy.get(3));
+        assertEquals(bitSet.cardinality() + 1, copy.cardinality());
+    }
+
+    @Test
+    public void testEmpty() {
+        bitSet = new ComplementIndicesStore(new RankedBitSet(), 0);
+        assertTrue(bitSet.isEmpty());
+        assertEquals(0, bitSet.length());
+        assertEquals(-1, bitSet.select(0));
+        assertEquals(0, bitSet.rank(100));
+        assertEquals(-1, bitSet.nextSetBit(0));
+        assertEquals(-1, bitSet.previousSetBit(100));
+        assertEquals(100, bitSet.previousClearBit(100));
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testExcludedAboveLimit() {
+        RankedBitSet excluded = new RankedBitSet();
+        excluded.set(10);
+        new ComplementIndicesStore(excluded, 10);
+    }
+
+    private void assertSameBits(BitSet base, IndicesStore bits) {
+        assertEquals("cardinality", base.cardinality(), bits.cardinality());
+        assertEquals("length", base.length(), bits.length());
+        int rank = 0;
+        for (int i = 0; i <= base.length(); i++) {
+            assertEquals("get at " + i, base.get(i), bits.get(i));
+            assertEquals("rank at " + i, rank, bits.rank(i));
+            assertEquals("next at " + i, base.nextSetBit(i), bits.nextSetBit(i));
+            assertEquals("next clear at " + i, base.nextClearBit(i), bits.nextClearBit(i));
+            assertEquals("previous at " + i, base.previousSetBit(i), bits.previousSetBit(i));
+            assertEquals("previous clear at " + i, base.previousClearBit(i), bits.previousClearBit(i));
+            if (base.get(i)) {
+                assertEquals("select " + rank, i, bits.select(rank));
+                rank++;
+            }
+        }
+    }
+
+    @Before
+    public void setup() {
+        bitSet = new ComplementIndicesStore(new RunLengthBitSet(), 1000);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Created on 17.10.2026
+ *
+ */
+package de.swingempire.fx.collection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+
+/**
+ * Poor man's benchmark for predicate changes of FilteredListX (firing the
+ * difference as disjoint removes/adds) against core FilteredList (firing
+ * a replace of the whole list). Not a unit test, run manually.
+ * <p>
+ *
+ * Reports per predicate change the number of cell updates, that is the
+ * sum of removed and added sizes of all sub-changes, the number of
+ * sub-changes, the time and the selection surviving the change.
+ *
+ * @see IndicesBenchmark
+ */
+public class FilteredListBenchmark {
+
+    static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    static final int WARMUP = 3;
+    static final int RUNS = 5;
+
+    public static void main(String[] args) {
+        for (int size : SIZES) {
+            benchmarkPredicateChange(size);
+        }
+    }
+
+    /**
+     * Compares typical predicate changes: shifting a range (type-ahead
+     * like, most items survive), narrowing and toggling between
+     * disjoint sets.
+     */
+    static void benchmarkPredicateChange(int size) {
+        ObservableList<Integer> items = createItems(size);
+        System.out.println("---- predicate change source size: " + size);
+        measure("shift range", items, i -> i < 500, i -> i >= 10 && i < 510);
+        measure("narrow", items, i -> i < 500, i -> i < 450);
+        measure("toggle disjoint", items, i -> i % 2 == 0, i -> i % 2 == 1);
+    }
+
+    /**
+     * Sets the first and then the second predicate, WARMUP times without and
+     * RUNS times with timing the second, for both FilteredListX and
+     * core FilteredList. All items are selected before the second predicate.
+     */
+    static void measure(String name, ObservableList<Integer> items,
+            Predicate<Integer> first, Predicate<Integer> second) {
+        FilteredListX<Integer> filteredX = new FilteredListX<>(items, first);
+        measure(name, filteredX, filteredX::setPredicate, first, second);
+        FilteredList<Integer> filtered = new FilteredList<>(items, first);
+        measure("core " + name, filtered, filtered::setPredicate, first, second);
+    }
+
+    static void measure(String name, ObservableList<Integer> filtered,
+            PredicateSetter setter, Predicate<Integer> first, Predicate<Integer> second) {
+        long[] cells = new long[1];
+        int[] subChanges = new int[1];
+        ListChangeListener<Integer> l = c -> {
+            while (c.next()) {
+                subChanges[0]++;
+                cells[0] += c.getRemovedSize() + c.getAddedSize();
+            }
+        };
+        filtered.addListener(l);
+        IndicesList<Integer> selection = new IndicesList<>(filtered);
+        long duration = 0;
+        for (int r = 0; r < WARMUP + RUNS; r++) {
+            setter.setPredicate(first);
+            selection.setAllIndices();
+            cells[0] = 0;
+            subChanges[0] = 0;
+            long start = System.nanoTime();
+            setter.setPredicate(second);
+            if (r >= WARMUP) {
+                duration += System.nanoTime() - start;
+            }
+        }
+        filtered.removeListener(l);
+        double perOp = duration / (RUNS * 1_000_000.);
+        System.out.printf("%-24s %,10.3f ms/op   cells: %,d   sub-changes: %,d   selected: %,d / %,d%n",
+                name, perOp, cells[0], subChanges[0], selection.size(), filtered.size());
+    }
+
+    /**
+     * The setter of the predicate, FilteredListX and FilteredList have
+     * no common api.
+     */
+    @FunctionalInterface
+    interface PredicateSetter {
+        void setPredicate(Predicate<Integer> predicate);
+    }
+
+    static ObservableList<Integer> createItems(int size) {
+        Random random = new Random(42);
+        List<Integer> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(random.nextInt(1000));
+        }
+        return FXCollections.observableList(items);
+    }
+}
@@ -0,0 +1,398 @@
+/*
+ * Created on 17.10.2026
+ *
+ */
+package de.swingempire.fx.collection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ListChangeListener.Change;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+
+import com.sun.javafx.collections.SortHelper;
+
+/**
+ * Poor man's micro-benchmark (JMH-style: warmup, then measure ns/op) for
+ * access into IndicesList, comparing the current implementation against
+ * the previous bitSet-scanning versions. Not a unit test, run manually.
+ * <p>
+ *
+ * The previous implementation is quadratic for full iteration, so it is
+ * sampled with a fixed number of random accesses per source size.
+ *
+ * @see IndicesListPerformTest
+ */
+public class IndicesBenchmark {
+
+    static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    static final int WARMUP = 3;
+    static final int RUNS = 5;
+    static final int SAMPLES = 2_000;
+
+    public static void main(String[] args) {
+        for (int size : SIZES) {
+            benchmarkAccess(size);
+        }
+        for (int size : SIZES) {
+            benchmarkShift(size);
+        }
+        for (int size : SIZES) {
+            benchmarkBulk(size);
+        }
+        benchmarkPermutation(300_000);
+    }
+
+    /**
+     * Compares IndexMappedList handling of permutations in the backing list 
+     * with every third index set: full sort and reversing a small range.
+     */
+    static void benchmarkPermutation(int size) {
+        int[] third = new int[size / 3];
+        for (int i = 0; i < third.length; i++) {
+            third[i] = 3 * i;
+        }
+        int[] rounds = new int[10];
+        System.out.println("---- permutation source size: " + size + " / selected: " + third.length);
+        ReversibleList items = new ReversibleList(size);
+        IndicesList<Integer> indicesList = new IndicesList<>(items);
+        IndexMappedList<Integer> indexedItems = new IndexMappedList<>(indicesList);
+        indicesList.setIndices(third);
+        measure("full sort", rounds, 
+                i -> { items.reverse(0, size); return indexedItems.size(); });
+        measure("partial sort", rounds, 
+                i -> { items.reverse(size / 2, size / 2 + 100); return indexedItems.size(); });
+        ReversibleList legacyItems = new ReversibleList(size);
+        IndicesList<Integer> legacyIndicesList = new IndicesList<>(legacyItems);
+        IndexMappedList<Integer> legacy = new LegacyIndexMappedList<>(legacyIndicesList);
+        legacyIndicesList.setIndices(third);
+        measure("legacy full sort", rounds, 
+                i -> { legacyItems.reverse(0, size); return legacy.size(); });
+        measure("legacy partial sort", rounds, 
+                i -> { legacyItems.reverse(size / 2, size / 2 + 100); return legacy.size(); });
+    }
+
+    /**
+     * Compares the number of sub-changes and timing of bulk modifications:
+     * select all, invert selection and ctrl-click (adding scattered indices).
+     */
+    static void benchmarkBulk(int size) {
+        int[] all = new int[size];
+        for (int i = 0; i < size; i++) {
+            all[i] = i;
+        }
+        int[] even = new int[size / 2];
+        int[] odd = new int[size / 2];
+        for (int i = 0; i < even.length; i++) {
+            even[i] = 2 * i;
+            odd[i] = 2 * i + 1;
+        }
+        int[] scattered = randomIndices(size, size / 10);
+        System.out.println("---- bulk source size: " + size);
+        IndicesList<Integer> indicesList = createIndicesList(size);
+        measureChange("select all", indicesList, 
+                () -> indicesList.clearAllIndices(), () -> indicesList.setIndices(all));
+        measureChange("invert", indicesList, 
+                () -> indicesList.setIndices(even), () -> indicesList.setIndices(odd));
+        measureChange("ctrl-click", indicesList, 
+                () -> indicesList.clearAllIndices(), () -> indicesList.addIndices(scattered));
+        // legacy: clearAllIndicesExcept is O(n*m), keep it small
+        if (size > 10_000) return;
+        IndicesList<Integer> legacy = new LegacyIndicesList<>(createItems(size));
+        measureChange("legacy select all", legacy, 
+                () -> legacy.clearAllIndices(), () -> legacy.setIndices(all));
+        measureChange("legacy invert", legacy, 
+                () -> legacy.setIndices(even), () -> legacy.setIndices(odd));
+        measureChange("legacy ctrl-click", legacy, 
+                () -> legacy.clearAllIndices(), () -> legacy.addIndices(scattered));
+    }
+
+    /**
+     * Compares insert/remove at the start of the backing list with every 
+     * other index set, that is shifting all of them.
+     */
+    static void benchmarkShift(int size) {
+        int[] every = new int[size / 2];
+        for (int i = 0; i < every.length; i++) {
+            every[i] = 2 * i;
+        }
+        int[] rounds = new int[size >= 1_000_000 ? 2 : 10];
+        System.out.println("---- shift source size: " + size + " / selected: " + every.length);
+        IndicesList<Integer> indicesList = createIndicesList(size);
+        indicesList.setIndices(every);
+        measure("shift (bulk)", rounds, i -> insertAndRemoveFirst(indicesList));
+        // legacy: per bit set plus ListChangeBuilder - very slow, keep it small 
+        if (size > 100_000) return;
+        IndicesList<Integer> legacy = new LegacyIndicesList<>(createItems(size));
+        legacy.setIndices(every);
+        measure("legacy shift (per bit)", rounds, i -> insertAndRemoveFirst(legacy));
+    }
+
+    static int insertAndRemoveFirst(IndicesList<Integer> indicesList) {
+        ObservableList<Integer> items = indicesList.getSource();
+        items.add(0, -1);
+        items.remove(0);
+        return indicesList.size();
+    }
+
+    /**
+     * Compares get and indexOf with every other index set.
+     */
+    static void benchmarkAccess(int size) {
+        IndicesList<Integer> indicesList = createIndicesList(size);
+        BitSet legacy = new BitSet();
+        int[] every = new int[size / 2];
+        for (int i = 0; i < every.length; i++) {
+            every[i] = 2 * i;
+            legacy.set(2 * i);
+        }
+        indicesList.setIndices(every);
+        int count = indicesList.size();
+        int[] listIndices = randomIndices(count, SAMPLES);
+        int[] values = new int[SAMPLES];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 2 * listIndices[i];
+        }
+        System.out.println("---- source size: " + size + " / selected: " + count);
+        measure("legacy get (scan)", listIndices, i -> legacyGet(legacy, i));
+        measure("get (select)", listIndices, i -> indicesList.get(i));
+        measure("legacy indexOf (linear)", values, v -> legacyIndexOf(legacy, v));
+        measure("indexOf (rank)", values, v -> indicesList.indexOf(v));
+    }
+
+    /**
+     * Runs the operation on all arguments, WARMUP times without and RUNS times
+     * with timing, and prints the average ns/op.
+     */
+    static void measure(String name, int[] arguments, IntUnaryOperator op) {
+        long sink = 0;
+        for (int w = 0; w < WARMUP; w++) {
+            for (int argument : arguments) {
+                sink += op.applyAsInt(argument);
+            }
+        }
+        long start = System.nanoTime();
+        for (int r = 0; r < RUNS; r++) {
+            for (int argument : arguments) {
+                sink += op.applyAsInt(argument);
+            }
+        }
+        long duration = System.nanoTime() - start;
+        double perOp = (double) duration / (RUNS * arguments.length);
+        System.out.printf("%-28s %,14.1f ns/op   (%d)%n", name, perOp, sink % 10);
+    }
+
+    /**
+     * Runs prepare and then action, WARMUP times without and RUNS times with 
+     * timing the action, and prints the average ms/op and the number of
+     * sub-changes fired by the action.
+     */
+    static void measureChange(String name, IndicesList<Integer> indicesList, 
+            Runnable prepare, Runnable action) {
+        int[] subChanges = new int[1];
+        ListChangeListener<Integer> l = c -> {
+            while (c.next()) {
+                subChanges[0]++;
+            }
+        };
+        indicesList.addListener(l);
+        for (int w = 0; w < WARMUP; w++) {
+            prepare.run();
+            action.run();
+        }
+        long duration = 0;
+        for (int r = 0; r < RUNS; r++) {
+            prepare.run();
+            subChanges[0] = 0;
+            long start = System.nanoTime();
+            action.run();
+            duration += System.nanoTime() - start;
+        }
+        indicesList.removeListener(l);
+        double perOp = duration / (RUNS * 1_000_000.);
+        System.out.printf("%-28s %,14.3f ms/op   sub-changes: %d%n", name, perOp, subChanges[0]);
+    }
+
+    /**
+     * The previous implementation of IndicesBase.get: walks from the first set bit.
+     */
+    static int legacyGet(BitSet bitSet, int listIndex) {
+        int pos = 0;
+        int val = bitSet.nextSetBit(0);
+        while (pos < listIndex) {
+            pos++;
+            val = bitSet.nextSetBit(val + 1);
+        }
+        return val;
+    }
+
+    /**
+     * The previous implementation of IndicesBase.indexOf: linear search
+     * over the set bits. Note: this is generous to the previous implementation, 
+     * AbstractList.indexOf calls get at each position which is quadratic.
+     */
+    static int legacyIndexOf(BitSet bitSet, int value) {
+        int index = 0;
+        for (int i = bitSet.nextSetBit(0); i >= 0; i = bitSet.nextSetBit(i + 1)) {
+            if (i == value) return index;
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * IndicesList with the previous implementations of shift (clear/set 
+     * and nextSet per bit) and of add/clear (a sub-change per index).
+     */
+    static class LegacyIndicesList<T> extends IndicesList<T> {
+
+        public LegacyIndicesList(ObservableList<T> items) {
+            super(items);
+        }
+
+        @Override
+        protected void doShiftLeft(int from, int removedSize) {
+            for (int i = bitSet.nextSetBit(from); i >= 0; i = bitSet.nextSetBit(i + 1)) {
+                int pos = indexOf(i);
+                bitSet.clear(i);
+                bitSet.set(i - removedSize);
+                nextSet(pos, i);
+            }
+        }
+
+        @Override
+        protected void doShiftRight(int from, int addedSize) {
+            for (int i = bitSet.length(); (i = bitSet.previousSetBit(i - 1)) >= from;) {
+                int pos = indexOf(i);
+                bitSet.clear(i);
+                bitSet.set(i + addedSize);
+                nextSet(pos, i);
+            }
+        }
+
+        @Override
+        protected void doAddIndices(int... indices) {
+            for (int i : indices) {
+                if (bitSet.get(i)) continue;
+                bitSet.set(i);
+                int from = indexOf(i);
+                nextAdd(from, from + 1);
+            }
+        }
+
+        @Override
+        protected boolean doClearIndices(int... indices) {
+            boolean removed = false;
+            for (int i : indices) {
+                if (!bitSet.get(i)) continue;
+                int from = indexOf(i);
+                bitSet.clear(i);
+                nextRemove(from, i);
+                removed = true;
+            }
+            return removed;
+        }
+
+        @Override
+        protected void doClearAllIndicesExcept(int... indices) {
+            List<Integer> toSet = Arrays.stream(indices).boxed().collect(Collectors.toList());
+            doClearIndices(stream()
+                    .filter(p -> !toSet.contains(p))
+                    .mapToInt(Integer::intValue)
+                    .toArray());
+        }
+    }
+
+    /**
+     * IndexMappedList with the previous implementation of permutatedItems:
+     * copy and re-sort all old indices.
+     */
+    static class LegacyIndexMappedList<T> extends IndexMappedList<T> {
+
+        private final SortHelper sortHelper = new SortHelper();
+
+        public LegacyIndexMappedList(IndicesList<T> source) {
+            super(source);
+        }
+
+        @Override
+        protected void permutatedItems(Change<? extends T> c) {
+            List<Integer> perm = new ArrayList<>(getIndicesList().oldIndices);
+            for (int i = 0; i < getIndicesList().oldIndices.size(); i++) {
+                perm.set(i, c.getPermutation(getIndicesList().oldIndices.get(i)));
+            }
+            int[] permutation = sortHelper.sort(perm);
+            nextPermutation(0, perm.size(), permutation);
+        }
+    }
+
+    /**
+     * Backing list which fires a permutation for reversing a range, the 
+     * equivalent of sorting that range.
+     */
+    static class ReversibleList extends ObservableListBase<Integer> {
+
+        private final int[] data;
+
+        public ReversibleList(int size) {
+            data = new int[size];
+            for (int i = 0; i < size; i++) {
+                data[i] = i;
+            }
+        }
+
+        public void reverse(int from, int to) {
+            int[] permutation = new int[to - from];
+            for (int i = from; i < to; i++) {
+                permutation[i - from] = to - 1 - (i - from);
+            }
+            for (int i = from, j = to - 1; i < j; i++, j--) {
+                int temp = data[i];
+                data[i] = data[j];
+                data[j] = temp;
+            }
+            beginChange();
+            nextPermutation(from, to, permutation);
+            endChange();
+        }
+
+        @Override
+        public Integer get(int index) {
+            return data[index];
+        }
+
+        @Override
+        public int size() {
+            return data.length;
+        }
+    }
+
+    static int[] randomIndices(int bound, int count) {
+        Random random = new Random(0);
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = random.nextInt(bound);
+        }
+        return result;
+    }
+
+    static IndicesList<Integer> createIndicesList(int size) {
+        return new IndicesList<>(createItems(size));
+    }
+
+    static ObservableList<Integer> createItems(int size) {
+        Integer[] data = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = i;
+        }
+        return FXCollections.observableArrayList(data);
+    }
+}
@@ -20,6 +20,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ListChangeListener.Change;
 import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
 import javafx.collections.transformation.TransformationList;
 
 import org.junit.Before;
@@ -297,6 +298,47 @@ public class IndicesListTest {
                 wasSingleReplaced(report.getLastChange()));
     }
     
+    /**
+     * Shift of all indices is reported as single replaced with old values.
+     */
+    @Test
+    public void testItemsAddedBeforeAllSet() {
+        indicesList.setAllIndices();
+        int size = indicesList.size();
+        report.clear();
+        items.add(0, "newItem");
+        assertEquals(size, indicesList.size());
+        assertEquals(1, indicesList.get(0).intValue());
+        assertEquals(size, indicesList.get(size - 1).intValue());
+        assertEquals(1, report.getEventCount());
+        Change c = report.getLastChange();
+        assertTrue("expected single replaced, but was " + c, wasSingleReplaced(c));
+        c.reset();
+        c.next();
+        assertEquals(0, c.getFrom());
+        assertEquals(size, c.getTo());
+        assertEquals(0, c.getRemoved().get(0));
+        assertEquals(size - 1, c.getRemoved().get(size - 1));
+    }
+
+    /**
+     * Snapshot of old state taken before updating on items change.
+     */
+    @Test
+    public void testOldIndicesSnapshot() {
+        int[] indices = new int[] { 3, 5, 1};
+        indicesList.addIndices(indices);
+        items.add(0, "newItem");
+        IndicesSnapshot old = indicesList.getOldIndices();
+        assertEquals(Arrays.asList(1, 3, 5), old);
+        assertEquals(1, old.indexOf(3));
+        assertEquals(-1, old.indexOf(4));
+        assertTrue(old.contains(5));
+        assertEquals(1, old.indexOfFirstInRange(2, 6));
+        assertEquals(-1, old.indexOfFirstInRange(6, 8));
+        assertEquals(Arrays.asList(2, 4, 6), indicesList);
+    }
+    
     @Test
     public void testItemsRemovedBeforeAndWithFirst() {
         int[] indices = new int[] { 3, 5, 1};
@@ -691,6 +733,8 @@ public class IndicesListTest {
     /**
      * Test notification on setAll if there are already set indices.
      * Changed implementation due to RT-39776, test assumption incorrect.
+     * Changed implementation to complement representation: single replaced
+     * with previously set as removed.
      */
     @Test
     public void testSetAllNotificationIfHasSet() {
@@ -702,7 +746,140 @@ public class IndicesListTest {
         assertEquals(items.size(), indicesList.size());
         assertEquals(1, report.getEventCount());
         Change c = report.getLastChange();
-        assertEquals(4, getChangeCount(c, ChangeType.ADDED));
+        assertTrue("expected single replaced, but was " + c, wasSingleReplaced(c));
+        c.reset();
+        c.next();
+        assertEquals(0, c.getFrom());
+        assertEquals(items.size(), c.getTo());
+        assertEquals(Arrays.asList(1, 3, 5), c.getRemoved());
+    }
+    
+    @Test
+    public void testSetAllIsComplement() {
+        indicesList.setAllIndices();
+        assertTrue(indicesList.bitSet instanceof ComplementIndicesStore);
+        indicesList.clearIndices(3);
+        assertEquals(items.size() - 1, indicesList.size());
+        assertFalse(indicesList.contains(3));
+        assertEquals(4, indicesList.get(3).intValue());
+        assertEquals(3, indicesList.indexOf(4));
+        indicesList.clearAllIndices();
+        assertTrue(indicesList.isEmpty());
+        assertTrue("back to plain store", indicesList.bitSet instanceof RankedBitSet);
+    }
+    
+    /**
+     * ClearAll after setAll on a huge source must neither walk the source 
+     * nor box the removed indices.
+     */
+    @Test
+    public void testClearAllAfterSetAllHugeSource() {
+        int size = 50_000_000;
+        HugeList huge = new HugeList(size);
+        IndicesList<Integer> indices = new IndicesList<>(huge);
+        ListChangeReport report = new ListChangeReport(indices);
+        indices.setAllIndices();
+        assertEquals(size, indices.size());
+        indices.clearAllIndices();
+        assertTrue(indices.isEmpty());
+        assertEquals("source must not be accessed", 0, huge.accessCount);
+        assertEquals(2, report.getEventCount());
+        Change c = report.getLastChange();
+        c.next();
+        assertTrue(c.wasRemoved());
+        assertEquals(size, c.getRemovedSize());
+        assertTrue("removed must be lazy, but was: " + c.getRemoved().getClass(), 
+                c.getRemoved() instanceof IndicesSnapshot);
+        assertEquals(size - 1, c.getRemoved().get(size - 1).intValue());
+    }
+    
+    /**
+     * SetIndices after setAll on a huge source (f.i. click after select all)
+     * must neither walk the source nor clear and box per removed index.
+     */
+    @Test
+    public void testSetIndicesAfterSetAllHugeSource() {
+        int size = 50_000_000;
+        HugeList huge = new HugeList(size);
+        IndicesList<Integer> indices = new IndicesList<>(huge);
+        indices.setAllIndices();
+        ListChangeReport report = new ListChangeReport(indices);
+        indices.setIndices(10);
+        assertEquals(Arrays.asList(10), indices);
+        assertTrue("back to plain store", indices.bitSet instanceof RankedBitSet);
+        assertEquals("source must not be accessed", 0, huge.accessCount);
+        assertEquals(1, report.getEventCount());
+        Change c = report.getLastChange();
+        c.reset();
+        assertTrue(c.next());
+        assertEquals(0, c.getFrom());
+        assertEquals(10, c.getRemovedSize());
+        assertFalse("kept index not added", c.wasAdded());
+        assertTrue(c.next());
+        assertEquals(1, c.getFrom());
+        assertEquals(size - 11, c.getRemovedSize());
+        assertEquals(11, c.getRemoved().get(0).intValue());
+        assertEquals(size - 1, c.getRemoved().get(size - 12).intValue());
+        assertFalse(c.next());
+    }
+    
+    /**
+     * Source of given size which counts element access.
+     */
+    public static class HugeList extends ObservableListBase<Integer> {
+        
+        private int size;
+        int accessCount;
+        
+        public HugeList(int size) {
+            this.size = size;
+        }
+        
+        @Override
+        public Integer get(int index) {
+            accessCount++;
+            return index;
+        }
+        
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+    
+    @Test
+    public void testInvertIndices() {
+        int[] indices = new int[] { 3, 5, 1};
+        indicesList.addIndices(indices);
+        report.clear();
+        indicesList.invertIndices();
+        assertEquals(Arrays.asList(0, 2, 4, 6, 7, 8), indicesList);
+        assertEquals(1, report.getEventCount());
+        Change c = report.getLastChange();
+        assertTrue("expected single replaced, but was " + c, wasSingleReplaced(c));
+        c.reset();
+        c.next();
+        assertEquals(Arrays.asList(1, 3, 5), c.getRemoved());
+        assertEquals(Arrays.asList(0, 2, 4, 6, 7, 8), c.getAddedSubList());
+        indicesList.invertIndices();
+        assertEquals(Arrays.asList(1, 3, 5), indicesList);
+    }
+    
+    /**
+     * Items added after invert are not selected.
+     */
+    @Test
+    public void testInvertIndicesItemsAdded() {
+        indicesList.addIndices(3);
+        indicesList.invertIndices();
+        items.add(0, "newItem");
+        items.add("lastItem");
+        assertFalse(indicesList.contains(0));
+        assertFalse(indicesList.contains(4));
+        assertFalse(indicesList.contains(items.size() - 1));
+        assertEquals(items.size() - 3, indicesList.size());
+        indicesList.invertIndices();
+        assertEquals(Arrays.asList(0, 4, items.size() - 1), indicesList);
     }
     
     /**
@@ -852,6 +1029,37 @@ public class IndicesListTest {
         assertEquals(3, getChangeCount(report.getLastChange()));
     }
     
+    /**
+     * Unsorted indices that are contiguous in this fire a single added.
+     */
+    @Test
+    public void testAddUnsortedSingleAdded() {
+        indicesList.addIndices(8, 2, 7, 1);
+        assertEquals(Arrays.asList(1, 2, 7, 8), indicesList);
+        assertEquals(1, report.getEventCount());
+        Change c = report.getLastChange();
+        assertTrue("expected single added, but was " + c, wasSingleAdded(c));
+        c.reset();
+        c.next();
+        assertEquals(0, c.getFrom());
+        assertEquals(4, c.getTo());
+    }
+    
+    /**
+     * Invert selection: a removed per old and added per new index
+     * would be size sub-changes, coalesced are 2.
+     */
+    @Test
+    public void testSetIndicesInvert() {
+        indicesList.setIndices(0, 1, 2);
+        report.clear();
+        indicesList.setIndices(3, 4, 5);
+        assertEquals(Arrays.asList(3, 4, 5), indicesList);
+        assertEquals(1, report.getEventCount());
+        assertTrue("expected at most 2 sub-changes, but was " + report.getLastChange(), 
+                getChangeCount(report.getLastChange()) <= 2);
+    }
+    
     @Test
     public void testAddMultiple() {
         int[] indices = new int[] { 3, 5, 1};
@@ -917,6 +1125,63 @@ public class IndicesListTest {
     }
     
     
+    /**
+     * indexOf/contains are implemented by rank of the bitSet.
+     */
+    @Test
+    public void testIndexOf() {
+        int[] indices = new int[] { 3, 5, 1};
+        indicesList.addIndices(indices);
+        Arrays.sort(indices);
+        for (int i = 0; i < indices.length; i++) {
+            assertEquals("indexOf " + indices[i], i, indicesList.indexOf(indices[i]));
+            assertEquals("lastIndexOf " + indices[i], i, indicesList.lastIndexOf(indices[i]));
+            assertTrue(indicesList.contains(indices[i]));
+        }
+        assertEquals(-1, indicesList.indexOf(2));
+        assertEquals(-1, indicesList.indexOf(-1));
+        assertEquals(-1, indicesList.indexOf("3"));
+        assertFalse(indicesList.contains(100));
+    }
+    
+    @Test
+    public void testPrimitiveApi() {
+        int[] indices = new int[] { 3, 5, 1};
+        indicesList.addIndices(indices);
+        Arrays.sort(indices);
+        assertArrayEquals(indices, indicesList.toIntArray());
+        assertArrayEquals(indices, indicesList.intStream().toArray());
+        List<Integer> visited = new ArrayList<>();
+        indicesList.forEachIndex(visited::add);
+        assertEquals(indicesList, visited);
+        visited.clear();
+        indicesList.forEachIndex(1, 3, visited::add);
+        assertEquals(indicesList.subList(1, 3), visited);
+        for (int i = 0; i < indices.length; i++) {
+            assertEquals(indices[i], indicesList.getInt(i));
+            assertEquals(i, indicesList.indexOf(indices[i]));
+            assertTrue(indicesList.contains(indices[i]));
+        }
+        assertFalse(indicesList.contains(2));
+    }
+    
+    /**
+     * Added values are accessible without boxing from the change.
+     */
+    @Test
+    public void testPrimitiveApiOnChange() {
+        List<Integer> added = new ArrayList<>();
+        indicesList.addListener((ListChangeListener<Integer>) c -> {
+            while (c.next()) {
+                if (c.wasAdded()) {
+                    indicesList.forEachIndex(c.getFrom(), c.getTo(), added::add);
+                }
+            }
+        });
+        indicesList.addIndices(3, 5, 1);
+        assertEquals(Arrays.asList(1, 3, 5), added);
+    }
+    
     @Test
     public void testAddEmpty() {
         indicesList.addIndices();
@@ -0,0 +1,173 @@
+/*
+ * Created on 17.10.2026
+ *
+ */
+package de.swingempire.fx.collection;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for RankedBitSet: rank/select and equivalence to java.util.BitSet.
+ */
+@RunWith(JUnit4.class)
+public class RankedBitSetTest {
+
+    RankedBitSet bitSet;
+
+    @Test
+    public void testRandomOperationsSameAsBitSet() {
+        Random random = new Random(42);
+        BitSet base = new BitSet();
+        int max = 5000;
+        for (int op = 0; op < 20000; op++) {
+            int index = random.nextInt(max);
+            int type = random.nextInt(10);
+            if (type < 4) {
+                bitSet.set(index);
+                base.set(index);
+            } else if (type < 7) {
+                bitSet.clear(index);
+                base.clear(index);
+            } else if (type == 7) {
+                int to = index + random.nextInt(max - index + 1);
+                bitSet.set(index, to);
+                base.set(index, to);
+            } else if (type == 8) {
+                int to = index + random.nextInt(max - index + 100);
+                bitSet.clear(index, to);
+                base.clear(index, to);
+            }
+            if (op % 100 == 0) {
+                assertSameBits(base, bitSet);
+            }
+        }
+        assertSameBits(base, bitSet);
+    }
+
+    @Test
+    public void testShiftSameAsBitByBit() {
+        Random random = new Random(7);
+        for (int round = 0; round < 500; round++) {
+            bitSet.clear();
+            BitSet base = new BitSet();
+            int max = 1 + random.nextInt(700);
+            for (int i = 0; i < max / 3; i++) {
+                int index = random.nextInt(max);
+                bitSet.set(index);
+                base.set(index);
+            }
+            int from = random.nextInt(max + 10);
+            int distance = random.nextInt(300);
+            BitSet expected = new BitSet();
+            if (random.nextBoolean()) {
+                for (int i = base.nextSetBit(0); i >= 0; i = base.nextSetBit(i + 1)) {
+                    expected.set(i < from ? i : i + distance);
+                }
+                bitSet.shiftRight(from, distance);
+            } else {
+                for (int i = base.nextSetBit(0); i >= 0; i = base.nextSetBit(i + 1)) {
+                    if (i < from) {
+                        expected.set(i);
+                    } else if (i >= from + distance) {
+                        expected.set(i - distance);
+                    }
+                }
+                bitSet.shiftLeft(from, distance);
+            }
+            assertSameBits(expected, bitSet);
+        }
+    }
+
+    @Test
+    public void testRankSelectSparse() {
+        int[] indices = {3, 64, 511, 512, 513, 100_000};
+        for (int index : indices) {
+            bitSet.set(index);
+        }
+        for (int i = 0; i < indices.length; i++) {
+            assertEquals("select " + i, indices[i], bitSet.select(i));
+            assertEquals("rank " + indices[i], i, bitSet.rank(indices[i]));
+        }
+        assertEquals(-1, bitSet.select(indices.length));
+        assertEquals(indices.length, bitSet.rank(Integer.MAX_VALUE));
+    }
+
+    /**
+     * Incremental update of the summary after it had been built.
+     */
+    @Test
+    public void testRankAfterSingleModification() {
+        bitSet.set(0, 2000);
+        assertEquals(1000, bitSet.rank(1000));
+        bitSet.clear(10);
+        assertEquals(999, bitSet.rank(1000));
+        assertEquals(999, bitSet.select(998));
+        bitSet.set(10);
+        assertEquals(1000, bitSet.rank(1000));
+    }
+
+    @Test
+    public void testCloneIsIndependent() {
+        bitSet.set(5);
+        RankedBitSet clone = bitSet.clone();
+        bitSet.set(10);
+        assertEquals(1, clone.cardinality());
+        assertFalse(clone.get(10));
+        assertEquals(1, clone.rank(6));
+    }
+
+    @Test
+    public void testCopyFrom() {
+        bitSet.set(0, 2000);
+        RankedBitSet other = new RankedBitSet();
+        other.set(3);
+        other.set(700);
+        bitSet.copyFrom(other);
+        assertEquals(other, bitSet);
+        assertEquals(2, bitSet.cardinality());
+        assertEquals(1, bitSet.rank(700));
+        assertEquals(-1, bitSet.nextSetBit(701));
+        other.set(5);
+        assertFalse(bitSet.get(5));
+        other.set(100_000);
+        bitSet.copyFrom(other);
+        assertEquals(100_000, bitSet.select(3));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertTrue(bitSet.isEmpty());
+        assertEquals(0, bitSet.length());
+        assertEquals(-1, bitSet.select(0));
+        assertEquals(0, bitSet.rank(100));
+    }
+
+    private void assertSameBits(BitSet base, RankedBitSet bits) {
+        assertEquals("cardinality", base.cardinality(), bits.cardinality());
+        assertEquals("length", base.length(), bits.length());
+        int rank = 0;
+        for (int i = 0; i <= base.length(); i++) {
+            assertEquals("rank at " + i, rank, bits.rank(i));
+            assertEquals("next at " + i, base.nextSetBit(i), bits.nextSetBit(i));
+            assertEquals("previous at " + i, base.previousSetBit(i), bits.previousSetBit(i));
+            assertEquals("previous clear at " + i, base.previousClearBit(i), bits.previousClearBit(i));
+            if (base.get(i)) {
+                assertEquals("select " + rank, i, bits.select(rank));
+                rank++;
+            }
+        }
+    }
+
+    @Before
+    public void setup() {
+        bitSet = new RankedBitSet();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Created on 18.10.2026
+ *
+ */
+package de.swingempire.fx.collection;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for RunLengthBitSet: equivalence to java.util.BitSet, rank/select
+ * and compression.
+ */
+@RunWith(JUnit4.class)
+public class RunLengthBitSetTest {
+
+    RunLengthBitSet bitSet;
+
+    @Test
+    public void testRandomOperationsSameAsBitSet() {
+        Random random = new Random(42);
+        BitSet base = new BitSet();
+        int max = 3000;
+        for (int op = 0; op < 20000; op++) {
+            int index = random.nextInt(max);
+            int type = random.nextInt(10);
+            if (type < 4) {
+                bitSet.set(index);
+                base.set(index);
+            } else if (type < 7) {
+                bitSet.clear(index);
+                base.clear(index);
+            } else if (type == 7) {
+                int to = index + random.nextInt(100);
+                bitSet.set(index, to);
+                base.set(index, to);
+            } else if (type == 8) {
+                int to = index + random.nextInt(200);
+                bitSet.clear(index, to);
+                base.clear(index, to);
+            }
+            if (op % 100 == 0) {
+                assertSameBits(base, bitSet);
+            }
+        }
+        assertSameBits(base, bitSet);
+    }
+
+    @Test
+    public void testShiftSameAsBitByBit() {
+        Random random = new Random(7);
+        for (int round = 0; round < 500; round++) {
+            bitSet.clear();
+            BitSet base = new BitSet();
+            int max = 1 + random.nextInt(700);
+            for (int i = 0; i < max / 10; i++) {
+                int index = random.nextInt(max);
+                int to = index + random.nextInt(20);
+                bitSet.set(index, to);
+                base.set(index, to);
+            }
+            int from = random.nextInt(max + 10);
+            int distance = random.nextInt(300);
+            BitSet expected = new BitSet();
+            if (random.nextBoolean()) {
+                for (int i = base.nextSetBit(0); i >= 0; i = base.nextSetBit(i + 1)) {
+                    expected.set(i < from ? i : i + distance);
+                }
+                bitSet.shiftRight(from, distance);
+            } else {
+                for (int i = base.nextSetBit(0); i >= 0; i = base.nextSetBit(i + 1)) {
+                    if (i < from) {
+                        expected.set(i);
+                    } else if (i >= from + distance) {
+                        expected.set(i - distance);
+                    }
+                }
+                bitSet.shiftLeft(from, distance);
+            }
+            assertSameBits(expected, bitSet);
+        }
+    }
+
+    /**
+     * Select all except a few is a run per hole, independent of the size.
+     */
+    @Test
+    public void testAllExceptFew() {
+        int size = 50_000_000;
+        bitSet.set(0, size);
+        bitSet.clear(10);
+        bitSet.clear(20_000_000);
+        assertEquals(3, bitSet.getRunCount());
+        assertEquals(size - 2, bitSet.cardinality());
+        assertEquals(size, bitSet.length());
+        assertEquals(19_999_999, bitSet.rank(20_000_001));
+        assertEquals(20_000_001, bitSet.select(19_999_999));
+        assertEquals(11, bitSet.nextSetBit(10));
+        assertEquals(20_000_000, bitSet.nextClearBit(11));
+        bitSet.shiftLeft(10, 1);
+        assertEquals(2, bitSet.getRunCount());
+    }
+
+    @Test
+    public void testCopyFromRankedBitSet() {
+        RankedBitSet other = new RankedBitSet();
+        other.set(3);
+        other.set(100, 700);
+        bitSet.set(0, 2000);
+        bitSet.copyFrom(other);
+        assertEquals(2, bitSet.getRunCount());
+        assertEquals(601, bitSet.cardinality());
+        RankedBitSet back = new RankedBitSet();
+        back.copyFrom(bitSet);
+        assertEquals(other, back);
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        bitSet.set(5);
+        RunLengthBitSet copy = bitSet.copy();
+        bitSet.set(10);
+        assertEquals(1, copy.cardinality());
+        assertFalse(copy.get(10));
+        assertEquals(1, copy.rank(6));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertTrue(bitSet.isEmpty());
+        assertEquals(0, bitSet.length());
+        assertEquals(-1, bitSet.select(0));
+        assertEquals(0, bitSet.rank(100));
+        assertEquals(-1, bitSet.nextSetBit(0));
+        assertEquals(-1, bitSet.previousSetBit(100));
+    }
+
+    private void assertSameBits(BitSet base, RunLengthBitSet bits) {
+        assertEquals("cardinality", base.cardinality(), bits.cardinality());
+        assertEquals("length", base.length(), bits.length());
+        int rank = 0;
+        for (int i = 0; i <= base.length(); i++) {
+            assertEquals("get at " + i, base.get(i), bits.get(i));
+            assertEquals("rank at " + i, rank, bits.rank(i));
+            assertEquals("next at " + i, base.nextSetBit(i), bits.nextSetBit(i));
+            assertEquals("next clear at " + i, base.nextClearBit(i), bits.nextClearBit(i));
+            assertEquals("previous at " + i, base.previousSetBit(i), bits.previousSetBit(i));
+            assertEquals("previous clear at " + i, base.previousClearBit(i), bits.previousClearBit(i));
+            if (base.get(i)) {
+                assertEquals("select " + rank, i, bits.select(rank));
+                rank++;
+            }
+        }
+    }
+
+    @Before
+    public void setup() {
+        bitSet = new RunLengthBitSet();
+    }
+}
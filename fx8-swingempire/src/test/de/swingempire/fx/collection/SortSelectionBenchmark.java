@@ -0,0 +1,133 @@
+/*
+ * Created on 18.10.2026
+ *
+ */
+package de.swingempire.fx.collection;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.embed.swing.JFXPanel;
+import javafx.scene.control.ListView;
+import javafx.scene.control.MultipleSelectionModel;
+import javafx.scene.control.SelectionMode;
+
+import javax.swing.SwingUtilities;
+
+import de.swingempire.fx.scene.control.selection.ListViewBitSetSelectionModel;
+
+/**
+ * Poor man's benchmark for sorting the items of a ListView with 1M rows
+ * and every other row selected, comparing ListViewBitSetSelectionModel
+ * (remapping the selection in place) against core's selection model
+ * (clear and reselect via a boxed lookup). Not a unit test, run manually.
+ * <p>
+ *
+ * Reports per sort the time, the number of sub-changes fired by
+ * selectedIndices and selectedItems and the number of cells updated,
+ * that is the sum of removed and added sizes of the selectedItems
+ * sub-changes.
+ *
+ * @see IndicesBenchmark
+ */
+public class SortSelectionBenchmark {
+
+    static final int SIZE = 1_000_000;
+    static final int WARMUP = 2;
+    static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        SwingUtilities.invokeAndWait(() -> new JFXPanel());
+        CountDownLatch latch = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try {
+                benchmarkSort(SIZE);
+            } finally {
+                latch.countDown();
+            }
+        });
+        latch.await();
+        Platform.exit();
+        System.exit(0);
+    }
+
+    static void benchmarkSort(int size) {
+        System.out.println("---- sort rows: " + size + " / selected: " + size / 2);
+        measure("bitset model", size, ListViewBitSetSelectionModel::new);
+        measure("core model", size, ListView::getSelectionModel);
+    }
+
+    /**
+     * Sorts the items alternately ascending and descending, WARMUP times
+     * without and RUNS times with timing.
+     */
+    static void measure(String name, int size,
+            Function<ListView<Integer>, MultipleSelectionModel<Integer>> factory) {
+        ListView<Integer> listView = new ListView<>(createItems(size));
+        MultipleSelectionModel<Integer> selectionModel = factory.apply(listView);
+        listView.setSelectionModel(selectionModel);
+        selectionModel.setSelectionMode(SelectionMode.MULTIPLE);
+        int[] others = new int[size / 2 - 1];
+        for (int i = 0; i < others.length; i++) {
+            others[i] = 2 * (i + 1);
+        }
+        selectionModel.selectIndices(0, others);
+        // the last selected, its item should stay the selectedItem
+        Integer selectedItem = selectionModel.getSelectedItem();
+        int[] indicesChanges = new int[1];
+        int[] itemsChanges = new int[1];
+        long[] cells = new long[1];
+        selectionModel.getSelectedIndices().addListener((ListChangeListener<Integer>) c -> {
+            while (c.next()) {
+                indicesChanges[0]++;
+            }
+        });
+        selectionModel.getSelectedItems().addListener((ListChangeListener<Integer>) c -> {
+            while (c.next()) {
+                itemsChanges[0]++;
+                cells[0] += c.getRemovedSize() + c.getAddedSize();
+            }
+        });
+        ObservableList<Integer> items = listView.getItems();
+        List<Comparator<Integer>> comparators = Arrays.asList(
+                Comparator.naturalOrder(), Comparator.reverseOrder());
+        long duration = 0;
+        for (int r = 0; r < WARMUP + RUNS; r++) {
+            indicesChanges[0] = 0;
+            itemsChanges[0] = 0;
+            cells[0] = 0;
+            long start = System.nanoTime();
+            FXCollections.sort(items, comparators.get(r % 2));
+            if (r >= WARMUP) {
+                duration += System.nanoTime() - start;
+            }
+        }
+        double perOp = duration / (RUNS * 1_000_000.);
+        System.out.printf("%-16s %,10.1f ms/sort   sub-changes indices/items: %d/%d   cells: %d"
+                + "   selected: %d   selectedItem kept: %b%n",
+                name, perOp, indicesChanges[0], itemsChanges[0], cells[0],
+                selectionModel.getSelectedIndices().size(),
+                selectedItem.equals(selectionModel.getSelectedItem()));
+    }
+
+    /**
+     * Returns a list of the integers in [0, size) in random order.
+     */
+    static ObservableList<Integer> createItems(int size) {
+        Integer[] data = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = i;
+        }
+        Collections.shuffle(Arrays.asList(data), new Random(0));
+        return FXCollections.observableArrayList(data);
+    }
+}
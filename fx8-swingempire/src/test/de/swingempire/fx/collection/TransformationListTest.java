@@ -147,6 +147,119 @@ public class TransformationListTest {
         assertSame(null, filtered.getPredicate());
     }
     
+    /**
+     * Parallel evaluation must result in the same content as sequential.
+     */
+    @Test
+    public void testFilteredXParallel() {
+        ObservableList<String> list = createObservableList(true);
+        FilteredListX<String> sequential = new FilteredListX<>(list);
+        FilteredListX<String> parallel = new FilteredListX<>(list);
+        parallel.setParallelThreshold(1);
+        ListChangeReport report = new ListChangeReport(parallel);
+        Predicate<String> predicate = p -> list.indexOf(p) % 2 == 0;
+        sequential.setPredicate(predicate);
+        parallel.setPredicate(predicate);
+        assertEquals(sequential, parallel);
+        assertEquals(1, report.getEventCount());
+        for (int i = 0; i < parallel.size(); i++) {
+            assertEquals(sequential.getSourceIndex(i), parallel.getSourceIndex(i));
+        }
+    }
+    
+    @Test (expected = IllegalArgumentException.class)
+    public void testFilteredXParallelThresholdInvalid() {
+        new FilteredListX<>(createObservableList(true)).setParallelThreshold(0);
+    }
+    
+    /**
+     * Async filtering: superseded computation is cancelled, result is 
+     * published as diff.
+     */
+    @Test
+    public void testFilteredXAsync() {
+        ObservableList<String> list = createObservableList(true);
+        FilteredListX<String> filtered = new FilteredListX<>(list);
+        List<Runnable> work = new ArrayList<>();
+        List<Runnable> results = new ArrayList<>();
+        filtered.setFilterExecutor(work::add);
+        filtered.setResultExecutor(results::add);
+        ListChangeReport report = new ListChangeReport(filtered);
+        filtered.setPredicate(p -> false);
+        assertTrue(filtered.isFiltering());
+        filtered.setPredicate(p -> list.indexOf(p) % 2 == 0);
+        assertEquals("unchanged until published", list.size(), filtered.size());
+        work.forEach(Runnable::run);
+        results.forEach(Runnable::run);
+        assertFalse(filtered.isFiltering());
+        assertEquals(1, report.getEventCount());
+        assertEquals("disjoint removes", list.size() / 2, getChangeCount(report.getLastChange()));
+        assertEquals((list.size() + 1) / 2, filtered.size());
+    }
+    
+    /**
+     * Async filtering: a failing predicate is reported by the 
+     * filterExceptionProperty, the state is unchanged. 
+     */
+    @Test
+    public void testFilteredXAsyncFailure() {
+        ObservableList<String> list = createObservableList(true);
+        FilteredListX<String> filtered = new FilteredListX<>(list);
+        List<Runnable> work = new ArrayList<>();
+        List<Runnable> results = new ArrayList<>();
+        filtered.setFilterExecutor(work::add);
+        filtered.setResultExecutor(results::add);
+        ListChangeReport report = new ListChangeReport(filtered);
+        IllegalArgumentException failure = new IllegalArgumentException("failing predicate");
+        filtered.setPredicate(p -> { throw failure; });
+        work.forEach(Runnable::run);
+        results.forEach(Runnable::run);
+        assertFalse(filtered.isFiltering());
+        assertSame(failure, filtered.getFilterException());
+        assertEquals(list.size(), filtered.size());
+        assertEquals(0, report.getEventCount());
+        filtered.setPredicate(null);
+        assertNull("reset on next filtering", filtered.getFilterException());
+    }
+    
+    /**
+     * Changing the predicate must not reset the selection of items 
+     * that survive the change.
+     */
+    @Test
+    public void testFilteredXKeepsSurvivingSelection() {
+        ObservableList<String> list = createObservableList(true);
+        FilteredListX<String> filtered = new FilteredListX<>(list);
+        IndicesList<String> indicesList = new IndicesList<>(filtered);
+        indicesList.setIndices(0, 2, 4);
+        filtered.setPredicate(p -> p != list.get(1) && p != list.get(2));
+        assertEquals(2, indicesList.size());
+        assertEquals(list.get(0), filtered.get(indicesList.getInt(0)));
+        assertEquals(list.get(4), filtered.get(indicesList.getInt(1)));
+    }
+    
+    /**
+     * Refinement re-tests included only, relaxation excluded only.
+     */
+    @Test
+    public void testFilteredXRefineRelax() {
+        ObservableList<String> list = createObservableList(true);
+        FilteredListX<String> filtered = new FilteredListX<>(list);
+        filtered.setPredicate(p -> list.indexOf(p) % 2 == 0);
+        int included = filtered.size();
+        List<String> tested = new ArrayList<>();
+        filtered.refinePredicate(p -> tested.add(p) && list.indexOf(p) % 4 == 0);
+        assertEquals("refine tests included only", included, tested.size());
+        assertEquals((list.size() + 3) / 4, filtered.size());
+        int refined = filtered.size();
+        tested.clear();
+        ListChangeReport report = new ListChangeReport(filtered);
+        filtered.relaxPredicate(p -> tested.add(p) && list.indexOf(p) % 2 == 0);
+        assertEquals("relax tests excluded only", list.size() - refined, tested.size());
+        assertEquals(included, filtered.size());
+        assertEquals(1, report.getEventCount());
+    }
+    
     /**
      * Basically trying to test that all notification paths can cope with
      * null, so need a failing test ;)
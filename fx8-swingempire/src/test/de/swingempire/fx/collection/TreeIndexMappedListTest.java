@@ -4,6 +4,7 @@
  */
 package de.swingempire.fx.collection;
 
+import java.util.Arrays;
 import java.util.List;
 
 import javafx.collections.FXCollections;
@@ -508,6 +509,58 @@ public class TreeIndexMappedListTest {
         assertEquals("nothing fired", 0, report.getEventCount());
     }
     
+    /**
+     * Sorting children in place: the selected items are unchanged, their 
+     * order in this changes with their rows.
+     */
+    @Test
+    public void testPermutateChildren() {
+        TreeItemX child = createBranch("expandedChild");
+        child.setExpanded(true);
+        rootChildren.add(1, child);
+        // child, its second grandChild and a child below
+        indicesList.setIndices(2, 4, 13);
+        TreeItem grandChild = tree.getTreeItem(4);
+        TreeItem below = tree.getTreeItem(13);
+        report.clear();
+        FXCollections.sort(rootChildren, (a, b) -> a.getValue().toString().compareTo(b.getValue().toString()));
+        assertEquals(3, indexedItems.size());
+        assertEquals(below, indexedItems.get(0));
+        assertEquals(child, indexedItems.get(1));
+        assertEquals(grandChild, indexedItems.get(2));
+        assertEquals("eventCount", 1, report.getEventCount());
+        assertTrue("singlePermutated", wasSinglePermutated(report.getLastChange()));
+    }
+    
+    /**
+     * Modifications of the children of several parents in a batch: removed
+     * items are removed, the others kept in a single change.
+     */
+    @Test
+    public void testBatchModifications() {
+        TreeItemX child = createBranch("expandedChild");
+        child.setExpanded(true);
+        rootChildren.add(1, child);
+        // first child, second grandChild and a child below
+        indicesList.setIndices(1, 4, 13);
+        TreeItem first = tree.getTreeItem(1);
+        TreeItem grandChild = tree.getTreeItem(4);
+        TreeItem below = tree.getTreeItem(13);
+        report.clear();
+        TreeItemX.batch(() -> {
+            rootChildren.remove(0);
+            child.getChildren().addAll(0, createItems(rawItems.subList(0, 2)));
+            rootChildren.add(createItem("last"));
+        });
+        assertEquals(Arrays.asList(grandChild, below), indexedItems);
+        assertEquals("eventCount", 1, report.getEventCount());
+        assertTrue("singleRemoved ", wasSingleRemoved(report.getLastChange()));
+        Change c = report.getLastChange();
+        c.reset();
+        c.next();
+        assertEquals(Arrays.asList(first), c.getRemoved());
+    }
+    
 //--------------------- indicesList api
     
     /**
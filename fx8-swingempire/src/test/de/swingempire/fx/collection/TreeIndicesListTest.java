@@ -508,6 +508,116 @@ public class TreeIndicesListTest {
         assertEquals("eventCount", 1, report.getEventCount());
     }
     
+    /**
+     * Sorting children in place: the indices move with the items, 
+     * including the subtree of an expanded child.
+     */
+    @Test
+    public void testPermutateChildren() {
+        TreeItemX child = createBranch("expandedChild");
+        child.setExpanded(true);
+        rootChildren.add(1, child);
+        // child, its second grandChild and a child below
+        int[] indices = {2, 4, 13};
+        indicesList.setIndices(indices);
+        List<TreeItem> items = new ArrayList<>();
+        for (int index : indices) {
+            items.add(tree.getTreeItem(index));
+        }
+        report.clear();
+        FXCollections.sort(rootChildren, (a, b) -> a.getValue().toString().compareTo(b.getValue().toString()));
+        assertEquals("sanity: expanded child moved to end", 10, tree.getRow(child));
+        assertEquals(Arrays.asList(7, 10, 12), indicesList);
+        for (TreeItem item : items) {
+            assertTrue("index must move with item " + item, indicesList.contains(tree.getRow(item)));
+        }
+        assertEquals("eventCount", 1, report.getEventCount());
+        assertTrue("singleReplaced ", wasSingleReplaced(report.getLastChange()));
+    }
+    
+    @Test
+    public void testPermutateGrandChildren() {
+        TreeItemX child = createBranch("expandedChild");
+        child.setExpanded(true);
+        rootChildren.add(1, child);
+        // first and third grandChild, child below, sorting reverses the grandChildren
+        indicesList.setIndices(3, 5, 12);
+        report.clear();
+        FXCollections.sort(child.getChildren(), (a, b) -> a.getValue().toString().compareTo(b.getValue().toString()));
+        assertEquals(Arrays.asList(9, 11, 12), indicesList);
+        assertEquals("eventCount", 1, report.getEventCount());
+    }
+    
+    @Test
+    public void testPermutateHiddenChildren() {
+        TreeItemX child = createBranch("collapsedChild");
+        rootChildren.add(0, child);
+        indicesList.setIndices(1, 3);
+        report.clear();
+        FXCollections.sort(child.getChildren(), (a, b) -> a.getValue().toString().compareTo(b.getValue().toString()));
+        assertEquals(Arrays.asList(1, 3), indicesList);
+        assertEquals("eventCount", 0, report.getEventCount());
+    }
+    
+    /**
+     * Modifications of the children of several parents in a batch: indices 
+     * move with their items, those of removed items are cleared, a single 
+     * change.
+     */
+    @Test
+    public void testBatchModifications() {
+        TreeItemX child = createBranch("expandedChild");
+        child.setExpanded(true);
+        rootChildren.add(1, child);
+        // first child, second grandChild and a child below
+        indicesList.setIndices(1, 4, 13);
+        TreeItem grandChild = tree.getTreeItem(4);
+        TreeItem below = tree.getTreeItem(13);
+        report.clear();
+        TreeItemX.batch(() -> {
+            rootChildren.remove(0);
+            child.getChildren().addAll(0, createItems(rawItems.subList(0, 2)));
+            rootChildren.add(createItem("last"));
+        });
+        assertEquals(Arrays.asList(5, 14), indicesList);
+        assertEquals(Arrays.asList(tree.getRow(grandChild), tree.getRow(below)), indicesList);
+        assertEquals("eventCount", 1, report.getEventCount());
+    }
+    
+    @Test
+    public void testBatchUnchanged() {
+        indicesList.setIndices(1, 3);
+        report.clear();
+        TreeItemX.batch(() -> {
+            TreeItem first = rootChildren.remove(0);
+            rootChildren.add(0, first);
+        });
+        assertEquals(Arrays.asList(1, 3), indicesList);
+        assertEquals("eventCount", 0, report.getEventCount());
+    }
+    
+    /**
+     * Batch: only the rows that changed are removed/added, the others are 
+     * untouched.
+     */
+    @Test
+    public void testBatchOnlyDifferingRows() {
+        indicesList.setIndices(1, 3, 5);
+        report.clear();
+        TreeItemX.batch(() -> {
+            rootChildren.remove(1);
+            rootChildren.add(0, createItem("first"));
+        });
+        assertEquals(Arrays.asList(2, 3, 5), indicesList);
+        assertEquals("eventCount", 1, report.getEventCount());
+        Change c = report.getLastChange();
+        c.reset();
+        assertTrue(c.next());
+        assertEquals(Arrays.asList(1), c.getRemoved());
+        assertEquals(1, c.getAddedSize());
+        assertFalse(c.next());
+    }
+    
 //--------------------- indicesList api (copied from IndicesListTest)
     @Test
     public void testSetAllIndices() {
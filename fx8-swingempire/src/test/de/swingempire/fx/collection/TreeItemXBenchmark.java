@@ -0,0 +1,203 @@
+/*
+ * Created on 17.10.2026
+ *
+ */
+package de.swingempire.fx.collection;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToIntFunction;
+
+import javafx.application.Platform;
+import javafx.embed.swing.JFXPanel;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeView;
+
+import javax.swing.SwingUtilities;
+
+import de.swingempire.fx.scene.control.tree.TreeItemX;
+
+/**
+ * Poor man's benchmark for expand/collapse of a tree of TreeItemX with
+ * a TreeIndicesList, comparing the cached handles to super's private
+ * members against per-call reflection, and for row lookup in a 1M node
+ * tree, comparing TreeItemX' row index against core TreeView. Not a unit 
+ * test, run manually.
+ * <p>
+ *
+ * Per-call reflection is forced by the system property
+ * de.swingempire.fx.TreeItemX.reflection which is read once on loading
+ * TreeItemX, so the comparison is run in a second vm.
+ *
+ * @see IndicesBenchmark
+ */
+public class TreeItemXBenchmark {
+
+    static final String REFLECTION = "de.swingempire.fx.TreeItemX.reflection";
+    static final int BRANCHES = 1_000;
+    static final int LEAFS = 100;
+    static final int WARMUP = 3;
+    static final int RUNS = 5;
+    static final int FANOUT = 100;
+    static final int SAMPLES = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        SwingUtilities.invokeAndWait(() -> new JFXPanel());
+        CountDownLatch latch = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try {
+                benchmarkExpandCollapse();
+                if (!Boolean.getBoolean(REFLECTION)) {
+                    benchmarkRow();
+                }
+            } finally {
+                latch.countDown();
+            }
+        });
+        latch.await();
+        Platform.exit();
+        if (!Boolean.getBoolean(REFLECTION)) {
+            runWithReflection();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Collapses and expands all branches of a 100k node tree with every
+     * other row selected.
+     */
+    static void benchmarkExpandCollapse() {
+        String mode = Boolean.getBoolean(REFLECTION) ? "reflection " : "handles ";
+        System.out.println("---- expand/collapse nodes: " + BRANCHES * (LEAFS + 1)
+                + " / " + mode);
+        long start = System.nanoTime();
+        TreeItemX<String> root = createTree();
+        printTime(mode + "build", System.nanoTime() - start, 1);
+        TreeView<String> tree = new TreeView<>(root);
+        TreeIndicesList<String> indicesList = new TreeIndicesList<>(tree);
+        int[] every = new int[root.getExpandedDescendantCount() / 2];
+        for (int i = 0; i < every.length; i++) {
+            every[i] = 2 * i;
+        }
+        indicesList.setIndices(every);
+        List<TreeItem<String>> branches = new ArrayList<>(root.getChildren());
+        long duration = 0;
+        for (int r = 0; r < WARMUP + RUNS; r++) {
+            start = System.nanoTime();
+            for (TreeItem<String> branch : branches) {
+                branch.setExpanded(false);
+            }
+            for (TreeItem<String> branch : branches) {
+                branch.setExpanded(true);
+            }
+            if (r >= WARMUP) {
+                duration += System.nanoTime() - start;
+            }
+        }
+        printTime(mode + "collapse/expand all", duration, RUNS);
+        System.out.println("selected: " + indicesList.size());
+    }
+
+    /**
+     * Compares row lookup and item lookup by row in a fully expanded tree 
+     * of 3 levels with fanout 100, that is 1M nodes, for random items 
+     * and rows.
+     */
+    static void benchmarkRow() {
+        TreeItemX<String> root = new TreeItemX<>("root");
+        root.setExpanded(true);
+        for (int i = 0; i < FANOUT; i++) {
+            TreeItemX<String> child = new TreeItemX<>("child " + i);
+            child.setExpanded(true);
+            root.getChildren().add(child);
+            for (int j = 0; j < FANOUT; j++) {
+                TreeItemX<String> grandChild = new TreeItemX<>("grandChild " + i + "/" + j);
+                grandChild.setExpanded(true);
+                child.getChildren().add(grandChild);
+                List<TreeItem<String>> leafs = new ArrayList<>();
+                for (int k = 0; k < FANOUT; k++) {
+                    leafs.add(new TreeItemX<>("leaf " + i + "/" + j + "/" + k));
+                }
+                grandChild.getChildren().setAll(leafs);
+            }
+        }
+        TreeView<String> tree = new TreeView<>(root);
+        int count = root.getExpandedDescendantCount();
+        System.out.println("---- row lookup nodes: " + count);
+        Random random = new Random(42);
+        int[] rows = new int[SAMPLES];
+        List<TreeItem<String>> items = new ArrayList<>();
+        for (int i = 0; i < SAMPLES; i++) {
+            rows[i] = random.nextInt(count);
+            items.add(tree.getTreeItem(rows[i]));
+        }
+        measure("core getRow", items, item -> tree.getRow(item));
+        measure("row index getRow", items, item -> TreeItemX.getRow(tree, item));
+        measure("core getTreeItem", rows, row -> tree.getTreeItem(row).hashCode());
+        measure("row index getTreeItem", rows, row -> TreeItemX.getTreeItem(tree, row).hashCode());
+    }
+
+    static void measure(String name, List<TreeItem<String>> items, ToIntFunction<TreeItem<String>> op) {
+        int[] indices = new int[items.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        measure(name, indices, i -> op.applyAsInt(items.get(i)));
+    }
+
+    /**
+     * Runs the operation on all arguments, WARMUP times without and RUNS times
+     * with timing, and prints the average ns/op.
+     */
+    static void measure(String name, int[] arguments, IntUnaryOperator op) {
+        long sink = 0;
+        long duration = 0;
+        for (int r = 0; r < WARMUP + RUNS; r++) {
+            long start = System.nanoTime();
+            for (int argument : arguments) {
+                sink += op.applyAsInt(argument);
+            }
+            if (r >= WARMUP) {
+                duration += System.nanoTime() - start;
+            }
+        }
+        double perOp = (double) duration / (RUNS * arguments.length);
+        System.out.printf("%-36s %,10.1f ns/op   (%d)%n", name, perOp, sink % 10);
+    }
+
+    static TreeItemX<String> createTree() {
+        TreeItemX<String> root = new TreeItemX<>("root");
+        root.setExpanded(true);
+        for (int b = 0; b < BRANCHES; b++) {
+            TreeItemX<String> branch = new TreeItemX<>("branch " + b);
+            branch.setExpanded(true);
+            root.getChildren().add(branch);
+            for (int l = 0; l < LEAFS; l++) {
+                branch.getChildren().add(new TreeItemX<>("leaf " + b + "/" + l));
+            }
+        }
+        return root;
+    }
+
+    static void printTime(String name, long duration, int runs) {
+        System.out.printf("%-36s %,10.3f ms/op%n", name, duration / (runs * 1_000_000.));
+    }
+
+    /**
+     * Runs this benchmark in a new vm with per-call reflection forced.
+     */
+    static void runWithReflection() throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin"
+                + File.separator + "java";
+        new ProcessBuilder(java, "-D" + REFLECTION + "=true",
+                "-cp", System.getProperty("java.class.path"),
+                TreeItemXBenchmark.class.getName())
+            .inheritIO()
+            .start()
+            .waitFor();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Created on 17.10.2026
+ *
+ */
+package de.swingempire.fx.scene.control;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeView;
+
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import de.swingempire.fx.collection.TreeIndicesList;
+import de.swingempire.fx.junit.JavaFXThreadingRule;
+import de.swingempire.fx.scene.control.tree.ChildrenLoader;
+import de.swingempire.fx.scene.control.tree.PagedTreeItemX;
+import de.swingempire.fx.scene.control.tree.TreeItemX;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test lazy children of PagedTreeItemX.
+ */
+@RunWith(JUnit4.class)
+public class PagedTreeItemXTest {
+
+    @ClassRule
+    public static TestRule classRule = new JavaFXThreadingRule();
+
+    private static final int PAGE_SIZE = 10;
+    private static final int MAX_PAGES = 3;
+    private static final int ROOT_COUNT = 1000;
+    private static final int BRANCH_COUNT = 25;
+
+    private CountingLoader loader;
+    private PagedTreeItemX<String> root;
+
+    /**
+     * Root has 1000 children, every child 25 grandChildren, grandChildren
+     * are leafs.
+     */
+    private static class CountingLoader implements ChildrenLoader<String> {
+        int loadedPages;
+
+        @Override
+        public int getChildCount(String parent) {
+            if ("root".equals(parent)) return ROOT_COUNT;
+            return parent.contains("/") ? 0 : BRANCH_COUNT;
+        }
+
+        @Override
+        public List<String> getChildren(String parent, int from, int to) {
+            loadedPages++;
+            List<String> children = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                children.add("root".equals(parent) ? "" + i : parent + "/" + i);
+            }
+            return children;
+        }
+    }
+
+    @Test
+    public void testCountWithoutLoading() {
+        assertFalse(root.isLeaf());
+        assertEquals(ROOT_COUNT, root.getChildren().size());
+        assertEquals(ROOT_COUNT, root.getExpandedChildCount());
+        assertEquals(ROOT_COUNT + 1, root.getExpandedDescendantCount());
+        assertEquals(0, loader.loadedPages);
+    }
+
+    @Test
+    public void testLoadPageOnAccess() {
+        TreeItem<String> child = root.getChildren().get(255);
+        assertEquals("255", child.getValue());
+        assertSame(root, child.getParent());
+        assertEquals(1, loader.loadedPages);
+        assertTrue(root.isLoaded(250));
+        assertFalse(root.isLoaded(260));
+        assertSame(child, root.getChildren().get(255));
+        assertEquals(1, loader.loadedPages);
+    }
+
+    @Test
+    public void testRowIndexLoadsPath() {
+        TreeItem<String> item = TreeItemX.getTreeItem(root, 501, true);
+        assertEquals("500", item.getValue());
+        assertEquals(501, TreeItemX.getRow(item, root, true));
+        assertEquals(1, loader.loadedPages);
+        item.setExpanded(true);
+        TreeItem<String> grandChild = TreeItemX.getTreeItem(root, 501 + 5, true);
+        assertEquals("500/4", grandChild.getValue());
+        assertEquals(ROOT_COUNT + 1 + BRANCH_COUNT, root.getExpandedDescendantCount());
+        assertEquals("500", TreeItemX.getTreeItem(root, 501, true).getValue());
+        assertEquals("501", TreeItemX.getTreeItem(root, 502 + BRANCH_COUNT, true).getValue());
+    }
+
+    @Test
+    public void testEvictCollapsedPages() {
+        TreeItem<String> expanded = root.getChildren().get(5);
+        expanded.setExpanded(true);
+        TreeItem<String> first = root.getChildren().get(15);
+        for (int page = 2; page < 2 + MAX_PAGES; page++) {
+            root.getChildren().get(page * PAGE_SIZE);
+        }
+        assertTrue("page with expanded child must be kept", root.isLoaded(5));
+        assertFalse("least recently used page must be dropped", root.isLoaded(15));
+        assertNull("dropped child must be detached", first.getParent());
+        assertEquals("dropped child must not have a row", -1, TreeItemX.getRow(first, root, true));
+        assertNotSame(first, root.getChildren().get(15));
+        assertEquals(ROOT_COUNT + 1 + BRANCH_COUNT, root.getExpandedDescendantCount());
+    }
+
+    @Test
+    public void testRetainSelectedOrFocused() {
+        TreeView<String> tree = new TreeView<>(root);
+        root.setRetainPredicate(PagedTreeItemX.selectedOrFocused(tree));
+        TreeItem<String> selected = root.getChildren().get(15);
+        TreeItem<String> focused = root.getChildren().get(25);
+        tree.getSelectionModel().select(TreeItemX.getRow(tree, selected));
+        tree.getFocusModel().focus(TreeItemX.getRow(tree, focused));
+        for (int page = 3; page < 3 + MAX_PAGES; page++) {
+            root.getChildren().get(page * PAGE_SIZE);
+        }
+        assertTrue("page with selected child must be kept", root.isLoaded(15));
+        assertTrue("page with focused child must be kept", root.isLoaded(25));
+        assertSame(root, selected.getParent());
+        assertSame(selected, root.getChildren().get(15));
+        assertSame(focused, root.getChildren().get(25));
+    }
+
+    @Test
+    public void testSelectionOnCollapse() {
+        TreeView<String> tree = new TreeView<>(root);
+        // core selection/focus models use core getRow which creates the 
+        // preceding siblings
+        tree.setSelectionModel(null);
+        tree.setFocusModel(null);
+        TreeIndicesList<String> indicesList = new TreeIndicesList<>(tree);
+        TreeItem<String> child = TreeItemX.getTreeItem(tree, 300);
+        child.setExpanded(true);
+        int pages = loader.loadedPages;
+        indicesList.setIndices(300 + 2, 300 + BRANCH_COUNT + 2);
+        child.setExpanded(false);
+        assertEquals(1, indicesList.size());
+        assertEquals(300 + 2, indicesList.get(0).intValue());
+        assertEquals("collapse must not load pages", pages, loader.loadedPages);
+    }
+
+    @Before
+    public void setup() {
+        loader = new CountingLoader();
+        root = new PagedTreeItemX<>("root", null, loader, PAGE_SIZE, MAX_PAGES);
+        root.setExpanded(true);
+    }
+}
@@ -4,20 +4,32 @@
  */
 package de.swingempire.fx.scene.control;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
 import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeItem.TreeModificationEvent;
 
+import org.junit.ClassRule;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.junit.rules.TestRule;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import com.codeaffine.test.ConditionalIgnoreRule.ConditionalIgnore;
 
+import de.swingempire.fx.junit.JavaFXThreadingRule;
 import de.swingempire.fx.scene.control.TreeIgnores.IgnoreLog;
 import de.swingempire.fx.scene.control.tree.TreeItemIterator;
 import de.swingempire.fx.scene.control.tree.TreeItemStreamSupport;
 import de.swingempire.fx.scene.control.tree.TreeItemX;
 import de.swingempire.fx.scene.control.tree.TreeItemX.ExpandedDescendants;
+import de.swingempire.fx.scene.control.tree.TreeItemX.PreorderTreeItemEnumeration;
+import de.swingempire.fx.scene.control.tree.TreeItemX.TreeItemSpliterator;
+import de.swingempire.fx.scene.control.tree.TreeModificationEventX;
 
 import static de.swingempire.fx.scene.control.tree.TreeItemX.*;
 import static org.junit.Assert.*;
@@ -29,6 +41,10 @@ import static org.junit.Assert.*;
 @SuppressWarnings({ "unchecked", "rawtypes" })
 public class TreeItemXTest extends TreeItemTest {
 
+    // batch must run on the fx application thread
+    @ClassRule
+    public static TestRule classRule = new JavaFXThreadingRule();
+
     /**
      * Testing utility method.
      */
@@ -50,6 +66,40 @@ public class TreeItemXTest extends TreeItemTest {
         treeItem.setExpanded(false);
         assertFalse("collapsing root makes grandChilkd invisible", isVisible(grandChild));
     }
+    /**
+     * Row index: getRow/getTreeItem must be consistent with the order of 
+     * expanded descendants, after expand/collapse and modification of children.
+     */
+    @Test
+    public void testRowIndex() {
+        getRoot().setExpanded(true);
+        TreeItemX child = createBranch("child");
+        child.setExpanded(true);
+        getRoot().getChildren().add(2, child);
+        assertRowIndex(getRoot());
+        TreeItem grandChild = (TreeItem) child.getChildren().get(3);
+        child.setExpanded(false);
+        assertRowIndex(getRoot());
+        assertEquals("hidden item", -1, TreeItemX.getRow(grandChild, getRoot(), true));
+        child.setExpanded(true);
+        getRoot().getChildren().remove(0);
+        assertRowIndex(getRoot());
+        assertEquals(3 + 3, TreeItemX.getRow(grandChild, getRoot(), true));
+    }
+    
+    private void assertRowIndex(TreeItemX root) {
+        ExpandedDescendants<TreeItem> iter = new ExpandedDescendants<TreeItem>(root);
+        int row = 0;
+        while (iter.hasNext()) {
+            TreeItem item = iter.next();
+            assertEquals("row of " + item, row, TreeItemX.getRow(item, root, true));
+            assertEquals("row with hidden root " + item, row - 1, TreeItemX.getRow(item, root, false));
+            assertSame("item at " + row, item, TreeItemX.getTreeItem(root, row, true));
+            row++;
+        }
+        assertNull("off range", TreeItemX.getTreeItem(root, row, true));
+    }
+    
     /**
      * Testing expanded count of collapsed/expanded root after adding
      * collapsed/expanded root. 
@@ -134,6 +184,90 @@ public class TreeItemXTest extends TreeItemTest {
         return count;
     }
     
+    /**
+     * Stream of expanded descendants: same order as ExpandedDescendants,
+     * sequential and parallel.
+     */
+    @Test
+    public void testStreamExpanded() {
+        getRoot().setExpanded(true);
+        TreeItemX expanded = createBranch("expanded");
+        expanded.setExpanded(true);
+        getRoot().getChildren().add(2, expanded);
+        getRoot().getChildren().add(4, createBranch("collapsed"));
+        List<TreeItem> expected = new ArrayList<>();
+        new ExpandedDescendants<TreeItem>(getRoot()).forEachRemaining(expected::add);
+        assertEquals(expected, getRoot().streamExpanded().collect(Collectors.toList()));
+        assertEquals(expected, getRoot().streamExpanded().parallel().collect(Collectors.toList()));
+        assertEquals(getRoot().getExpandedDescendantCount(), expected.size());
+    }
+    
+    /**
+     * Stream of all descendants: same order as PreorderTreeItemEnumeration,
+     * sequential and parallel.
+     */
+    @Test
+    public void testStreamAll() {
+        getRoot().setExpanded(false);
+        TreeItemX branch = createBranch("branch");
+        branch.getChildren().add(1, createBranch("grandBranch"));
+        getRoot().getChildren().add(1, branch);
+        List<TreeItem> expected = new ArrayList<>();
+        new PreorderTreeItemEnumeration<TreeItem>(getRoot()).forEachRemaining(expected::add);
+        assertEquals(3 * (rawItems.size() + 1), expected.size());
+        assertEquals(expected, getRoot().streamAll().collect(Collectors.toList()));
+        assertEquals(expected, getRoot().streamAll().parallel().collect(Collectors.toList()));
+    }
+    
+    /**
+     * Spliterator descends into a single subtree.
+     */
+    @Test
+    public void testSpliteratorDescends() {
+        TreeItemX child = createBranch("child");
+        TreeItemX parent = createItem("parent");
+        parent.getChildren().add(child);
+        List<TreeItem> items = new ArrayList<>();
+        Spliterator<TreeItem> spliterator = new TreeItemSpliterator<TreeItem>(parent, false, Long.MAX_VALUE);
+        Spliterator<TreeItem> prefix = spliterator.trySplit();
+        assertNotNull("must split off the parent", prefix);
+        prefix.forEachRemaining(items::add);
+        assertEquals(1, items.size());
+        assertNotNull("must split children of child", spliterator.trySplit());
+        assertNull("collapsed child not split", 
+                new TreeItemSpliterator<TreeItem>(parent, true, 1).trySplit());
+    }
+    
+    /**
+     * Batch: a single event from the root, with the children before the 
+     * batch, expanded counts and row index up to date.
+     */
+    @Test
+    public void testBatch() {
+        getRoot().setExpanded(true);
+        TreeItemX child = createBranch("child");
+        child.setExpanded(true);
+        List<TreeModificationEvent> events = new ArrayList<>();
+        getRoot().addEventHandler(TreeItem.treeNotificationEvent(), e -> events.add((TreeModificationEvent) e));
+        List<TreeItem> oldChildren = new ArrayList<>(getRoot().getChildren());
+        TreeItemX.batch(() -> {
+            getRoot().getChildren().add(1, child);
+            child.getChildren().remove(0);
+            getRoot().getChildren().remove(0);
+            assertEquals("no event inside batch", 0, events.size());
+            assertTrue(TreeItemX.isBatching());
+        });
+        assertFalse(TreeItemX.isBatching());
+        assertEquals(1, events.size());
+        TreeModificationEventX event = (TreeModificationEventX) events.get(0);
+        assertTrue(event.wasBatch());
+        assertSame(getRoot(), event.getTreeItem());
+        assertEquals(oldChildren, event.getOldChildren(getRoot()));
+        assertEquals(rawItems.size(), event.getOldChildren(child).size());
+        assertEquals(2 * rawItems.size(), getRoot().getExpandedDescendantCount());
+        assertRowIndex(getRoot());
+    }
+    
     @Test 
     @ConditionalIgnore (condition = IgnoreLog.class)
     public void testLogTraversalExpandedChildX() {
@@ -4,8 +4,13 @@
  */
 package de.swingempire.fx.scene.control.selection;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.logging.Logger;
 
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener.Change;
 import javafx.collections.ObservableList;
 import javafx.scene.control.ListView;
 import javafx.scene.control.MultipleSelectionModel;
@@ -15,6 +20,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
+import de.swingempire.fx.util.ListChangeReport;
+
+import static de.swingempire.fx.util.FXUtils.*;
 import static org.junit.Assert.*;
 
 /**
@@ -46,6 +54,130 @@ public class ListAnchoredMultipleSelectionIssues extends AbstractListMultipleSel
         assertEquals(focus, getAnchorIndex());
     }
     
+    /**
+     * Sorting remaps the selection: a single replaced on selectedIndices,
+     * a permutation on selectedItems.
+     */
+    @Test
+    public void testSelectionEventsAfterSort() {
+        if (!multipleMode) return;
+        getSelectionModel().selectIndices(1, 2, 4);
+        ObservableList selectedItems = FXCollections.observableArrayList(getSelectedItems());
+        ListChangeReport indicesReport = new ListChangeReport(getSelectedIndices());
+        ListChangeReport itemsReport = new ListChangeReport(getSelectedItems());
+        // items are in reverse order
+        FXCollections.sort(items);
+        assertEquals(FXCollections.observableArrayList(4, 6, 7), getSelectedIndices());
+        assertEquals(1, indicesReport.getEventCount());
+        assertTrue("indices must fire single replaced but was " + indicesReport.getLastChange(), 
+                wasSingleReplaced(indicesReport.getLastChange()));
+        assertEquals(1, itemsReport.getEventCount());
+        assertTrue("items must fire single permutated but was " + itemsReport.getLastChange(), 
+                wasSinglePermutated(itemsReport.getLastChange()));
+        FXCollections.reverse(selectedItems);
+        assertEquals(selectedItems, getSelectedItems());
+        assertEquals("selectedIndex must follow its item", 4, getSelectedIndex());
+        assertEquals("focus must follow its item", 4, getFocusedIndex());
+    }
+    
+    /**
+     * Inserting above the selection shifts it: a single replaced on 
+     * selectedIndices, nothing on selectedItems.
+     */
+    @Test
+    public void testSelectionEventsOnInsertAbove() {
+        if (!multipleMode) return;
+        getSelectionModel().selectIndices(1, 3, 4);
+        ListChangeReport indicesReport = new ListChangeReport(getSelectedIndices());
+        ListChangeReport itemsReport = new ListChangeReport(getSelectedItems());
+        addItem(2, createItem("new item"));
+        assertEquals(FXCollections.observableArrayList(1, 4, 5), getSelectedIndices());
+        assertEquals(1, indicesReport.getEventCount());
+        assertTrue("indices must fire single replaced but was " + indicesReport.getLastChange(), 
+                wasSingleReplaced(indicesReport.getLastChange()));
+        Change c = indicesReport.getLastChange();
+        c.next();
+        assertEquals(Arrays.asList(3, 4), c.getRemoved());
+        assertEquals(0, itemsReport.getEventCount());
+    }
+    
+    /**
+     * Removing the first item must not keep index 0 selected.
+     */
+    @Test
+    public void testSelectedIndicesOnRemoveFirst() {
+        if (!multipleMode) return;
+        getSelectionModel().selectIndices(0, 3);
+        removeItem(0);
+        assertEquals(FXCollections.observableArrayList(2), getSelectedIndices());
+        assertEquals(2, getSelectedIndex());
+    }
+    
+    /**
+     * Removing a range containing the selectedIndex moves the lead below 
+     * the range: the replaced on selectedIndices must start at the new 
+     * lead, selectedItems must be notified about the removed.
+     */
+    @Test
+    public void testSelectionEventsOnRemoveSelectedIndex() {
+        if (!multipleMode) return;
+        getSelectionModel().selectIndices(1, 7);
+        assertEquals(7, getSelectedIndex());
+        List oldItems = Arrays.asList(items.get(1), items.get(7));
+        ListChangeReport indicesReport = new ListChangeReport(getSelectedIndices());
+        ListChangeReport itemsReport = new ListChangeReport(getSelectedItems());
+        items.remove(2, items.size());
+        assertEquals(FXCollections.observableArrayList(0, 1), getSelectedIndices());
+        assertEquals(0, getSelectedIndex());
+        assertEquals(1, indicesReport.getEventCount());
+        assertTrue("indices must fire single replaced but was " + indicesReport.getLastChange(), 
+                wasSingleReplaced(indicesReport.getLastChange()));
+        Change c = indicesReport.getLastChange();
+        c.next();
+        assertEquals(0, c.getFrom());
+        assertEquals(Arrays.asList(1, 7), c.getRemoved());
+        assertEquals(Arrays.asList(0, 1), c.getAddedSubList());
+        assertEquals(1, itemsReport.getEventCount());
+        Change itemsChange = itemsReport.getLastChange();
+        itemsChange.next();
+        assertEquals(0, itemsChange.getFrom());
+        assertEquals(oldItems, itemsChange.getRemoved());
+        assertEquals(Arrays.asList(items.get(0), items.get(1)), itemsChange.getAddedSubList());
+        assertFalse(itemsChange.next());
+    }
+    
+    @Test
+    public void testIterateSelection() {
+        if (!multipleMode) return;
+        getSelectionModel().selectIndices(1, 3, 4);
+        addItem(2, createItem("new item"));
+        List<Integer> indices = new ArrayList<>();
+        for (Object index : getSelectedIndices()) {
+            indices.add((Integer) index);
+        }
+        assertEquals(Arrays.asList(1, 4, 5), indices);
+        List selected = new ArrayList();
+        getSelectedItems().forEach(selected::add);
+        assertEquals(Arrays.asList(items.get(1), items.get(4), items.get(5)), selected);
+        assertEquals(selected, new ArrayList(getSelectedItems()));
+    }
+    
+    @Test
+    public void testCopySelectedItemsInto() {
+        if (!multipleMode) return;
+        getSelectionModel().selectIndices(1, 3, 4);
+        // access an item, then change the selection before it
+        assertEquals(items.get(4), getSelectedItems().get(2));
+        getSelectionModel().select(0);
+        addItem(2, createItem("new item"));
+        Object[] expected = new Object[] {items.get(0), items.get(1), items.get(4), items.get(5)};
+        Object[] copy = new Object[4];
+        assertEquals(4, ((MultipleSelectionModelBase) getSelectionModel()).copySelectedItemsInto(copy));
+        assertArrayEquals(expected, copy);
+        assertArrayEquals(expected, getSelectedItems().toArray());
+        assertEquals(Arrays.asList(expected), getSelectedItems());
+    }
+    
     public ListAnchoredMultipleSelectionIssues(boolean multiple) {
         super(multiple);
     }
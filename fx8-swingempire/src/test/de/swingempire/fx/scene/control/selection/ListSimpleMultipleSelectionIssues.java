@@ -4,6 +4,7 @@
  */
 package de.swingempire.fx.scene.control.selection;
 
+import java.util.Arrays;
 import java.util.logging.Logger;
 
 import javafx.collections.ObservableList;
@@ -11,6 +12,7 @@ import javafx.scene.control.ListView;
 import javafx.scene.control.MultipleSelectionModel;
 import javafx.scene.control.SelectionMode;
 
+import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
@@ -53,6 +55,29 @@ public class ListSimpleMultipleSelectionIssues extends AbstractListMultipleSelec
     }
 
     
+    /**
+     * Invert: selected are cleared, all others selected, selectedIndex is 
+     * the last selected.
+     */
+    @Test
+    public void testInvertSelection() {
+        int size = items.size();
+        getSelectionModel().select(2);
+        ((SimpleListSelectionModel) getSelectionModel()).invertSelection();
+        if (!multipleMode) {
+            assertEquals("invert does nothing in single mode", 
+                    Arrays.asList(2), getSelectedIndices());
+            return;
+        }
+        assertEquals(size - 1, getSelectedIndices().size());
+        assertFalse(getSelectionModel().isSelected(2));
+        assertEquals(size - 1, getSelectionModel().getSelectedIndex());
+        assertEquals(items.get(3), getSelectionModel().getSelectedItems().get(2));
+        ((SimpleListSelectionModel) getSelectionModel()).invertSelection();
+        assertEquals(Arrays.asList(2), getSelectedIndices());
+        assertEquals(2, getSelectionModel().getSelectedIndex());
+    }
+    
     @Override
     public void setUp() throws Exception {
         super.setUp();
@@ -0,0 +1,231 @@
+/*
+ * Created on 17.10.2026
+ *
+ */
+package de.swingempire.fx.scene.control.tree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import javafx.collections.ListChangeListener;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeView;
+
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import de.swingempire.fx.collection.TreeIndicesList;
+import de.swingempire.fx.junit.JavaFXThreadingRule;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test background loading of AsyncTreeItemX. Loading and publishing
+ * are queued and run manually.
+ */
+@RunWith(JUnit4.class)
+public class AsyncTreeItemXTest {
+
+    @ClassRule
+    public static TestRule classRule = new JavaFXThreadingRule();
+
+    private static final int CHILD_COUNT = 5;
+
+    private List<Runnable> queue;
+    private Executor executor;
+    private int loads;
+    private ChildrenLoader<String> loader;
+
+    @Test
+    public void testPlaceholderBeforeExpand() {
+        AsyncTreeItemX<String> item = createItem("item");
+        assertFalse(item.isLoaded());
+        assertFalse(item.isLeaf());
+        assertEquals(1, item.getChildren().size());
+        assertEquals(0, loads);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testCustomPlaceholder() {
+        TreeItemX<String> placeholder = new TreeItemX<>("loading ...");
+        AsyncTreeItemX<String> item = new AsyncTreeItemX<>("item", null, loader, executor, placeholder);
+        item.setResultExecutor(executor);
+        assertEquals(1, item.getChildren().size());
+        assertSame(placeholder, item.getChildren().get(0));
+        item.setExpanded(true);
+        runQueue();
+        assertEquals(CHILD_COUNT, item.getChildren().size());
+        assertFalse(item.getChildren().contains(placeholder));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullPlaceholder() {
+        new AsyncTreeItemX<>("item", null, loader, executor, null);
+    }
+
+    @Test
+    public void testLoadOnExpand() {
+        AsyncTreeItemX<String> item = createItem("item");
+        int[] changes = new int[1];
+        item.getChildren().addListener((ListChangeListener<TreeItem<String>>) c -> {
+            while (c.next()) {
+                assertTrue("expected replace " + c, c.wasReplaced());
+                changes[0]++;
+            }
+        });
+        item.setExpanded(true);
+        assertTrue(item.isLoading());
+        assertEquals(1, item.getChildren().size());
+        runQueue();
+        assertFalse(item.isLoading());
+        assertTrue(item.isLoaded());
+        assertEquals(CHILD_COUNT, item.getChildren().size());
+        assertEquals("item/0", item.getChildren().get(0).getValue());
+        assertEquals("single replace of placeholder", 1, changes[0]);
+        assertEquals(CHILD_COUNT + 1, item.getExpandedDescendantCount());
+    }
+
+    @Test
+    public void testEmptyIsLeafAfterLoad() {
+        AsyncTreeItemX<String> item = createItem("leaf");
+        item.setExpanded(true);
+        runQueue();
+        assertTrue(item.isLoaded());
+        assertTrue(item.isLeaf());
+    }
+
+    @Test
+    public void testCancelOnCollapse() {
+        AsyncTreeItemX<String> item = createItem("item");
+        item.setExpanded(true);
+        item.setExpanded(false);
+        assertFalse(item.isLoading());
+        runQueue();
+        assertFalse(item.isLoaded());
+        assertEquals(1, item.getChildren().size());
+        item.setExpanded(true);
+        runQueue();
+        assertTrue(item.isLoaded());
+        assertEquals(CHILD_COUNT, item.getChildren().size());
+    }
+
+    @Test
+    public void testLoadFailure() {
+        IllegalStateException failure = new IllegalStateException("failing loader");
+        AsyncTreeItemX<String> item = new AsyncTreeItemX<>("item", new ChildrenLoader<String>() {
+
+            @Override
+            public int getChildCount(String parent) {
+                throw failure;
+            }
+
+            @Override
+            public List<String> getChildren(String parent, int from, int to) {
+                return null;
+            }
+        }, executor);
+        item.setResultExecutor(executor);
+        item.setExpanded(true);
+        runQueue();
+        assertSame(failure, item.getLoadException());
+        assertFalse(item.isExpanded());
+        assertFalse(item.isLoading());
+        assertFalse(item.isLoaded());
+        assertEquals(1, item.getChildren().size());
+        item.setExpanded(true);
+        assertNull("reset on next load", item.getLoadException());
+    }
+
+    @Test
+    public void testCancelInterruptsLoad() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AsyncTreeItemX<String> item = new AsyncTreeItemX<>("item", new ChildrenLoader<String>() {
+
+            @Override
+            public int getChildCount(String parent) {
+                started.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return 0;
+            }
+
+            @Override
+            public List<String> getChildren(String parent, int from, int to) {
+                return new ArrayList<>();
+            }
+        }, r -> new Thread(r).start());
+        item.setResultExecutor(executor);
+        item.setExpanded(true);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        item.setExpanded(false);
+        assertTrue("loading thread interrupted", interrupted.await(5, TimeUnit.SECONDS));
+        assertFalse(item.isLoading());
+        assertTrue("cancelled load not published", queue.isEmpty());
+    }
+
+    @Test
+    public void testSelectionBelowSurvives() {
+        TreeItemX<String> root = new TreeItemX<>("root");
+        root.setExpanded(true);
+        AsyncTreeItemX<String> item = createItem("item");
+        root.getChildren().addAll(new TreeItemX<>("first"), item, new TreeItemX<>("last"));
+        TreeView<String> tree = new TreeView<>(root);
+        TreeIndicesList<String> indicesList = new TreeIndicesList<>(tree);
+        // select row of item and of last
+        indicesList.setIndices(2, 3);
+        item.setExpanded(true);
+        assertEquals("placeholder showing", 4, indicesList.get(1).intValue());
+        runQueue();
+        assertEquals(2, indicesList.size());
+        assertEquals(2, indicesList.get(0).intValue());
+        assertEquals(3 + CHILD_COUNT, indicesList.get(1).intValue());
+        assertSame(root.getChildren().get(2), TreeItemX.getTreeItem(tree, 3 + CHILD_COUNT));
+    }
+
+    private AsyncTreeItemX<String> createItem(String value) {
+        AsyncTreeItemX<String> item = new AsyncTreeItemX<>(value, loader, executor);
+        item.setResultExecutor(executor);
+        return item;
+    }
+
+    private void runQueue() {
+        while (!queue.isEmpty()) {
+            queue.remove(0).run();
+        }
+    }
+
+    @Before
+    public void setup() {
+        queue = new ArrayList<>();
+        executor = queue::add;
+        loader = new ChildrenLoader<String>() {
+
+            @Override
+            public int getChildCount(String parent) {
+                return parent.startsWith("leaf") || parent.contains("/") ? 0 : CHILD_COUNT;
+            }
+
+            @Override
+            public List<String> getChildren(String parent, int from, int to) {
+                loads++;
+                List<String> children = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    children.add(parent + "/" + i);
+                }
+                return children;
+            }
+        };
+    }
+}
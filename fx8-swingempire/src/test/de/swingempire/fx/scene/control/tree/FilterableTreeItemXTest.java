@@ -0,0 +1,125 @@
+/*
+ * Created on 17.10.2026
+ *
+ */
+package de.swingempire.fx.scene.control.tree;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javafx.collections.ListChangeListener;
+import javafx.scene.control.TreeItem;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test bottom-up filtering of FilterableTreeItemX.
+ */
+@RunWith(JUnit4.class)
+public class FilterableTreeItemXTest {
+
+    private static final int FOLDERS = 3;
+    private static final List<String> LEAFS = Arrays.asList(
+            "Jack", "Marlon", "Robert", "Al", "Daniel", "Jackie");
+
+    private FilterableTreeItemX<String> root;
+    private AtomicInteger tests;
+    private AtomicInteger changes;
+    private ListChangeListener<TreeItem<String>> changeCounter = c -> changes.incrementAndGet();
+
+    @Test
+    public void testFilterKeepsAncestorsOfMatches() {
+        root.setPredicate(TreeItemPredicate.create(value -> value.contains("/Jack")));
+        assertEquals(FOLDERS, root.getChildren().size());
+        FilterableTreeItemX<String> folder = getFolder(0);
+        assertEquals(2, folder.getChildren().size());
+        assertEquals("folder 0/Jackie", folder.getChildren().get(1).getValue());
+        assertSame(root.getPredicate(), folder.getPredicate());
+    }
+
+    @Test
+    public void testFilterRemovesFoldersWithoutMatch() {
+        root.setPredicate(TreeItemPredicate.create(value -> value.endsWith("1/Al")));
+        assertEquals(1, root.getChildren().size());
+        assertEquals(1, getFolder(1).getChildren().size());
+        assertEquals(0, getFolder(0).getChildren().size());
+    }
+
+    @Test
+    public void testFolderMatchingItself() {
+        root.setPredicate(TreeItemPredicate.create(value -> value.equals("folder 2")));
+        assertEquals(1, root.getChildren().size());
+        assertEquals(0, getFolder(2).getChildren().size());
+    }
+
+    @Test
+    public void testNullPredicateKeepsAll() {
+        root.setPredicate(TreeItemPredicate.create(value -> false));
+        assertEquals(0, root.getChildren().size());
+        root.setPredicate(null);
+        assertEquals(FOLDERS, root.getChildren().size());
+        assertEquals(LEAFS.size(), getFolder(0).getChildren().size());
+    }
+
+    /**
+     * Every leaf and every folder without kept children is tested once,
+     * every filtered list fires at most one change.
+     */
+    @Test
+    public void testTestOnceFireOncePerParent() {
+        root.setPredicate(TreeItemPredicate.create(value -> {
+            tests.incrementAndGet();
+            return value.endsWith("Al");
+        }));
+        assertEquals(FOLDERS * LEAFS.size(), tests.get());
+        assertEquals("one change per folder, none for unchanged root", FOLDERS, changes.get());
+    }
+
+    @Test
+    public void testParallel() {
+        root.setParallelThreshold(1);
+        root.setPredicate(TreeItemPredicate.create(value -> {
+            tests.incrementAndGet();
+            return value.startsWith("folder 1/");
+        }));
+        assertEquals(FOLDERS * LEAFS.size() + FOLDERS - 1, tests.get());
+        assertEquals(1, root.getChildren().size());
+        assertEquals(LEAFS.size(), getFolder(1).getChildren().size());
+    }
+
+    @Test
+    public void testAddedChildIsFiltered() {
+        root.setPredicate(TreeItemPredicate.create(value -> value.endsWith("Al")));
+        FilterableTreeItemX<String> folder = getFolder(0);
+        folder.getBackingChildren().add(new FilterableTreeItemX<>("Alan"));
+        folder.getBackingChildren().add(new FilterableTreeItemX<>("new Al"));
+        assertEquals(2, folder.getChildren().size());
+        assertEquals("new Al", folder.getChildren().get(1).getValue());
+    }
+
+    private FilterableTreeItemX<String> getFolder(int index) {
+        return (FilterableTreeItemX<String>) root.getBackingChildren().get(index);
+    }
+
+    @Before
+    public void setup() {
+        tests = new AtomicInteger();
+        changes = new AtomicInteger();
+        root = new FilterableTreeItemX<>("root");
+        for (int i = 0; i < FOLDERS; i++) {
+            FilterableTreeItemX<String> folder = new FilterableTreeItemX<>("folder " + i);
+            for (String leaf : LEAFS) {
+                folder.getBackingChildren().add(new FilterableTreeItemX<>("folder " + i + "/" + leaf));
+            }
+            folder.getChildren().addListener(changeCounter);
+            root.getBackingChildren().add(folder);
+        }
+        root.getChildren().addListener(changeCounter);
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Created on 17.10.2026
+ *
+ */
+package de.swingempire.fx.scene.control.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import javafx.collections.ListChangeListener;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeView;
+
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import de.swingempire.fx.collection.TreeIndexMappedList;
+import de.swingempire.fx.collection.TreeIndicesList;
+import de.swingempire.fx.junit.JavaFXThreadingRule;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test sorted children of SortableTreeItemX.
+ */
+@RunWith(JUnit4.class)
+public class SortableTreeItemXTest {
+
+    @ClassRule
+    public static TestRule classRule = new JavaFXThreadingRule();
+
+    private static final List<String> ACTORS = Arrays.asList(
+            "Marlon", "Jack", "Robert", "Al", "Daniel");
+
+    private SortableTreeItemX<String> root;
+    private List<ListChangeListener.Change<? extends TreeItem<String>>> changes;
+
+    @Test
+    public void testSorted() {
+        root.setComparator(TreeItemComparator.create(Comparator.naturalOrder()));
+        assertEquals(Arrays.asList("Al", "Daniel", "Jack", "Marlon", "Robert"), getValues(root));
+        assertEquals("backing children unchanged", ACTORS.get(0), root.getBackingChildren().get(0).getValue());
+        assertSinglePermutation();
+    }
+
+    @Test
+    public void testNullComparatorRestoresBackingOrder() {
+        root.setComparator(TreeItemComparator.create(Comparator.naturalOrder()));
+        root.setComparator(null);
+        assertEquals(ACTORS, getValues(root));
+    }
+
+    @Test
+    public void testInheritedComparator() {
+        SortableTreeItemX<String> child = createItem("child");
+        root.getBackingChildren().add(child);
+        root.setComparator(TreeItemComparator.create(Comparator.naturalOrder()));
+        assertSame(root.getComparator(), child.getEffectiveComparator());
+        assertEquals("child/Al", child.getChildren().get(0).getValue());
+        child.setComparator(TreeItemComparator.create(Comparator.reverseOrder()));
+        assertEquals("child/Robert", child.getChildren().get(0).getValue());
+    }
+
+    @Test
+    public void testAddedChildInheritsComparator() {
+        root.setComparator(TreeItemComparator.create(Comparator.naturalOrder()));
+        SortableTreeItemX<String> child = createItem("child");
+        root.getBackingChildren().add(child);
+        assertEquals("child/Al", child.getChildren().get(0).getValue());
+    }
+
+    @Test
+    public void testAddInsertsSorted() {
+        root.setComparator(TreeItemComparator.create(Comparator.naturalOrder()));
+        changes.clear();
+        root.getBackingChildren().add(new SortableTreeItemX<>("Bruce"));
+        assertEquals("Bruce", root.getChildren().get(1).getValue());
+        assertEquals(1, changes.size());
+    }
+
+    /**
+     * Bulk changes: removed in one pass, added merged at their sorted
+     * position, after equal children.
+     */
+    @Test
+    public void testSetAllBackingChildren() {
+        root.setComparator(TreeItemComparator.create(Comparator.comparing(String::length)));
+        // backing: "Marlon", "Jack", "Robert", "Al", "Daniel"
+        List<TreeItem<String>> backing = new ArrayList<>(root.getBackingChildren());
+        backing.remove(3);
+        backing.remove(0);
+        backing.add(0, new SortableTreeItemX<>("Sam"));
+        backing.add(new SortableTreeItemX<>("Mark"));
+        backing.add(new SortableTreeItemX<>("Bruce"));
+        changes.clear();
+        root.getBackingChildren().setAll(backing);
+        assertEquals(Arrays.asList("Sam", "Jack", "Mark", "Bruce", "Robert", "Daniel"), getValues(root));
+        assertEquals(1, changes.size());
+        root.getChildren().get(0).setValue("Samantha");
+        assertEquals(Arrays.asList("Jack", "Mark", "Bruce", "Robert", "Daniel", "Samantha"), getValues(root));
+    }
+
+    @Test
+    public void testValueChangeRepositions() {
+        root.setComparator(TreeItemComparator.create(Comparator.naturalOrder()));
+        changes.clear();
+        root.getChildren().get(0).setValue("Sean");
+        assertEquals(Arrays.asList("Daniel", "Jack", "Marlon", "Robert", "Sean"), getValues(root));
+        assertSinglePermutation();
+        changes.clear();
+        root.getChildren().get(4).setValue("Bruce");
+        assertEquals(Arrays.asList("Bruce", "Daniel", "Jack", "Marlon", "Robert"), getValues(root));
+        assertSinglePermutation();
+    }
+
+    /**
+     * A changed child keeps its position relative to equal children.
+     */
+    @Test
+    public void testValueChangeStable() {
+        root.setComparator(TreeItemComparator.create(Comparator.comparing(String::length)));
+        // "Al", "Jack", "Marlon", "Robert", "Daniel"
+        TreeItem<String> al = root.getChildren().get(0);
+        TreeItem<String> jack = root.getChildren().get(1);
+        TreeItem<String> daniel = root.getChildren().get(4);
+        al.setValue("Angela");
+        assertEquals("moved right, before equal children", 1, root.getChildren().indexOf(al));
+        daniel.setValue("Dirk");
+        assertEquals("moved left, after equal children", 1, root.getChildren().indexOf(daniel));
+        changes.clear();
+        jack.setValue("Kirk");
+        assertEquals("not moved", 0, root.getChildren().indexOf(jack));
+        assertEquals(0, changes.size());
+    }
+
+    @Test
+    public void testBatchUpdate() {
+        root.setComparator(TreeItemComparator.create(Comparator.naturalOrder()));
+        root.setParallelThreshold(2);
+        changes.clear();
+        root.batchUpdate(() -> {
+            root.getChildren().get(0).setValue("Tom");
+            root.getChildren().get(1).setValue("Sam");
+            root.getChildren().get(4).setValue("Bill");
+        });
+        assertEquals(Arrays.asList("Bill", "Jack", "Marlon", "Sam", "Tom"), getValues(root));
+        assertSinglePermutation();
+    }
+
+    @Test
+    public void testSelectionPreserved() {
+        root.setComparator(TreeItemComparator.create(Comparator.naturalOrder()));
+        root.setExpanded(true);
+        TreeView<String> tree = new TreeView<>(root);
+        TreeIndicesList<String> indicesList = new TreeIndicesList<>(tree);
+        TreeIndexMappedList<String> selectedItems = new TreeIndexMappedList<>(indicesList);
+        // "Daniel" and "Marlon"
+        indicesList.setIndices(2, 4);
+        List<TreeItem<String>> selected = new ArrayList<>(selectedItems);
+        // "Jack" moves above "Daniel"
+        root.getChildren().get(2).setValue("Bob");
+        assertEquals(Arrays.asList(3, 4), indicesList);
+        root.batchUpdate(() -> {
+            selected.get(0).setValue("Zoe");
+            root.getChildren().get(0).setValue("Yves");
+        });
+        assertEquals(Arrays.asList("Bob", "Marlon", "Robert", "Yves", "Zoe"), getValues(root));
+        assertEquals(Arrays.asList(2, 5), indicesList);
+        assertEquals(Arrays.asList(selected.get(1), selected.get(0)), selectedItems);
+    }
+
+    private void assertSinglePermutation() {
+        assertEquals(1, changes.size());
+        ListChangeListener.Change<? extends TreeItem<String>> c = changes.get(0);
+        c.reset();
+        assertTrue(c.next());
+        assertTrue("expected permutation " + c, c.wasPermutated());
+        assertFalse(c.next());
+    }
+
+    private List<String> getValues(TreeItem<String> item) {
+        List<String> values = new ArrayList<>();
+        for (TreeItem<String> child : item.getChildren()) {
+            values.add(child.getValue());
+        }
+        return values;
+    }
+
+    private SortableTreeItemX<String> createItem(String value) {
+        SortableTreeItemX<String> item = new SortableTreeItemX<>(value);
+        for (String actor : ACTORS) {
+            item.getBackingChildren().add(new SortableTreeItemX<>(value + "/" + actor));
+        }
+        return item;
+    }
+
+    @Before
+    public void setup() {
+        changes = new ArrayList<>();
+        root = new SortableTreeItemX<>("root");
+        for (String actor : ACTORS) {
+            root.getBackingChildren().add(new SortableTreeItemX<>(actor));
+        }
+        root.getChildren().addListener((ListChangeListener<TreeItem<String>>) c -> changes.add(c));
+    }
+}
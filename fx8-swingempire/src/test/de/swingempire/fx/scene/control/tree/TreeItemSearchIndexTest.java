@@ -0,0 +1,129 @@
+/*
+ * Created on 17.10.2026
+ *
+ */
+package de.swingempire.fx.scene.control.tree;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javafx.scene.control.TreeItem;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import de.swingempire.fx.scene.control.tree.TreeItemSearchIndex.Matches;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test TreeItemSearchIndex: search, offsets and incremental update.
+ */
+@RunWith(JUnit4.class)
+public class TreeItemSearchIndexTest {
+
+    private static final List<String> ACTORS = Arrays.asList(
+            "Jack Nicholson", "Marlon Brando", "Robert De Niro", "Al Pacino",
+            "Daniel Day-Lewis", "Jack Lemmon");
+
+    private TreeItemX<String> root;
+    private TreeItemX<String> folder;
+    private TreeItemSearchIndex<String> index;
+
+    @Test
+    public void testSearch() {
+        Matches<String> matches = index.search("jack");
+        assertEquals(2, matches.size());
+        assertTrue(matches.contains(folder.getChildren().get(0)));
+        assertTrue(matches.contains(folder.getChildren().get(5)));
+        assertEquals(0, index.search("xyz").size());
+        assertEquals(0, index.search("").size());
+    }
+
+    @Test
+    public void testSearchShortQuery() {
+        Matches<String> matches = index.search("Ni");
+        // "Jack Nicholson", "Robert De Niro" and "Daniel Day-Lewis"
+        assertEquals(3, matches.size());
+        assertArrayEquals(new int[] {2}, matches.getOffsets(folder.getChildren().get(4)));
+    }
+
+    /**
+     * Trigrams of the query contained, but not the query.
+     */
+    @Test
+    public void testSearchVerifiesCandidates() {
+        folder.getChildren().add(new TreeItemX<>("abcabd"));
+        assertEquals(0, index.search("abcabc").size());
+        assertEquals(1, index.search("bcab").size());
+    }
+
+    @Test
+    public void testOffsets() {
+        TreeItemX<String> item = new TreeItemX<>("Bonobo bonbon");
+        folder.getChildren().add(item);
+        Matches<String> matches = index.search("BON");
+        assertEquals(1, matches.size());
+        assertArrayEquals(new int[] {0, 7, 10}, matches.getOffsets(item));
+        assertEquals(3, matches.getMatchLength());
+        assertArrayEquals(new int[0], matches.getOffsets(folder.getChildren().get(0)));
+    }
+
+    @Test
+    public void testIncrementalChildren() {
+        TreeItemX<String> branch = new TreeItemX<>("branch");
+        branch.getChildren().add(new TreeItemX<>("Jack Black"));
+        folder.getChildren().add(branch);
+        assertEquals(3, index.search("jack").size());
+        folder.getChildren().remove(0);
+        assertEquals(2, index.search("jack").size());
+        folder.getChildren().remove(branch);
+        assertEquals(1, index.search("jack").size());
+        branch.getChildren().add(new TreeItemX<>("Jack Sparrow"));
+        assertEquals("removed subtree must not be indexed", 1, index.search("jack").size());
+        assertEquals(1 + 1 + ACTORS.size() - 1, index.size());
+    }
+
+    @Test
+    public void testIncrementalValue() {
+        TreeItem<String> item = folder.getChildren().get(1);
+        item.setValue("Jack Nicholson");
+        assertEquals(3, index.search("jack").size());
+        assertEquals(0, index.search("brando").size());
+    }
+
+    @Test
+    public void testPredicateForFilterable() {
+        FilterableTreeItemX<String> filterRoot = new FilterableTreeItemX<>("actors");
+        for (String actor : ACTORS) {
+            filterRoot.getBackingChildren().add(new FilterableTreeItemX<>(actor));
+        }
+        TreeItemSearchIndex<String> filterIndex = new TreeItemSearchIndex<>(filterRoot);
+        filterRoot.setPredicate(filterIndex.search("jack").asPredicate());
+        assertEquals(2, filterRoot.getChildren().size());
+        // index is on backing children
+        filterRoot.setPredicate(filterIndex.search("de niro").asPredicate());
+        assertEquals(1, filterRoot.getChildren().size());
+    }
+
+    @Test
+    public void testDispose() {
+        index.dispose();
+        assertEquals(0, index.size());
+        folder.getChildren().add(new TreeItemX<>("Jack Black"));
+        assertEquals(0, index.search("jack").size());
+    }
+
+    @Before
+    public void setup() {
+        root = new TreeItemX<>("root");
+        folder = new TreeItemX<>("folder");
+        for (String actor : ACTORS) {
+            folder.getChildren().add(new TreeItemX<>(actor));
+        }
+        root.getChildren().add(folder);
+        index = new TreeItemSearchIndex<>(root);
+    }
+}